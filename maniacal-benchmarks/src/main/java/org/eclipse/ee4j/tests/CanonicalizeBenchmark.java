@@ -0,0 +1,110 @@
+package org.eclipse.ee4j.tests;
+
+import java.net.URLDecoder;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Canonicalizing request paths with {@link UriPathCanonicalizer} (with its cache off, {@code cacheSize=0},
+ * and on) against doing the decode, the dot segment removal and the traversal check as separate passes.
+ * <p>
+ * The inputs are the corpus paths encoded with {@link EncodeUtils}, as absolute paths, plus the
+ * raw {@code %2e%2e} paths of the corpus which decode to dot segments. The cache (which only
+ * {@link #singlePass(Cursor)} has) is shared by the benchmark threads, as it would be by the threads of a server.
+ * </p>
+ * <pre>
+ *   java -jar maniacal-benchmarks/target/benchmarks.jar CanonicalizeBenchmark -t 4
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+public class CanonicalizeBenchmark
+{
+    @Param({"CORPUS", "RESERVED"})
+    public PathCorpus.Category category;
+
+    @Param({"0", "4096"})
+    public int cacheSize;
+
+    private String[] paths;
+    private int mask;
+    private UriPathCanonicalizer canonicalizer;
+
+    @State(Scope.Thread)
+    public static class Cursor
+    {
+        private int idx;
+    }
+
+    @Setup
+    public void setup()
+    {
+        String[] names = PathCorpus.cycle(category);
+        mask = names.length - 1;
+        paths = new String[names.length];
+        for (int i = 0; i < names.length; i++)
+        {
+            // every 4th path requested raw, so that the %2e%2e directories are dot segments
+            paths[i] = "/" + (i % 4 == 0 && names[i].contains("%2e%2e") ? names[i] : EncodeUtils.encodeJavaPathToUriPath(names[i]));
+        }
+        canonicalizer = new UriPathCanonicalizer(UriPathCanonicalizer.SeparatorPolicy.DECODE, cacheSize);
+    }
+
+    @Benchmark
+    public Object singlePass(Cursor cursor)
+    {
+        return canonicalizer.canonicalize(paths[cursor.idx++ & mask]);
+    }
+
+    @Benchmark
+    public String separatePasses(Cursor cursor)
+    {
+        String rawPath = paths[cursor.idx++ & mask];
+        String decoded;
+        try
+        {
+            // URLDecoder would turn a '+' into a space
+            decoded = URLDecoder.decode(rawPath.replace("+", "%2B"), UTF_8);
+        }
+        catch (IllegalArgumentException e)
+        {
+            return null;
+        }
+
+        Deque<String> segments = new ArrayDeque<>();
+        for (String segment : decoded.substring(1).split("/", -1))
+        {
+            if (segment.equals(".."))
+            {
+                if (segments.pollLast() == null)
+                    return null;
+            }
+            else if (!segment.equals("."))
+            {
+                segments.addLast(segment);
+            }
+        }
+        return "/" + String.join("/", segments);
+    }
+}
@@ -0,0 +1,103 @@
+package org.eclipse.ee4j.tests;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Cost of a single path encode, for each of the encoders found in the project
+ * and the JDK alternatives.
+ * <p>
+ * Every benchmark invocation encodes exactly one path, so the GC profiler's
+ * {@code gc.alloc.rate.norm} is the number of bytes allocated per call.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EncodePathBenchmark
+{
+    @Param({"CORPUS", "ASCII", "RESERVED", "MULTIBYTE"})
+    public PathCorpus.Category category;
+
+    private String[] paths;
+    private int mask;
+    private int idx;
+    private ByteBuffer byteBuffer;
+    private char[] chars;
+
+    @Setup
+    public void setup()
+    {
+        paths = PathCorpus.cycle(category);
+        mask = paths.length - 1;
+        int maxLength = 0;
+        for (String path : paths)
+        {
+            maxLength = Math.max(maxLength, EncodeUtils.encodedLength(path));
+        }
+        byteBuffer = ByteBuffer.allocateDirect(maxLength);
+        chars = new char[maxLength];
+    }
+
+    private String nextPath()
+    {
+        return paths[idx++ & mask];
+    }
+
+    @Benchmark
+    public String encodeUtilsEncodeJavaPathToUriPath()
+    {
+        return EncodeUtils.encodeJavaPathToUriPath(nextPath());
+    }
+
+    @Benchmark
+    public int encodeUtilsEncodeToByteBuffer()
+    {
+        byteBuffer.clear();
+        return EncodeUtils.encode(nextPath(), byteBuffer);
+    }
+
+    @Benchmark
+    public int encodeUtilsEncodeToCharArray()
+    {
+        return EncodeUtils.encode(nextPath(), chars, 0);
+    }
+
+    @Benchmark
+    public String pathUtilsEncodePath()
+    {
+        return PathUtils.encodePath(nextPath());
+    }
+
+    @Benchmark
+    public String urlEncoderEncode()
+    {
+        return URLEncoder.encode(nextPath(), UTF_8);
+    }
+
+    @Benchmark
+    public String uriRawPath() throws URISyntaxException
+    {
+        return new URI(null, null, nextPath(), null).toASCIIString();
+    }
+}
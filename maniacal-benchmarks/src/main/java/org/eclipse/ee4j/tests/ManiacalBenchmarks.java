@@ -0,0 +1,44 @@
+package org.eclipse.ee4j.tests;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of {@code target/benchmarks.jar}.
+ * <p>
+ * Accepts the usual JMH command line, always runs with the GC profiler, and
+ * writes the results as JSON (to {@code target/jmh-results.json} unless
+ * {@code -Djmh.results=<file>} says otherwise) so runs of different commits can be diffed.
+ * </p>
+ * <pre>
+ *   java -jar maniacal-benchmarks/target/benchmarks.jar EncodePathBenchmark
+ * </pre>
+ */
+public class ManiacalBenchmarks
+{
+    public static void main(String[] args) throws Exception
+    {
+        Path results = Paths.get(System.getProperty("jmh.results", "target/jmh-results.json"));
+        if (results.getParent() != null && !Files.exists(results.getParent()))
+        {
+            Files.createDirectories(results.getParent());
+        }
+
+        Options options = new OptionsBuilder()
+            .parent(new CommandLineOptions(args))
+            .addProfiler(GCProfiler.class)
+            .resultFormat(ResultFormatType.JSON)
+            .result(results.toString())
+            .build();
+
+        new Runner(options).run();
+    }
+}
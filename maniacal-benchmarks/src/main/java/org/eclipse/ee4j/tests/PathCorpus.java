@@ -0,0 +1,137 @@
+package org.eclipse.ee4j.tests;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The filenames found in the {@code META-INF/resources} of the resource jars
+ * ({@code metainf-resources-encoding} and {@code metainf-resources-slosh}),
+ * split into the input categories the benchmarks measure.
+ */
+public class PathCorpus
+{
+    public enum Category
+    {
+        /**
+         * Every filename as it exists in the resource jars.
+         */
+        CORPUS,
+        /**
+         * The corpus with every character outside of the RFC3986 unreserved set (and "/") replaced with "_".
+         */
+        ASCII,
+        /**
+         * Only the corpus filenames that contain at least one reserved character.
+         */
+        RESERVED,
+        /**
+         * The corpus with ASCII letters swapped for multi-byte UTF-8 characters.
+         */
+        MULTIBYTE
+    }
+
+    private static final String UNRESERVED = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-._~/";
+    private static final int[] MULTIBYTE_LETTERS = "äéîøüćšžαβжאあ日本😀".codePoints().toArray();
+
+    private static List<String> names;
+
+    public static synchronized List<String> names()
+    {
+        if (names == null)
+            names = Collections.unmodifiableList(loadNames());
+        return names;
+    }
+
+    public static List<String> names(Category category)
+    {
+        switch (category)
+        {
+            case CORPUS:
+                return names();
+            case ASCII:
+                return names().stream().map(PathCorpus::toAscii).collect(Collectors.toList());
+            case RESERVED:
+                return names().stream().filter(name -> !name.equals(toAscii(name))).collect(Collectors.toList());
+            case MULTIBYTE:
+                return names().stream().map(PathCorpus::toMultiByte).collect(Collectors.toList());
+            default:
+                throw new IllegalArgumentException("Unknown category: " + category);
+        }
+    }
+
+    /**
+     * @return the corpus filenames whose maniacal character is of the category, see {@link EncodingCategory#classify(String, int, boolean)}
+     */
+    public static List<String> names(EncodingCategory category)
+    {
+        return names().stream()
+            .filter(name -> EncodingCategory.classify(name, 0, false).getCategory() == category)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Copy the names of a category into an array with a power of 2 length,
+     * so that benchmarks can cycle through it with a simple mask.
+     */
+    public static String[] cycle(Category category)
+    {
+        return cycle(names(category));
+    }
+
+    public static String[] cycle(EncodingCategory category)
+    {
+        List<String> source = names(category);
+        if (source.isEmpty())
+            throw new IllegalArgumentException("No corpus filename of category " + category);
+        return cycle(source);
+    }
+
+    private static String[] cycle(List<String> source)
+    {
+        int len = Integer.highestOneBit(Math.max(1, source.size() - 1)) << 1;
+        String[] result = new String[len];
+        for (int i = 0; i < len; i++)
+        {
+            result[i] = source.get(i % source.size());
+        }
+        return result;
+    }
+
+    private static String toAscii(String name)
+    {
+        StringBuilder buf = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++)
+        {
+            char c = name.charAt(i);
+            buf.append(UNRESERVED.indexOf(c) >= 0 ? c : '_');
+        }
+        return buf.toString();
+    }
+
+    private static String toMultiByte(String name)
+    {
+        StringBuilder buf = new StringBuilder(name.length() * 2);
+        int letter = 0;
+        for (int i = 0; i < name.length(); i++)
+        {
+            char c = name.charAt(i);
+            if (Character.isLetter(c) && (i % 3 == 0))
+            {
+                buf.appendCodePoint(MULTIBYTE_LETTERS[letter++ % MULTIBYTE_LETTERS.length]);
+            }
+            else
+            {
+                buf.append(c);
+            }
+        }
+        return buf.toString();
+    }
+
+    private static List<String> loadNames()
+    {
+        return MetaInfResourceIndex.get().getEntries().stream()
+            .map(MetaInfResourceIndex.Entry::getRawPath)
+            .collect(Collectors.toList());
+    }
+}
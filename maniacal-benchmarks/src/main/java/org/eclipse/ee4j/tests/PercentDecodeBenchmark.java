@@ -0,0 +1,106 @@
+package org.eclipse.ee4j.tests;
+
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Decoding the encoded corpus with {@link PercentDecoder} against {@link URLDecoder}.
+ * <p>
+ * The inputs are the corpus paths encoded with {@link EncodeUtils}, so they are all well formed.
+ * Note that {@link URLDecoder} also turns {@code +} into a space, so its output differs for the
+ * paths with a {@code +}, but the amount of work is the same.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PercentDecodeBenchmark
+{
+    @Param({"CORPUS", "ASCII", "RESERVED", "MULTIBYTE"})
+    public PathCorpus.Category category;
+
+    private String[] encoded;
+    private byte[][] encodedBytes;
+    private int mask;
+    private int idx;
+    private PercentDecoder decoder;
+    private ByteBuffer in;
+    private ByteBuffer out;
+
+    @Setup
+    public void setup()
+    {
+        String[] paths = PathCorpus.cycle(category);
+        mask = paths.length - 1;
+        encoded = new String[paths.length];
+        encodedBytes = new byte[paths.length][];
+        int maxLength = 0;
+        for (int i = 0; i < paths.length; i++)
+        {
+            encoded[i] = EncodeUtils.encodeJavaPathToUriPath(paths[i]);
+            encodedBytes[i] = encoded[i].getBytes(US_ASCII);
+            maxLength = Math.max(maxLength, encodedBytes[i].length);
+        }
+        decoder = new PercentDecoder();
+        in = ByteBuffer.allocateDirect(maxLength);
+        out = ByteBuffer.allocateDirect(maxLength);
+    }
+
+    @Benchmark
+    public String urlDecoderDecode()
+    {
+        return URLDecoder.decode(encoded[idx++ & mask], UTF_8);
+    }
+
+    @Benchmark
+    public int percentDecoderDecode()
+    {
+        byte[] bytes = encodedBytes[idx++ & mask];
+        in.clear();
+        in.put(bytes).flip();
+        out.clear();
+        decoder.reset();
+        decoder.decode(in, out);
+        decoder.finish(out);
+        return out.position();
+    }
+
+    @Benchmark
+    public int percentDecoderDecodeInPlace()
+    {
+        byte[] bytes = encodedBytes[idx++ & mask];
+        in.clear();
+        in.put(bytes).flip();
+        decoder.reset();
+        decoder.decodeInPlace(in);
+        decoder.finish(in);
+        return in.remaining();
+    }
+
+    @Benchmark
+    public String percentDecoderDecodeToString()
+    {
+        percentDecoderDecode();
+        out.flip();
+        return UTF_8.decode(out).toString();
+    }
+}
@@ -0,0 +1,115 @@
+package org.eclipse.ee4j.tests;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * The word-at-a-time scan for runs of safe characters, against the table driven
+ * {@link LegacyEncoder}, on the corpus and on long synthetic paths that are mostly
+ * unreserved ASCII with an occasional reserved character.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SafeRunBenchmark
+{
+    private static final String UNRESERVED = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789-._/";
+    private static final String RESERVED = ";?#[]% ";
+
+    /**
+     * {@code CORPUS} or the length of the synthetic paths.
+     */
+    @Param({"CORPUS", "64", "256", "1024"})
+    public String input;
+
+    private String[] paths;
+    private byte[][] utf8Paths;
+    private int mask;
+    private int idx;
+    private ByteBuffer byteBuffer;
+
+    @Setup
+    public void setup()
+    {
+        if ("CORPUS".equals(input))
+            paths = PathCorpus.cycle(PathCorpus.Category.CORPUS);
+        else
+            paths = syntheticPaths(Integer.parseInt(input), 64);
+        mask = paths.length - 1;
+
+        utf8Paths = new byte[paths.length][];
+        int maxLength = 0;
+        for (int i = 0; i < paths.length; i++)
+        {
+            utf8Paths[i] = paths[i].getBytes(UTF_8);
+            maxLength = Math.max(maxLength, EncodeUtils.encodedLength(paths[i]));
+        }
+        byteBuffer = ByteBuffer.allocateDirect(maxLength);
+    }
+
+    /**
+     * Paths of {@code length} unreserved characters, with a reserved character roughly every 40 characters.
+     */
+    private static String[] syntheticPaths(int length, int count)
+    {
+        Random random = new Random(length);
+        String[] result = new String[count];
+        for (int i = 0; i < count; i++)
+        {
+            StringBuilder path = new StringBuilder(length);
+            while (path.length() < length)
+            {
+                if (random.nextInt(40) == 0)
+                    path.append(RESERVED.charAt(random.nextInt(RESERVED.length())));
+                else
+                    path.append(UNRESERVED.charAt(random.nextInt(UNRESERVED.length())));
+            }
+            result[i] = path.toString();
+        }
+        return result;
+    }
+
+    @Benchmark
+    public String legacyEncodeJavaPathToUriPath()
+    {
+        return LegacyEncoder.encodeJavaPathToUriPath(paths[idx++ & mask]);
+    }
+
+    @Benchmark
+    public String encodeUtilsEncodeJavaPathToUriPath()
+    {
+        return EncodeUtils.encodeJavaPathToUriPath(paths[idx++ & mask]);
+    }
+
+    @Benchmark
+    public int encodeUtilsEncodeUtf8ToByteBuffer()
+    {
+        byte[] utf8 = utf8Paths[idx++ & mask];
+        byteBuffer.clear();
+        return EncodeUtils.encode(utf8, 0, utf8.length, byteBuffer);
+    }
+
+    @Benchmark
+    public String pathUtilsEncodePath()
+    {
+        return PathUtils.encodePath(paths[idx++ & mask]);
+    }
+}
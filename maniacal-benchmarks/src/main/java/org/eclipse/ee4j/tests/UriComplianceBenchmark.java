@@ -0,0 +1,215 @@
+package org.eclipse.ee4j.tests;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http.BadMessageException;
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpParser;
+import org.eclipse.jetty.http.HttpURI;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http.UriCompliance;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Cost of Jetty's request URI handling for the corpus paths, without a network: parsing the
+ * request target with {@link HttpURI}, checking its violations against a {@link UriCompliance}
+ * and decoding its path, as a Jetty connector does before a request reaches the webapp.
+ * <p>
+ * {@link #httpUri()} starts from the request target as a {@code String}, {@link #requestLine()}
+ * from the bytes of a request, parsed with {@link HttpParser} first. A path rejected by the
+ * compliance mode (or by the parser) ends the operation with the reason, as it ends the request
+ * with a 400. The GC profiler that {@link ManiacalBenchmarks} adds reports the bytes allocated
+ * per path as {@code gc.alloc.rate.norm}.
+ * </p>
+ * <p>
+ * {@code compliance} is the name of a {@link UriCompliance} mode or a custom set of violations
+ * in the syntax of {@link UriCompliance#from(String)}, with {@code +} in place of the commas so
+ * that it can be given with {@code -p}: eg: {@code 0+AMBIGUOUS_PATH_SEPARATOR} only allows {@code %2F}.
+ * </p>
+ * <p>
+ * {@code category} is {@code ALL} for the whole corpus, or an {@link EncodingCategory} for the filenames
+ * whose maniacal character is of that category (the categories without any filename in the corpus are not
+ * listed). With every category, form and mode, a full run is long, select some with {@code -p}:
+ * </p>
+ * <pre>
+ *   java -jar maniacal-benchmarks/target/benchmarks.jar UriComplianceBenchmark -p form=ENCODED -p category=COLON,SEMI,PERCENT
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UriComplianceBenchmark
+{
+    /**
+     * How the corpus paths are written in the request target.
+     */
+    public enum Form
+    {
+        /**
+         * The filenames as they are, so some of them are not valid request targets.
+         */
+        RAW,
+        /**
+         * The filenames encoded with {@link EncodeUtils}.
+         */
+        ENCODED,
+        /**
+         * The encoded filenames with every {@code %} encoded again.
+         */
+        DOUBLE_ENCODED
+    }
+
+    @Param({"RAW", "ENCODED", "DOUBLE_ENCODED"})
+    public Form form;
+
+    @Param({"DEFAULT", "RFC3986", "LEGACY", "0", "0+AMBIGUOUS_PATH_SEPARATOR+AMBIGUOUS_PATH_ENCODING"})
+    public String compliance;
+
+    @Param({"ALL", "UNRESERVED", "DOT_SEGMENT", "COLON", "QUESTION_MARK", "HASH", "BRACKETS", "SLASH", "EXCLAMATION", "DOLLAR",
+        "AMPERSAND", "APOSTROPHE", "PARENS", "ASTERISK", "PLUS", "COMMA", "SEMI", "EQUALS", "PERCENT", "BACKSLASH"})
+    public String category;
+
+    private String[] targets;
+    private ByteBuffer[] requests;
+    private int mask;
+    private int idx;
+    private UriCompliance uriCompliance;
+    private HttpParser parser;
+    private String parsedTarget;
+
+    @Setup
+    public void setup()
+    {
+        String[] names = "ALL".equals(category)
+            ? PathCorpus.cycle(PathCorpus.Category.CORPUS)
+            : PathCorpus.cycle(EncodingCategory.valueOf(category));
+        mask = names.length - 1;
+        targets = new String[names.length];
+        requests = new ByteBuffer[names.length];
+        for (int i = 0; i < names.length; i++)
+        {
+            targets[i] = "/" + toForm(names[i]);
+            requests[i] = ByteBuffer.wrap(("GET " + targets[i] + " HTTP/1.1\r\nHost: localhost\r\n\r\n").getBytes(UTF_8));
+        }
+        uriCompliance = UriCompliance.from(compliance.replace('+', ','));
+        parser = new HttpParser(new TargetHandler());
+    }
+
+    @Benchmark
+    public String httpUri()
+    {
+        return check(targets[idx++ & mask]);
+    }
+
+    @Benchmark
+    public String requestLine()
+    {
+        ByteBuffer request = requests[idx++ & mask];
+        request.clear();
+        parser.reset();
+        parsedTarget = null;
+        // the parser stops at the end of the headers, there is no content
+        parser.parseNext(request);
+        if (parsedTarget == null)
+            return "Bad request line";
+        return check(parsedTarget);
+    }
+
+    private String check(String target)
+    {
+        HttpURI.Mutable uri;
+        try
+        {
+            uri = HttpURI.build(target);
+        }
+        catch (IllegalArgumentException e)
+        {
+            return "Bad URI";
+        }
+        String violation = UriCompliance.checkUriCompliance(uriCompliance, uri);
+        if (violation != null)
+            return violation;
+        String path = uri.getDecodedPath();
+        return path == null ? "Bad URI" : path;
+    }
+
+    private String toForm(String name)
+    {
+        switch (form)
+        {
+            case RAW:
+                return name;
+            case ENCODED:
+                return EncodeUtils.encodeJavaPathToUriPath(name);
+            case DOUBLE_ENCODED:
+                return EncodeUtils.encodeJavaPathToUriPath(name).replace("%", "%25");
+            default:
+                throw new IllegalArgumentException("Unknown form: " + form);
+        }
+    }
+
+    private class TargetHandler implements HttpParser.RequestHandler
+    {
+        @Override
+        public void startRequest(String method, String uri, HttpVersion version)
+        {
+            parsedTarget = uri;
+        }
+
+        @Override
+        public void parsedHeader(HttpField field)
+        {
+        }
+
+        @Override
+        public boolean headerComplete()
+        {
+            return false;
+        }
+
+        @Override
+        public boolean content(ByteBuffer content)
+        {
+            return false;
+        }
+
+        @Override
+        public boolean contentComplete()
+        {
+            return false;
+        }
+
+        @Override
+        public boolean messageComplete()
+        {
+            return true;
+        }
+
+        @Override
+        public void earlyEOF()
+        {
+        }
+
+        @Override
+        public void badMessage(BadMessageException failure)
+        {
+            parsedTarget = null;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package org.eclipse.ee4j.tests;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The same corpus and load against every container, one after the other in this JVM, eg:
+ * <pre>
+ *   mvn test -Dmaniacal.compare=true -Dmaniacal.load.concurrency=8 -Dmaniacal.load.duration=60
+ * </pre>
+ * The table is written to {@code target/container-comparison.txt}.
+ */
+@EnabledIfSystemProperty(named = TestSettings.COMPARE, matches = "true")
+public class ContainerComparisonTest
+{
+    @Test
+    public void testCompare() throws Exception
+    {
+        Path webappDirectory = ExplodedWarCache.explode(MavenArtifactResolver.get().resolveTestWarFile());
+        List<ContainerComparison.Result> results = new ContainerComparison(
+            List.of(JettyWebappContainer.class, TomcatWebappContainer.class, UndertowWebappContainer.class)).run(webappDirectory);
+
+        String table = ContainerComparison.toTable(results);
+        Files.writeString(Paths.get("target/container-comparison.txt"), table);
+
+        for (ContainerComparison.Result result : results)
+        {
+            assertNull(result.getFailure(), result.getName());
+            assertTrue(result.getLoad().getRequests() > 0, result.getName());
+        }
+    }
+}
@@ -0,0 +1,428 @@
+package org.eclipse.ee4j.tests;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+public class EncodeUtils
+{
+    // Simple hex array
+    private static final char[] HEXES = "0123456789ABCDEF".toCharArray();
+    // Bitset of the first 128 characters, set if they can be used in a URI path without encoding.
+    // Characters 0-63 are in the LO word, 64-127 in the HI word.
+    private static final long JAVA_PATH_TO_URI_PATH_SAFE_LO;
+    private static final long JAVA_PATH_TO_URI_PATH_SAFE_HI;
+
+    // Word-at-a-time (SWAR) constants, see unsafeCandidates(long)
+    private static final VarHandle LONG_LE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGH = 0x8080808080808080L;
+
+    static
+    {
+        // ABNF from https://datatracker.ietf.org/doc/html/rfc3986#appendix-A
+        String uriAlpha = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+        String uriDigit = "0123456789";
+        String uriUnreserved = uriAlpha + uriDigit + "-._~";
+        String uriPctEncoded = "%";
+        String uriSubDelims = "!$&'()*+,;=";
+        String uriPChar = uriUnreserved + uriPctEncoded + uriSubDelims + ":@";
+        String uriPathSegment = uriPChar;
+
+        // Altered ANBF to suit Java Path name to safe URI name encoding
+        String javaToUriPathSafe = uriUnreserved + uriSubDelims.replace(';', '/') + ":@";
+
+        long lo = 0;
+        long hi = 0;
+        for (int i = 0; i < javaToUriPathSafe.length(); i++)
+        {
+            char c = javaToUriPathSafe.charAt(i);
+            if (c < 64)
+                lo |= 1L << c;
+            else
+                hi |= 1L << (c - 64);
+        }
+        JAVA_PATH_TO_URI_PATH_SAFE_LO = lo;
+        JAVA_PATH_TO_URI_PATH_SAFE_HI = hi;
+    }
+
+    /**
+     * Encode a Java path name (eg: a jar entry name) to a URI path, where every
+     * character outside of the safe set is percent-encoded as UTF-8.
+     *
+     * @param rawpath the raw path
+     * @return the encoded path, or the {@code rawpath} instance itself if no encoding was needed
+     */
+    public static String encodeJavaPathToUriPath(String rawpath)
+    {
+        if (!needsEncoding(rawpath))
+            return rawpath;
+        char[] encoded = new char[encodedLength(rawpath)];
+        encode(rawpath, encoded, 0);
+        return new String(encoded);
+    }
+
+    /**
+     * @param rawpath the raw path
+     * @return true if at least one character of the path needs to be percent-encoded
+     */
+    public static boolean needsEncoding(CharSequence rawpath)
+    {
+        int len = rawpath.length();
+        return indexOfUnsafe(rawpath, 0, len) < len;
+    }
+
+    /**
+     * @param utf8 the raw path as UTF-8 bytes
+     * @param offset the index of the first byte of the path
+     * @param length the number of bytes in the path
+     * @return true if at least one byte of the path needs to be percent-encoded
+     */
+    public static boolean needsEncoding(byte[] utf8, int offset, int length)
+    {
+        return indexOfUnsafe(utf8, offset, offset + length) < offset + length;
+    }
+
+    /**
+     * @param rawpath the raw path
+     * @return the number of ASCII characters (or bytes) that the encoded form of the path takes
+     */
+    public static int encodedLength(CharSequence rawpath)
+    {
+        int len = rawpath.length();
+        int encodedLen = 0;
+        for (int i = 0; i < len; )
+        {
+            int cp = codePointAt(rawpath, i, len);
+            i += Character.charCount(cp);
+            if (isSafe(cp))
+                encodedLen++;
+            else
+                encodedLen += 3 * utf8Length(cp);
+        }
+        return encodedLen;
+    }
+
+    /**
+     * @param utf8 the raw path as UTF-8 bytes
+     * @param offset the index of the first byte of the path
+     * @param length the number of bytes in the path
+     * @return the number of bytes that the encoded form of the path takes
+     */
+    public static int encodedLength(byte[] utf8, int offset, int length)
+    {
+        int end = offset + length;
+        int encodedLen = 0;
+        for (int i = offset; i < end; )
+        {
+            int unsafe = indexOfUnsafe(utf8, i, end);
+            encodedLen += unsafe - i;
+            if (unsafe == end)
+                break;
+            encodedLen += 3;
+            i = unsafe + 1;
+        }
+        return encodedLen;
+    }
+
+    /**
+     * Encode the path directly into a buffer of ASCII bytes.
+     *
+     * @param rawpath the raw path
+     * @param dst the buffer to put the encoded path into, starting at its position
+     * @return the number of bytes written
+     * @throws java.nio.BufferOverflowException if the buffer has less than {@link #encodedLength(CharSequence)} bytes remaining
+     */
+    public static int encode(CharSequence rawpath, ByteBuffer dst)
+    {
+        int start = dst.position();
+        int len = rawpath.length();
+        for (int i = 0; i < len; )
+        {
+            int cp = codePointAt(rawpath, i, len);
+            i += Character.charCount(cp);
+            if (isSafe(cp))
+            {
+                dst.put((byte)cp);
+            }
+            else
+            {
+                int utf8 = utf8(cp);
+                for (int shift = (utf8Length(cp) - 1) * 8; shift >= 0; shift -= 8)
+                {
+                    int b = (utf8 >>> shift) & 0xFF;
+                    dst.put((byte)'%');
+                    dst.put((byte)HEXES[b >> 4]);
+                    dst.put((byte)HEXES[b & 0x0F]);
+                }
+            }
+        }
+        return dst.position() - start;
+    }
+
+    /**
+     * Encode a path that is already UTF-8 bytes directly into a buffer of ASCII bytes.
+     * Runs of safe bytes are found 8 bytes at a time and copied in bulk.
+     *
+     * @param utf8 the raw path as UTF-8 bytes
+     * @param offset the index of the first byte of the path
+     * @param length the number of bytes in the path
+     * @param dst the buffer to put the encoded path into, starting at its position
+     * @return the number of bytes written
+     * @throws java.nio.BufferOverflowException if the buffer has less than {@link #encodedLength(byte[], int, int)} bytes remaining
+     */
+    public static int encode(byte[] utf8, int offset, int length, ByteBuffer dst)
+    {
+        int start = dst.position();
+        int end = offset + length;
+        for (int i = offset; i < end; )
+        {
+            int unsafe = indexOfUnsafe(utf8, i, end);
+            if (unsafe > i)
+                dst.put(utf8, i, unsafe - i);
+            if (unsafe == end)
+                break;
+            int b = utf8[unsafe] & 0xFF;
+            dst.put((byte)'%');
+            dst.put((byte)HEXES[b >> 4]);
+            dst.put((byte)HEXES[b & 0x0F]);
+            i = unsafe + 1;
+        }
+        return dst.position() - start;
+    }
+
+    /**
+     * Encode the path directly into a character array.
+     *
+     * @param rawpath the raw path
+     * @param dst the array to put the encoded path into
+     * @param offset the index in {@code dst} to start at
+     * @return the index in {@code dst} after the last character written
+     * @throws ArrayIndexOutOfBoundsException if the array has less than {@link #encodedLength(CharSequence)} characters after {@code offset}
+     */
+    public static int encode(CharSequence rawpath, char[] dst, int offset)
+    {
+        int pos = offset;
+        int len = rawpath.length();
+        for (int i = 0; i < len; )
+        {
+            int unsafe = indexOfUnsafe(rawpath, i, len);
+            if (unsafe > i)
+            {
+                if (rawpath instanceof String)
+                {
+                    ((String)rawpath).getChars(i, unsafe, dst, pos);
+                    pos += unsafe - i;
+                }
+                else
+                {
+                    for (int j = i; j < unsafe; j++)
+                    {
+                        dst[pos++] = rawpath.charAt(j);
+                    }
+                }
+            }
+            if (unsafe == len)
+                break;
+
+            int cp = codePointAt(rawpath, unsafe, len);
+            i = unsafe + Character.charCount(cp);
+            int utf8 = utf8(cp);
+            for (int shift = (utf8Length(cp) - 1) * 8; shift >= 0; shift -= 8)
+            {
+                int b = (utf8 >>> shift) & 0xFF;
+                dst[pos++] = '%';
+                dst[pos++] = HEXES[b >> 4];
+                dst[pos++] = HEXES[b & 0x0F];
+            }
+        }
+        return pos;
+    }
+
+    /**
+     * Encode the path directly into an {@link Appendable}.
+     *
+     * @param rawpath the raw path
+     * @param dst where to append the encoded path
+     * @param <A> the type of appendable
+     * @return the {@code dst} appendable
+     * @throws IOException if the appendable fails
+     */
+    public static <A extends Appendable> A encode(CharSequence rawpath, A dst) throws IOException
+    {
+        int len = rawpath.length();
+        for (int i = 0; i < len; )
+        {
+            int unsafe = indexOfUnsafe(rawpath, i, len);
+            if (unsafe > i)
+                dst.append(rawpath, i, unsafe);
+            if (unsafe == len)
+                break;
+
+            int cp = codePointAt(rawpath, unsafe, len);
+            i = unsafe + Character.charCount(cp);
+            int utf8 = utf8(cp);
+            for (int shift = (utf8Length(cp) - 1) * 8; shift >= 0; shift -= 8)
+            {
+                int b = (utf8 >>> shift) & 0xFF;
+                dst.append('%');
+                dst.append(HEXES[b >> 4]);
+                dst.append(HEXES[b & 0x0F]);
+            }
+        }
+        return dst;
+    }
+
+    /**
+     * Encode the path directly into a {@link StringBuilder}.
+     *
+     * @param rawpath the raw path
+     * @param dst where to append the encoded path
+     * @return the {@code dst} builder
+     */
+    public static StringBuilder encode(CharSequence rawpath, StringBuilder dst)
+    {
+        try
+        {
+            encode(rawpath, (Appendable)dst);
+            return dst;
+        }
+        catch (IOException e)
+        {
+            // StringBuilder never throws
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean isSafe(int c)
+    {
+        // branch free pick of the LO or HI word, as safe and unsafe characters are interleaved
+        long hiWord = -(long)((c >>> 6) & 1);
+        long bits = (JAVA_PATH_TO_URI_PATH_SAFE_LO & ~hiWord) | (JAVA_PATH_TO_URI_PATH_SAFE_HI & hiWord);
+        // shifting a long only uses the lowest 6 bits of c
+        return c < 128 && ((bits >>> c) & 1) != 0;
+    }
+
+    private static int indexOfUnsafe(CharSequence rawpath, int from, int to)
+    {
+        for (int i = from; i < to; i++)
+        {
+            if (!isSafe(rawpath.charAt(i)))
+                return i;
+        }
+        return to;
+    }
+
+    /**
+     * Find the first byte that needs encoding, reading 8 bytes at a time while the bytes are safe.
+     */
+    private static int indexOfUnsafe(byte[] utf8, int from, int to)
+    {
+        int i = from;
+        while (i + Long.BYTES <= to)
+        {
+            long candidates = unsafeCandidates((long)LONG_LE.get(utf8, i));
+            if (candidates == 0)
+            {
+                i += Long.BYTES;
+                continue;
+            }
+            // little endian, so the lowest flagged byte is the first one in the array
+            int idx = i + (Long.numberOfTrailingZeros(candidates) >>> 3);
+            if (!isSafe(utf8[idx] & 0xFF))
+                return idx;
+            i = idx + 1;
+        }
+        for (; i < to; i++)
+        {
+            if (!isSafe(utf8[i] & 0xFF))
+                return i;
+        }
+        return to;
+    }
+
+    /**
+     * The high bit of each byte of the result is set if that byte of the word might need encoding.
+     * <p>
+     * The ranges {@code & ' ( ) * + , - . / 0-9 :}, {@code @ A-Z}, {@code a-z} and the bytes {@code _ ~}
+     * are cleared in a handful of word-wide operations. Bytes with the high bit set (UTF-8 multi-byte
+     * sequences) are always flagged. The few remaining safe characters ({@code ! $ =}) are flagged
+     * too, and are resolved by the caller with the bitset.
+     * </p>
+     */
+    private static long unsafeCandidates(long word)
+    {
+        // with the high bits cleared no byte can carry into its neighbour below
+        long w = word & ~HIGH;
+        long safe = inRange(w, '&', ':') |
+            inRange(w, '@', 'Z') |
+            inRange(w, 'a', 'z') |
+            equalTo(w, '_') |
+            equalTo(w, '~');
+        return (~safe & HIGH) | (word & HIGH);
+    }
+
+    private static long inRange(long w, int lo, int hi)
+    {
+        // high bit set if byte >= lo, and not set if byte > hi
+        return (w + ONES * (0x80 - lo)) & ~(w + ONES * (0x7F - hi)) & HIGH;
+    }
+
+    private static long equalTo(long w, int c)
+    {
+        long x = w ^ (ONES * c);
+        return ~((x + 0x7F7F7F7F7F7F7F7FL) | x) & HIGH;
+    }
+
+    /**
+     * The code point at index {@code i}, or {@code '?'} for an unpaired surrogate
+     * (the same replacement that {@code String.getBytes(UTF_8)} uses).
+     */
+    private static int codePointAt(CharSequence rawpath, int i, int len)
+    {
+        char c = rawpath.charAt(i);
+        if (!Character.isSurrogate(c))
+            return c;
+        if (Character.isHighSurrogate(c) && i + 1 < len)
+        {
+            char low = rawpath.charAt(i + 1);
+            if (Character.isLowSurrogate(low))
+                return Character.toCodePoint(c, low);
+        }
+        return '?';
+    }
+
+    private static int utf8Length(int cp)
+    {
+        if (cp < 0x80)
+            return 1;
+        if (cp < 0x800)
+            return 2;
+        if (cp < 0x10000)
+            return 3;
+        return 4;
+    }
+
+    /**
+     * The UTF-8 bytes of a code point, packed into an int with the last byte in the lowest 8 bits.
+     */
+    private static int utf8(int cp)
+    {
+        if (cp < 0x80)
+            return cp;
+        if (cp < 0x800)
+            return ((0xC0 | (cp >> 6)) << 8) |
+                (0x80 | (cp & 0x3F));
+        if (cp < 0x10000)
+            return ((0xE0 | (cp >> 12)) << 16) |
+                ((0x80 | ((cp >> 6) & 0x3F)) << 8) |
+                (0x80 | (cp & 0x3F));
+        return ((0xF0 | (cp >> 18)) << 24) |
+            ((0x80 | ((cp >> 12) & 0x3F)) << 16) |
+            ((0x80 | ((cp >> 6) & 0x3F)) << 8) |
+            (0x80 | (cp & 0x3F));
+    }
+}
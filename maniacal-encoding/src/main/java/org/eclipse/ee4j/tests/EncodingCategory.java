@@ -0,0 +1,317 @@
+package org.eclipse.ee4j.tests;
+
+/**
+ * The category of the maniacal character in a raw request path, named as in the expected
+ * contents of the resources (eg: {@code reserved-colon-start-encoded} is {@link #COLON}, {@link Form#ENCODED}).
+ * <p>
+ * {@link #classify(String, int, boolean)} scans the last segment of the path first, as the
+ * category of a resource is the one of its file name, then the segments before it. A raw
+ * {@code ?} ends the path, so a request with a query counts as {@link #QUESTION_MARK} when its
+ * last segment has nothing else. The classifications are preallocated, classifying does not allocate.
+ * </p>
+ */
+public enum EncodingCategory
+{
+    UNRESERVED("unreserved", ""),
+    DOT_SEGMENT("dot-segment", ""),
+    NON_ASCII("non-ascii", ""),
+    COLON("colon", ":"),
+    QUESTION_MARK("question-mark", "?"),
+    HASH("hash", "#"),
+    BRACKETS("brackets", "[]"),
+    AT("at", "@"),
+    SLASH("slash", "/"),
+    EXCLAMATION("exclamation", "!"),
+    DOLLAR("dollar", "$"),
+    AMPERSAND("ampersand", "&"),
+    APOSTROPHE("apostrophe", "'"),
+    PARENS("parens", "()"),
+    ASTERISK("asterisk", "*"),
+    PLUS("plus", "+"),
+    COMMA("comma", ","),
+    SEMI("semi", ";"),
+    EQUALS("equals", "="),
+    PERCENT("percent", "%"),
+    QUOTE("quote", "\""),
+    ANGLE_BRACKETS("angle-brackets", "<>"),
+    SPACE("space", " "),
+    BACKSLASH("backslash", "\\"),
+    CARET("caret", "^"),
+    BACKTICK("backtick", "`"),
+    BRACES("braces", "{}"),
+    PIPE("pipe", "|");
+
+    public enum Form
+    {
+        RAW("raw"),
+        ENCODED("encoded"),
+        DOUBLE_ENCODED("double-encoded");
+
+        private final String label;
+
+        Form(String label)
+        {
+            this.label = label;
+        }
+
+        public String getLabel()
+        {
+            return label;
+        }
+    }
+
+    /**
+     * A category and the form its character is in.
+     */
+    public static final class Classification
+    {
+        private final EncodingCategory category;
+        private final Form form;
+        private final int index;
+
+        private Classification(EncodingCategory category, Form form)
+        {
+            this.category = category;
+            this.form = form;
+            this.index = category.ordinal() * Form.values().length + form.ordinal();
+        }
+
+        public EncodingCategory getCategory()
+        {
+            return category;
+        }
+
+        public Form getForm()
+        {
+            return form;
+        }
+
+        /**
+         * @return a dense index of the classification, from 0 to {@link #count()} exclusive
+         */
+        public int getIndex()
+        {
+            return index;
+        }
+
+        @Override
+        public String toString()
+        {
+            return category.label + "-" + form.label;
+        }
+    }
+
+    private static final EncodingCategory[] ASCII = new EncodingCategory[128];
+    private static final Classification[] CLASSIFICATIONS = new Classification[values().length * Form.values().length];
+
+    static
+    {
+        for (EncodingCategory category : values())
+        {
+            for (char c : category.chars.toCharArray())
+            {
+                ASCII[c] = category;
+            }
+            for (Form form : Form.values())
+            {
+                Classification classification = new Classification(category, form);
+                CLASSIFICATIONS[classification.index] = classification;
+            }
+        }
+    }
+
+    private final String label;
+    private final String chars;
+
+    EncodingCategory(String label, String chars)
+    {
+        this.label = label;
+        this.chars = chars;
+    }
+
+    public String getLabel()
+    {
+        return label;
+    }
+
+    /**
+     * @return the number of classifications
+     */
+    public static int count()
+    {
+        return CLASSIFICATIONS.length;
+    }
+
+    public static Classification of(EncodingCategory category, Form form)
+    {
+        return CLASSIFICATIONS[category.ordinal() * Form.values().length + form.ordinal()];
+    }
+
+    /**
+     * @param rawPath the raw (not decoded) path of the request
+     * @param from the index of the path to start from, eg: after the context path
+     * @param hasQuery true if the request has a query
+     * @return the classification of the path
+     */
+    public static Classification classify(String rawPath, int from, boolean hasQuery)
+    {
+        int end = rawPath.length();
+        int start = rawPath.lastIndexOf('/', end - 1) + 1;
+        Classification nonAscii = null;
+        boolean last = true;
+        while (true)
+        {
+            if (start < from)
+                start = from;
+            Classification classification = classifySegment(rawPath, start, end);
+            if (classification != null)
+            {
+                if (classification.category != NON_ASCII)
+                    return classification;
+                if (nonAscii == null)
+                    nonAscii = classification;
+            }
+            if (last && hasQuery)
+                return of(QUESTION_MARK, Form.RAW);
+            last = false;
+            if (start <= from)
+                break;
+            end = start - 1;
+            start = rawPath.lastIndexOf('/', end - 1) + 1;
+        }
+        return nonAscii != null ? nonAscii : of(UNRESERVED, Form.RAW);
+    }
+
+    /**
+     * @return the classification of the first maniacal character of the segment, the first non-ASCII
+     * one if there are no others, or null if there are none
+     */
+    private static Classification classifySegment(String rawPath, int start, int end)
+    {
+        Form dots = dotSegment(rawPath, start, end);
+        if (dots != null)
+            return of(DOT_SEGMENT, dots);
+
+        Classification nonAscii = null;
+        for (int i = start; i < end; i++)
+        {
+            char c = rawPath.charAt(i);
+            if (c == '%')
+            {
+                int b = decode(rawPath, i, end);
+                if (b < 0)
+                    return of(PERCENT, Form.RAW);
+                if (b == '%')
+                {
+                    int b2 = hex(rawPath, i + 3, end);
+                    if (b2 < 0)
+                        return of(PERCENT, Form.ENCODED);
+                    if (b2 >= 0x80)
+                    {
+                        if (nonAscii == null)
+                            nonAscii = of(NON_ASCII, Form.DOUBLE_ENCODED);
+                    }
+                    else if (ASCII[b2] != null)
+                    {
+                        return of(ASCII[b2], Form.DOUBLE_ENCODED);
+                    }
+                    i += 4;
+                    continue;
+                }
+                if (b >= 0x80)
+                {
+                    if (nonAscii == null)
+                        nonAscii = of(NON_ASCII, Form.ENCODED);
+                }
+                else if (ASCII[b] != null)
+                {
+                    return of(ASCII[b], Form.ENCODED);
+                }
+                i += 2;
+                continue;
+            }
+            if (c >= 0x80)
+            {
+                if (nonAscii == null)
+                    nonAscii = of(NON_ASCII, Form.RAW);
+            }
+            else if (ASCII[c] != null)
+            {
+                return of(ASCII[c], Form.RAW);
+            }
+        }
+        return nonAscii;
+    }
+
+    /**
+     * @return the form of the dots if the segment is {@code .} or {@code ..} (raw, {@code %2e} or {@code %252e}), else null
+     */
+    private static Form dotSegment(String rawPath, int start, int end)
+    {
+        Form form = null;
+        int dots = 0;
+        int i = start;
+        while (i < end)
+        {
+            Form dot;
+            if (rawPath.charAt(i) == '.')
+            {
+                dot = Form.RAW;
+                i++;
+            }
+            else if (decode(rawPath, i, end) == '.')
+            {
+                dot = Form.ENCODED;
+                i += 3;
+            }
+            else if (decode(rawPath, i, end) == '%' && hex(rawPath, i + 3, end) == '.')
+            {
+                dot = Form.DOUBLE_ENCODED;
+                i += 5;
+            }
+            else
+            {
+                return null;
+            }
+            if (++dots > 2)
+                return null;
+            if (form == null || dot.ordinal() > form.ordinal())
+                form = dot;
+        }
+        return form;
+    }
+
+    /**
+     * @return the byte of the {@code %XX} at {@code i}, or -1 if there is none
+     */
+    private static int decode(String rawPath, int i, int end)
+    {
+        return i < end && rawPath.charAt(i) == '%' ? hex(rawPath, i + 1, end) : -1;
+    }
+
+    /**
+     * @return the byte of the two hex digits at {@code i}, or -1 if there are none
+     */
+    private static int hex(String rawPath, int i, int end)
+    {
+        if (i + 1 >= end)
+            return -1;
+        int hi = hexValue(rawPath.charAt(i));
+        int lo = hexValue(rawPath.charAt(i + 1));
+        return hi < 0 || lo < 0 ? -1 : (hi << 4) | lo;
+    }
+
+    /**
+     * @return the value of the ASCII hex digit, or -1 for any other char, eg: a digit of another script
+     */
+    private static int hexValue(char c)
+    {
+        if (c >= '0' && c <= '9')
+            return c - '0';
+        if (c >= 'A' && c <= 'F')
+            return c - 'A' + 10;
+        if (c >= 'a' && c <= 'f')
+            return c - 'a' + 10;
+        return -1;
+    }
+}
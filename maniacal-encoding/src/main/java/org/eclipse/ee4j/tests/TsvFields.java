@@ -0,0 +1,83 @@
+package org.eclipse.ee4j.tests;
+
+/**
+ * The escaping of the fields of the tab separated files of this project
+ * (the {@code redir-resource/manifest} of the webapp and the {@code META-INF/maniacal-index.tsv}
+ * of the resource jars): any tab, newline, carriage return or backslash in a field is
+ * written as {@code \t}, {@code \n}, {@code \r} or {@code \\}.
+ */
+public final class TsvFields
+{
+    private TsvFields()
+    {
+    }
+
+    /**
+     * @param buf the line being built
+     * @param value the field to append, escaped
+     * @return the {@code buf}
+     */
+    public static StringBuilder append(StringBuilder buf, String value)
+    {
+        for (int i = 0; i < value.length(); i++)
+        {
+            char c = value.charAt(i);
+            switch (c)
+            {
+                case '\\':
+                    buf.append("\\\\");
+                    break;
+                case '\t':
+                    buf.append("\\t");
+                    break;
+                case '\n':
+                    buf.append("\\n");
+                    break;
+                case '\r':
+                    buf.append("\\r");
+                    break;
+                default:
+                    buf.append(c);
+                    break;
+            }
+        }
+        return buf;
+    }
+
+    /**
+     * @param field an escaped field
+     * @return the field with its escapes replaced
+     */
+    public static String unescape(String field)
+    {
+        if (field.indexOf('\\') < 0)
+            return field;
+        StringBuilder buf = new StringBuilder(field.length());
+        for (int i = 0; i < field.length(); i++)
+        {
+            char c = field.charAt(i);
+            if (c != '\\' || i == field.length() - 1)
+            {
+                buf.append(c);
+                continue;
+            }
+            char escaped = field.charAt(++i);
+            switch (escaped)
+            {
+                case 't':
+                    buf.append('\t');
+                    break;
+                case 'n':
+                    buf.append('\n');
+                    break;
+                case 'r':
+                    buf.append('\r');
+                    break;
+                default:
+                    buf.append(escaped);
+                    break;
+            }
+        }
+        return buf.toString();
+    }
+}
@@ -1,31 +1,32 @@
 package org.eclipse.ee4j.tests;
 
-import java.io.BufferedWriter;
-import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.Socket;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.net.URL;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
-import java.nio.file.FileSystem;
-import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
 
-import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.Assumptions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -36,59 +37,64 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsString;
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+/**
+ * Every test case is independent (its own socket, or the thread safe {@link SharedHttpClient}),
+ * so they run concurrently when JUnit parallel execution is enabled, see {@link ManiacalParallelExecutionStrategy}.
+ * <p>
+ * With {@link TestSettings#INCREMENTAL}, the cases that passed in a previous run against the same
+ * container, configuration and webapp are skipped, and the results matrix only requests the cases
+ * without a result in the {@link ResultsStore}.
+ * </p>
+ */
+@Execution(ExecutionMode.CONCURRENT)
 public abstract class AbstractMetaInfResourcesTest extends AbstractWebappTest
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractMetaInfResourcesTest.class);
-
-    public static List<Arguments> metaInfResourceArguments() throws IOException
+    private static final String ENCODING_DIRECTORY = "encoding";
+    private static final int EXCERPT_LENGTH = 120;
+    // the results of the JDK client also depend on the JDK (its URI parser and its HTTP client)
+    private static final String JDK_CLIENT_VARIANT = "jdk-client-" + System.getProperty("java.version");
+    private static final ThreadLocal<HttpResponseParser> RAW_SOCKET_PARSER = ThreadLocal.withInitial(() ->
     {
-        List<Arguments> cases = new ArrayList<>();
-
-        String resourceName = "META-INF/resources/encoding/exists.txt";
-        URL url = AbstractMetaInfResourcesTest.class.getClassLoader().getResource(resourceName);
-        assertNotNull(url, "Unable to find " + resourceName);
+        HttpResponseParser parser = new HttpResponseParser();
+        // the start of the body for an excerpt, the expected contents are searched in all of it
+        parser.setRetainContent(EXCERPT_LENGTH);
+        return parser;
+    });
 
-        String deepClassRef = url.toExternalForm();
-        int deepRefIdx = deepClassRef.indexOf("!/");
-        Map<String, String> env = new HashMap<>();
-        URI uri = URI.create(deepClassRef.substring(0, deepRefIdx));
-        try (FileSystem zipfs = FileSystems.newFileSystem(uri, env))
-        {
-            Path base = zipfs.getPath("/META-INF/resources");
-            Files.walk(base, 10)
-                .filter(Files::isRegularFile)
-                .forEach(path ->
-                {
-                    try
-                    {
-                        String relativeRawPath = base.relativize(path).toString();
-                        String contents = Files.readString(path, UTF_8);
-                        cases.add(Arguments.of(relativeRawPath, contents));
-                    }
-                    catch (IOException e)
-                    {
-                        e.printStackTrace();
-                    }
-                });
-        }
+    /**
+     * @return the raw path and the contents of every resource of {@code metainf-resources-encoding},
+     * from the {@link MetaInfResourceIndex} (the contents are read as the stream is consumed)
+     */
+    public static Stream<Arguments> metaInfResourceArguments()
+    {
+        return MetaInfResourceIndex.get().getEntries(ENCODING_DIRECTORY).stream()
+            .map(entry -> Arguments.of(entry.getRawPath(), entry.getContents()));
+    }
 
-        return cases;
+    @AfterAll
+    public static void saveResultsStores() throws IOException
+    {
+        ResultsStore.saveAll();
     }
 
     @ParameterizedTest(name = "[{index}] {0}")
     @MethodSource("metaInfResourceArguments")
     public void testAccessMetaInfResourceUsingJdkHttpClient(String rawPath, String expectedContents) throws IOException, InterruptedException
     {
+        ResultsStore store = getResultsStore(getWebappURI());
+        assumeNotPassed(store, JDK_CLIENT_VARIANT, rawPath, expectedContents);
         try
         {
-            HttpClient httpClient = HttpClient.newHttpClient();
+            HttpClient httpClient = SharedHttpClient.get();
             URI uri = getWebappURI().resolve(new URI(rawPath));
             HttpRequest httpRequest = HttpRequest.newBuilder(uri).GET().build();
             HttpResponse<String> httpResponse = httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofString());
             assertEquals(200, httpResponse.statusCode(), "Response status code");
             assertThat(httpResponse.body(), containsString(expectedContents));
+            recordPassed(store, JDK_CLIENT_VARIANT, rawPath, expectedContents);
         }
         catch (URISyntaxException e)
         {
@@ -101,81 +107,258 @@ public abstract class AbstractMetaInfResourcesTest extends AbstractWebappTest
     public void testAccessMetaInfResourceUsingRawSocket(String rawPath, String expectedContents) throws IOException, InterruptedException
     {
         URI baseURI = getWebappURI();
+        ResultsStore store = getResultsStore(baseURI);
+        assumeNotPassed(store, "raw-socket", rawPath, expectedContents);
 
-        try (Socket socket = new Socket(baseURI.getHost(), baseURI.getPort());
-             OutputStream out = socket.getOutputStream();
-             InputStream in = socket.getInputStream())
+        HttpResponseParser response = requestUsingRawSocket(baseURI, rawPath, expectedContents);
+        assertThat("Status Code Response", response.getStatusLine(), containsString("HTTP/1.1 200"));
+        assertTrue(response.containsExpectedContents(),
+            () -> "Body Content: expected <" + expectedContents + "> in <" + excerpt(response.getContentAsString()) + ">");
+        recordPassed(store, "raw-socket", rawPath, expectedContents);
+    }
+
+    @Test
+    public void testGenerateResultsCSV() throws IOException
+    {
+        runResultsMatrix(getWebappURI(), "results-encoding");
+    }
+
+    /**
+     * The same matrix as {@link #testGenerateResultsCSV()}, served by the {@code CachedResourceServlet}
+     * of the webapp instead of the DefaultServlet of the container.
+     */
+    @Test
+    public void testGenerateCachedResults() throws IOException
+    {
+        runResultsMatrix(getWebappURI().resolve("cached/"), "results-encoding-cached");
+    }
+
+    /**
+     * Write the results matrix to {@code target/<name>.<format>}, taking the cases run before from the
+     * {@link ResultsStore} with {@link TestSettings#INCREMENTAL}, and comparing the rows to the baseline
+     * {@code <name>-<container>.bin} of {@link TestSettings#RESULTS_BASELINE} into {@code target/<name>.diff}.
+     */
+    private void runResultsMatrix(URI baseURI, String name) throws IOException
+    {
+        ResultsFormat format = TestSettings.getResultsFormat();
+        Path outputPath = Paths.get("target/" + name + "." + format.getExtension());
+        Files.createDirectories(outputPath.getParent());
+
+        ResultsStore store = getResultsStore(baseURI);
+        Path baseline = TestSettings.getResultsBaseline();
+        List<MetaInfResourceIndex.Entry> entries = MetaInfResourceIndex.get().getEntries(ENCODING_DIRECTORY);
+        ResultsWriter results = format.newWriter(Files.newOutputStream(outputPath));
+        ResultsDiff diff = null;
+        if (baseline != null)
         {
-            StringBuilder req = new StringBuilder();
-            req.append("GET ").append(baseURI.getRawPath()).append(rawPath).append(" HTTP/1.1\r\n");
-            req.append("Host: ").append(baseURI.getRawAuthority()).append("\r\n");
-            req.append("Connection: close\r\n");
-            req.append("\r\n");
+            diff = new ResultsDiff(results, baseline.resolve(name + "-" + getContainer().getName() + ".bin"), outputPath.resolveSibling(name + ".diff"));
+            results = diff;
+        }
+        try (ResultsWriter writer = results)
+        {
+            new ResultsMatrix(baseURI, this::toRequestResults).run(entries.iterator(), writer, store);
+        }
+        if (store != null)
+        {
+            store.save();
+            LOGGER.info("{}: {}", name, store);
+        }
+        if (diff != null)
+            LOGGER.info("{}: {}", name, diff);
+    }
 
-            byte[] bufRequest = req.toString().getBytes(UTF_8);
+    /**
+     * @return the store of the results against the container from the base URI, or null when not {@link TestSettings#INCREMENTAL}
+     */
+    private ResultsStore getResultsStore(URI baseURI) throws IOException
+    {
+        return TestSettings.isIncremental() ? ResultsStore.get(getContainer(), baseURI) : null;
+    }
 
-            if (LOGGER.isDebugEnabled())
-                LOGGER.debug("--Request--\n" + req);
-            out.write(bufRequest);
-            out.flush();
+    private static void assumeNotPassed(ResultsStore store, String variant, String rawPath, String expectedContents)
+    {
+        if (store == null)
+            return;
+        byte[] contents = expectedContents.getBytes(UTF_8);
+        Assumptions.assumeFalse("OK".equals(store.get(variant, rawPath, crc(contents), contents.length)), "Passed in a previous run");
+    }
 
-            ByteArrayOutputStream outBuf = new ByteArrayOutputStream();
-            IOUtils.copy(in, outBuf);
-            String response = outBuf.toString(UTF_8);
-            if (LOGGER.isDebugEnabled())
-                LOGGER.debug("--Response--\n" + response);
+    private static void recordPassed(ResultsStore store, String variant, String rawPath, String expectedContents)
+    {
+        if (store == null)
+            return;
+        byte[] contents = expectedContents.getBytes(UTF_8);
+        store.put(variant, rawPath, crc(contents), contents.length, "OK");
+    }
 
-            List<String> responseLines = response.lines()
-                .map(String::trim)
-                .collect(Collectors.toList());
+    private static long crc(byte[] contents)
+    {
+        CRC32 crc = new CRC32();
+        crc.update(contents);
+        return crc.getValue();
+    }
 
-            // Find status code
-            String responseStatusLine = responseLines.get(0);
-            assertThat("Status Code Response", responseStatusLine, containsString("HTTP/1.1 200"));
+    @Test
+    public void testCachedResourceNotModified() throws IOException, InterruptedException
+    {
+        HttpClient httpClient = SharedHttpClient.get();
+        URI uri = getWebappURI().resolve("cached/" + ENCODING_DIRECTORY + "/exists.txt");
+        HttpResponse<String> first = httpClient.send(HttpRequest.newBuilder(uri).GET().build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, first.statusCode(), "First response status code");
+        assertThat("First response body", first.body(), containsString("Base exists"));
+        String etag = first.headers().firstValue("ETag").orElseThrow(() -> new IllegalStateException("No ETag response header found"));
 
-            // Find body content (always last line)
-            String bodyContent = responseLines.get(responseLines.size() - 1);
-            assertThat("Body Content", bodyContent, containsString(expectedContents));
-        }
+        HttpResponse<String> cached = httpClient.send(HttpRequest.newBuilder(uri).GET().build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, cached.statusCode(), "Cached response status code");
+        assertEquals("HIT", cached.headers().firstValue("X-Cache").orElse(null), "Cached response X-Cache");
+        assertEquals(first.body(), cached.body(), "Cached response body");
+
+        HttpResponse<String> notModified = httpClient.send(HttpRequest.newBuilder(uri).header("If-None-Match", etag).GET().build(),
+            HttpResponse.BodyHandlers.ofString());
+        assertEquals(304, notModified.statusCode(), "Conditional response status code");
+
+        HttpResponse<String> otherTag = httpClient.send(HttpRequest.newBuilder(uri).header("If-None-Match", "\"stale\", x" + etag).GET().build(),
+            HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, otherTag.statusCode(), "Conditional response status code, other ETag");
+        HttpResponse<String> listedTag = httpClient.send(HttpRequest.newBuilder(uri).header("If-None-Match", "\"stale\", W/" + etag).GET().build(),
+            HttpResponse.BodyHandlers.ofString());
+        assertEquals(304, listedTag.statusCode(), "Conditional response status code, listed ETag");
     }
 
+    /**
+     * Requests are counted in {@code /metrics} by the category of their last maniacal character,
+     * looked for from the file name back.
+     */
     @Test
-    public void testGenerateResultsCSV() throws IOException
+    public void testMetricsByEncodingCategory() throws IOException, InterruptedException
     {
-        Path outputPath = Paths.get("target/results-encoding.csv");
-        if (!Files.exists(outputPath.getParent()))
+        HttpClient httpClient = SharedHttpClient.get();
+        for (String path : new String[]{"semi;colon/%3Acolon.txt", "%252e%252e/exists.txt"})
         {
-            Files.createDirectories(outputPath.getParent());
+            URI uri = getWebappURI().resolve(ENCODING_DIRECTORY + "/" + path);
+            httpClient.send(HttpRequest.newBuilder(uri).GET().build(), HttpResponse.BodyHandlers.discarding());
         }
 
-        try (BufferedWriter results = Files.newBufferedWriter(outputPath))
+        HttpResponse<String> metrics = httpClient.send(HttpRequest.newBuilder(getWebappURI().resolve("metrics")).GET().build(),
+            HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, metrics.statusCode(), "Metrics response status code");
+        // containers differ in how they write the parameters, eg: Tomcat writes text/plain;version=0.0.4;charset=utf-8
+        Map<String, String> mediaType = parseMediaType(metrics.headers().firstValue("Content-Type").orElse(""));
+        assertEquals("text/plain", mediaType.get(""), "Metrics media type");
+        assertEquals("0.0.4", mediaType.get("version"), "Metrics format version");
+        assertThat(metrics.body(), containsString("maniacal_requests_total{category=\"colon\",form=\"encoded\",status=\""));
+        assertThat(metrics.body(), containsString("maniacal_request_duration_seconds_count{category=\"colon\",form=\"encoded\"}"));
+        assertThat(metrics.body(), containsString("maniacal_requests_total{category=\"dot-segment\",form=\"double-encoded\",status=\""));
+        assertThat(metrics.body(), containsString("maniacal_request_duration_seconds_bucket{category=\"dot-segment\",form=\"double-encoded\",le=\"+Inf\"}"));
+    }
+
+    /**
+     * @return the parameters of a media type by their (lower case) name, and the type itself (lower case) by the empty name
+     */
+    private static Map<String, String> parseMediaType(String contentType)
+    {
+        Map<String, String> mediaType = new HashMap<>();
+        String[] parts = contentType.split(";");
+        mediaType.put("", parts[0].trim().toLowerCase(Locale.ENGLISH));
+        for (int i = 1; i < parts.length; i++)
         {
-            List<Arguments> accessCases = AbstractMetaInfResourcesTest.metaInfResourceArguments();
+            int equals = parts[i].indexOf('=');
+            if (equals < 0)
+                continue;
+            String value = parts[i].substring(equals + 1).trim();
+            if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\""))
+                value = value.substring(1, value.length() - 1);
+            mediaType.put(parts[i].substring(0, equals).trim().toLowerCase(Locale.ENGLISH), value);
+        }
+        return mediaType;
+    }
 
-            results.write(String.format("\"%s\", \"%s\", \"%s\", \"%s\", \"%s\"%n",
-                "META-INF/resources path (as it exists in JAR)",
-                "Raw Path Requested",
-                "Raw URI Result",
-                "Encoded Path Requested",
-                "Encoded URI Result"));
+    /**
+     * The same summary as {@link #getRequestResults(String, String)}, of a response
+     * from the {@link PipelinedHttpEngine}.
+     */
+    protected String toRequestResults(RawResponse response, String expectedContents)
+    {
+        Throwable failure = response.getFailure();
+        if (failure != null)
+            return "Exception: " + failure.getClass().getName() + ": " + failure.getMessage();
 
-            for (Arguments args : accessCases)
-            {
-                String rawPath = (String)args.get()[0];
-                String expectedContents = (String)args.get()[1];
-                String rawRequestResults = getRequestResults(rawPath, expectedContents);
-                String encodedPath = EncodeUtils.encodeJavaPathToUriPath(rawPath);
-                String encodedRequestResults = getRequestResults(encodedPath, expectedContents);
-                results.write(String.format("\"%s\", \"%s\", \"%s\", \"%s\", \"%s\"%n",
-                    rawPath, rawPath, rawRequestResults, encodedPath, encodedRequestResults));
-            }
+        String responseStatusLine = response.getStatusLine().trim();
+        if (response.getStatus() != 200)
+        {
+            if (responseStatusLine.startsWith("HTTP/1.1 "))
+                return responseStatusLine.substring("HTTP/1.1 ".length());
+            else if (responseStatusLine.startsWith("HTTP/2 "))
+                return responseStatusLine.substring("HTTP/2 ".length());
+            else
+                return responseStatusLine;
         }
+
+        if (!HttpResponseParser.ContentMatcher.contains(response.getBody(), expectedContents.getBytes(UTF_8)))
+        {
+            return "Wrong Resource: Expected <" + expectedContents + "> got <" + excerpt(response.getBodyAsString()) + ">";
+        }
+        return "OK";
+    }
+
+    /**
+     * Every raw and encoded path of the corpus, on {@link TestSettings#SELECTOR_CONNECTIONS} connections at once.
+     * <pre>
+     *   mvn test -Dtest=JettyMetaInfResourcesTest#testSelectorStress -Dmaniacal.selectorConnections=2000
+     * </pre>
+     */
+    @Test
+    @EnabledIfSystemProperty(named = TestSettings.SELECTOR_CONNECTIONS, matches = "[0-9]+")
+    public void testSelectorStress() throws IOException
+    {
+        List<String> pathsToRequest = new ArrayList<>();
+        for (MetaInfResourceIndex.Entry entry : MetaInfResourceIndex.get().getEntries(ENCODING_DIRECTORY))
+        {
+            pathsToRequest.add(entry.getRawPath());
+            pathsToRequest.add(entry.getEncodedPath());
+        }
+
+        long totalRequests = TestSettings.getSelectorRequests();
+        SelectorRequestDriver driver = new SelectorRequestDriver(getWebappURI(), pathsToRequest);
+        SelectorRequestDriver.Report report = driver.run(TestSettings.getSelectorConnections(), totalRequests);
+        LOGGER.info("selector stress = {}", report);
+        assertEquals(totalRequests, report.getRequests(), "Completed requests");
     }
 
     protected String getRequestResults(String pathToRequest, String expectedContents)
     {
-        URI baseURI = getWebappURI();
+        try
+        {
+            HttpResponseParser response = requestUsingRawSocket(getWebappURI(), pathToRequest, expectedContents);
+            String responseStatusLine = response.getStatusLine().trim();
+            if (response.getStatus() != 200)
+            {
+                if (responseStatusLine.startsWith("HTTP/1.1 "))
+                    return responseStatusLine.substring("HTTP/1.1 ".length());
+                else
+                    return responseStatusLine;
+            }
+
+            if (!response.containsExpectedContents())
+            {
+                return "Wrong Resource: Expected <" + expectedContents + "> got <" + excerpt(response.getContentAsString()) + ">";
+            }
+            return "OK";
+        }
+        catch (Throwable t)
+        {
+            return "Exception: " + t.getClass().getName() + ": " + t.getMessage();
+        }
+    }
 
+    /**
+     * Request a path on a new connection, and parse the response as it arrives with the parser of the thread,
+     * looking for the expected contents in the whole body.
+     *
+     * @return the parser, with the complete response, until the next request of the thread
+     */
+    private static HttpResponseParser requestUsingRawSocket(URI baseURI, String pathToRequest, String expectedContents) throws IOException
+    {
         try (Socket socket = new Socket(baseURI.getHost(), baseURI.getPort());
              OutputStream out = socket.getOutputStream();
              InputStream in = socket.getInputStream())
@@ -193,37 +376,50 @@ public abstract class AbstractMetaInfResourcesTest extends AbstractWebappTest
             out.write(bufRequest);
             out.flush();
 
-            ByteArrayOutputStream outBuf = new ByteArrayOutputStream();
-            IOUtils.copy(in, outBuf);
-            String response = outBuf.toString(UTF_8);
+            HttpResponseParser parser = RAW_SOCKET_PARSER.get();
+            parser.recycle();
+            parser.setExpectedContents(expectedContents.getBytes(UTF_8));
+            if (!parser.read(in))
+                throw new EOFException("Connection closed without a response");
             if (LOGGER.isDebugEnabled())
-                LOGGER.debug("--Response--\n" + response);
-
-            List<String> responseLines = response.lines()
-                .map(String::trim)
-                .collect(Collectors.toList());
-
-            // Find status code
-            String responseStatusLine = responseLines.get(0);
-            if (!responseStatusLine.startsWith("HTTP/1.1 200"))
-            {
-                if (responseStatusLine.startsWith("HTTP/1.1 "))
-                    return responseStatusLine.substring("HTTP/1.1 ".length());
-                else
-                    return responseStatusLine;
-            }
+                LOGGER.debug("--Response--\n" + parser.getStatusLine() + "\n" + parser.getContentAsString());
+            return parser;
+        }
+    }
 
-            // Find body content (always last line)
-            String bodyContent = responseLines.get(responseLines.size() - 1);
-            if (!bodyContent.contains(expectedContents))
+    /**
+     * The body as one line of a results matrix (or a store), which can be neither long nor quoted:
+     * trimmed, its first {@value #EXCERPT_LENGTH} chars, with CR, LF and tab escaped as in Java,
+     * and {@code "} as its Java unicode escape (the CSV values are quoted but not escaped).
+     */
+    static String excerpt(String body)
+    {
+        String trimmed = body.trim();
+        StringBuilder excerpt = new StringBuilder();
+        int length = Math.min(trimmed.length(), EXCERPT_LENGTH);
+        for (int i = 0; i < length; i++)
+        {
+            char c = trimmed.charAt(i);
+            switch (c)
             {
-                return "Wrong Resource: Expected <" + expectedContents + "> got <" + bodyContent + ">";
+                case '\r':
+                    excerpt.append("\\r");
+                    break;
+                case '\n':
+                    excerpt.append("\\n");
+                    break;
+                case '\t':
+                    excerpt.append("\\t");
+                    break;
+                case '"':
+                    excerpt.append("\\u0022");
+                    break;
+                default:
+                    excerpt.append(c);
             }
-            return "OK";
-        }
-        catch (Throwable t)
-        {
-            return "Exception: " + t.getClass().getName() + ": " + t.getMessage();
         }
+        if (trimmed.length() > length)
+            excerpt.append("...");
+        return excerpt.toString();
     }
 }
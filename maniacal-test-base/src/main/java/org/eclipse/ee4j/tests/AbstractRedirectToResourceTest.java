@@ -5,37 +5,200 @@ import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.function.Executable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsString;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public abstract class AbstractRedirectToResourceTest extends AbstractWebappTest
 {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AbstractRedirectToResourceTest.class);
+    private static final int HTTP2_ROUNDS = 5;
+
+    /**
+     * Every numbered resource of {@code RedirectToDefaultResourceServlet}: by default fetched directly
+     * from the location listed in {@code redir-resource/manifest}, or with
+     * {@code -Dmaniacal.redirectMode=redirect} by following the redirect of each index.
+     */
     @TestFactory
     public Stream<DynamicTest> dynamicTestsFromIntStream() throws IOException, InterruptedException
     {
-        HttpClient httpClient = HttpClient.newHttpClient();
-        HttpRequest httpRequest = HttpRequest.newBuilder(getWebappURI().resolve("redir-resource/"))
+        HttpClient httpClient = SharedHttpClient.get();
+        List<Executable> cases;
+        if (TestSettings.isRedirectMode())
+        {
+            HttpRequest httpRequest = HttpRequest.newBuilder(getWebappURI().resolve("redir-resource/"))
+                .GET()
+                .build();
+            HttpResponse<String> httpResponse = httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, httpResponse.statusCode(), "Response status code");
+            int indexCount = Integer.parseInt(httpResponse.body());
+            cases = IntStream.range(0, indexCount)
+                .mapToObj(n -> (Executable)() -> testRedirectToResource(n))
+                .collect(Collectors.toList());
+        }
+        else
+        {
+            RedirectManifest manifest = RedirectManifest.fetch(httpClient, getWebappURI().resolve("redir-resource/manifest"));
+            cases = manifest.getEntries().stream()
+                .map(entry -> (Executable)() -> testManifestResource(entry))
+                .collect(Collectors.toList());
+        }
+
+        int parallelism = TestSettings.getParallelism();
+        if (parallelism <= 1)
+        {
+            return IntStream.range(0, cases.size())
+                .mapToObj(n -> DynamicTest.dynamicTest("RedirectToResource[" + n + "]", cases.get(n)));
+        }
+
+        // Start every case now, at most parallelism at a time,
+        // and let each dynamic test report the outcome of its own index.
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, SharedHttpClient.newDaemonThreadFactory("maniacal-redirect"));
+        List<CompletableFuture<Void>> results = cases.stream()
+            .map(test -> CompletableFuture.runAsync(() -> run(test), executor))
+            .collect(Collectors.toList());
+        CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).whenComplete((r, t) -> executor.shutdown());
+
+        return IntStream.range(0, cases.size())
+            .mapToObj(n -> DynamicTest.dynamicTest("RedirectToResource[" + n + "]",
+                () -> awaitResult(results.get(n))));
+    }
+
+    @Test
+    public void testManifestNotModified() throws IOException, InterruptedException
+    {
+        URI manifestUri = getWebappURI().resolve("redir-resource/manifest");
+        RedirectManifest manifest = RedirectManifest.fetch(SharedHttpClient.get(), manifestUri);
+        assertNotNull(manifest.getETag(), "Manifest ETag");
+
+        HttpRequest httpRequest = HttpRequest.newBuilder(manifestUri)
+            .header("If-None-Match", manifest.getETag())
+            .GET()
+            .build();
+        HttpResponse<String> httpResponse = SharedHttpClient.get().send(httpRequest, HttpResponse.BodyHandlers.ofString());
+        assertEquals(304, httpResponse.statusCode(), "Manifest response status code");
+        assertSame(manifest, RedirectManifest.fetch(SharedHttpClient.get(), manifestUri), "Cached manifest");
+
+        // a list of entity-tags, weak or not, matches; a tag that only contains the current one does not
+        assertEquals(304, manifestStatus(manifestUri, "\"stale\", W/" + manifest.getETag()), "Listed ETag");
+        assertEquals(200, manifestStatus(manifestUri, "\"stale\", x" + manifest.getETag()), "Malformed ETag");
+        assertEquals(200, manifestStatus(manifestUri, "W/\"stale\", \"" + manifest.getETag().replace("\"", "") + "-1\""), "Other ETag");
+    }
+
+    private static int manifestStatus(URI manifestUri, String ifNoneMatch) throws IOException, InterruptedException
+    {
+        HttpRequest httpRequest = HttpRequest.newBuilder(manifestUri)
+            .header("If-None-Match", ifNoneMatch)
             .GET()
             .build();
-        HttpResponse<String> httpResponse = httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofString());
-        assertEquals(200, httpResponse.statusCode(), "Response status code");
-        int indexCount = Integer.parseInt(httpResponse.body());
+        return SharedHttpClient.get().send(httpRequest, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
 
-        return IntStream.iterate(0, n -> n + 1).limit(indexCount)
-            .mapToObj(n -> DynamicTest.dynamicTest("RedirectToResource[" + n + "]",
-                () -> testRedirectToResource(n)));
+    /**
+     * The locations of the manifest and the raw and encoded paths of the META-INF resources, replayed
+     * by {@link TestSettings#LOAD_CONCURRENCY} workers, see {@link LoadGenerator}.
+     * <pre>
+     *   mvn test -Dtest=JettyRedirectToResourceTest#testLoad -Dmaniacal.load.concurrency=8 -Dmaniacal.load.rate=2000
+     * </pre>
+     */
+    @Test
+    @EnabledIfSystemProperty(named = TestSettings.LOAD_CONCURRENCY, matches = "[0-9]+")
+    public void testLoad() throws IOException, InterruptedException
+    {
+        URI webappURI = getWebappURI();
+        List<String> requestTargets = WebappCorpus.requestTargets(WebappCorpus.get(webappURI));
+
+        LoadGenerator.Report report = new LoadGenerator(webappURI, requestTargets).run(TestSettings.getLoadConcurrency(), TestSettings.getLoadRate(),
+            TestSettings.getLoadWarmupMillis(), TestSettings.getLoadDurationMillis(), TestSettings.getLoadRequests());
+        LOGGER.info("load = {}", report);
+        assertTrue(report.getRequests() > 0, "Recorded requests");
+    }
+
+    /**
+     * The same corpus as {@link #testLoad()}, multiplexed on one HTTP/2 cleartext connection and
+     * compared to HTTP/1.1, see {@link Http2Report}. It needs a container serving h2c.
+     * <pre>
+     *   mvn test -Dmaniacal.h2c=true
+     * </pre>
+     */
+    @Test
+    @EnabledIfSystemProperty(named = TestSettings.H2C, matches = "true")
+    public void testHttp2Corpus() throws IOException, InterruptedException
+    {
+        URI webappURI = getWebappURI();
+        List<String> requestTargets = WebappCorpus.requestTargets(WebappCorpus.get(webappURI));
+
+        Http2Report report = Http2Report.run(webappURI, requestTargets, HTTP2_ROUNDS);
+        LOGGER.info("h2c = {}", report);
+        Path outputPath = Paths.get("target/http2-report.txt");
+        Files.createDirectories(outputPath.getParent());
+        Files.writeString(outputPath, report.toString());
+        assertTrue(report.getHttp2Failures() < requestTargets.size(), "Responses over h2c");
+    }
+
+    private static void run(Executable test)
+    {
+        try
+        {
+            test.execute();
+        }
+        catch (Throwable t)
+        {
+            throw new CompletionException(t);
+        }
+    }
+
+    private static void awaitResult(CompletableFuture<Void> result) throws Throwable
+    {
+        try
+        {
+            result.join();
+        }
+        catch (CompletionException e)
+        {
+            // report the original assertion failure (or exception) of the index
+            throw e.getCause();
+        }
+    }
+
+    public void testManifestResource(RedirectManifest.Entry entry) throws IOException, InterruptedException
+    {
+        URI resourceUri = getWebappURI().resolve(entry.getLocation());
+        String identifier = String.format("GET Request [%d] - RawPath [%s] - Location [%s] - URI [%s]", entry.getIdx(), entry.getRawPath(), entry.getLocation(), resourceUri.toASCIIString());
+        HttpRequest httpRequest = HttpRequest.newBuilder(resourceUri)
+            .GET()
+            .build();
+        HttpResponse<String> httpResponse = SharedHttpClient.get().send(httpRequest, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, httpResponse.statusCode(), "Resource Response status code - " + identifier);
+        assertThat("Body Contents of : " + identifier, httpResponse.body(), containsString(entry.getContents()));
     }
 
     public void testRedirectToResource(int idx) throws IOException, InterruptedException
     {
-        HttpClient httpClient = HttpClient.newHttpClient();
+        HttpClient httpClient = SharedHttpClient.get();
         HttpRequest httpRequest = HttpRequest.newBuilder(getWebappURI().resolve("redir-resource/" + idx))
             .GET()
             .build();
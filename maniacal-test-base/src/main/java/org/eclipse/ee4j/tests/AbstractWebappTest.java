@@ -5,4 +5,9 @@ import java.net.URI;
 public abstract class AbstractWebappTest
 {
     public abstract URI getWebappURI();
+
+    /**
+     * @return the container under test, whose name and configuration are part of the fingerprint of its {@link ResultsStore}
+     */
+    public abstract WebappContainer getContainer();
 }
@@ -0,0 +1,166 @@
+package org.eclipse.ee4j.tests;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * The results matrix in a compact binary form.
+ * <p>
+ * After the magic {@code MNR1}, each row is:
+ * </p>
+ * <ul>
+ *   <li>the raw path: a varint length and the UTF-8 bytes</li>
+ *   <li>the raw result: a varint index in the table of results seen so far,
+ *   where the next unused index is followed by the new result as a string</li>
+ *   <li>the encoded path: varint 0 if it is the same as the raw path,
+ *   else a varint length + 1 and the UTF-8 bytes</li>
+ *   <li>the encoded result: as the raw result</li>
+ * </ul>
+ * <p>
+ * As there are only a handful of different results ({@code OK}, {@code 404 Not Found}, ...)
+ * a row costs little more than its paths.
+ * </p>
+ */
+public class BinaryResultsWriter implements ResultsWriter
+{
+    public static final int MAGIC = ('M' << 24) | ('N' << 16) | ('R' << 8) | '1';
+
+    private final DataOutputStream out;
+    private final Map<String, Integer> results = new HashMap<>();
+
+    public BinaryResultsWriter(OutputStream out) throws IOException
+    {
+        this.out = new DataOutputStream(out);
+        this.out.writeInt(MAGIC);
+    }
+
+    @Override
+    public void write(ResultRow row) throws IOException
+    {
+        writeString(row.getRawPath());
+        writeResult(row.getRawResult());
+        if (row.getEncodedPath().equals(row.getRawPath()))
+        {
+            writeVarInt(0);
+        }
+        else
+        {
+            byte[] bytes = row.getEncodedPath().getBytes(UTF_8);
+            writeVarInt(bytes.length + 1);
+            out.write(bytes);
+        }
+        writeResult(row.getEncodedResult());
+    }
+
+    private void writeResult(String result) throws IOException
+    {
+        Integer index = results.get(result);
+        if (index != null)
+        {
+            writeVarInt(index);
+            return;
+        }
+        index = results.size();
+        results.put(result, index);
+        writeVarInt(index);
+        writeString(result);
+    }
+
+    private void writeString(String value) throws IOException
+    {
+        byte[] bytes = value.getBytes(UTF_8);
+        writeVarInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private void writeVarInt(int value) throws IOException
+    {
+        while ((value & ~0x7F) != 0)
+        {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        out.close();
+    }
+
+    /**
+     * Read back the rows written by a {@link BinaryResultsWriter}.
+     *
+     * @param in the stream to read, up to its end
+     * @param rows the consumer of each row, in order
+     * @throws IOException if the stream cannot be read, or is not in this format
+     */
+    public static void read(InputStream in, Consumer<ResultRow> rows) throws IOException
+    {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC)
+            throw new IOException("Not a binary results matrix");
+        List<String> results = new ArrayList<>();
+        while (true)
+        {
+            int first = data.read();
+            if (first < 0)
+                return;
+            String rawPath = readString(data, readVarInt(data, first));
+            String rawResult = readResult(data, results);
+            int encodedLength = readVarInt(data, data.readUnsignedByte());
+            String encodedPath = encodedLength == 0 ? rawPath : readString(data, encodedLength - 1);
+            String encodedResult = readResult(data, results);
+            rows.accept(new ResultRow(rawPath, rawResult, encodedPath, encodedResult));
+        }
+    }
+
+    private static String readResult(DataInputStream data, List<String> results) throws IOException
+    {
+        int index = readVarInt(data, data.readUnsignedByte());
+        if (index < results.size())
+            return results.get(index);
+        if (index != results.size())
+            throw new IOException("Bad result index " + index);
+        String result = readString(data, readVarInt(data, data.readUnsignedByte()));
+        results.add(result);
+        return result;
+    }
+
+    private static String readString(DataInputStream data, int length) throws IOException
+    {
+        byte[] bytes = new byte[length];
+        data.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private static int readVarInt(DataInputStream data, int first) throws IOException
+    {
+        int value = first & 0x7F;
+        int shift = 7;
+        int b = first;
+        while ((b & 0x80) != 0)
+        {
+            if (shift > 28)
+                throw new IOException("Bad varint");
+            b = data.read();
+            if (b < 0)
+                throw new EOFException();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,195 @@
+package org.eclipse.ee4j.tests;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Drives the same {@link WebappCorpus} against several {@link WebappContainer}s, one after the
+ * other in the same JVM, and tabulates for each one: how many responses of the corpus are
+ * correct, and the throughput and latencies of the {@link LoadGenerator} run with the
+ * {@code maniacal.load.*} {@link TestSettings}.
+ * <p>
+ * Every container gets the same conditions: the same exploded WAR, a garbage collection before
+ * it starts, and a warmup before its requests are recorded. Each container runs its corpus once
+ * before the load, so the warmup only has to warm the JIT, not the caches of the webapp.
+ * </p>
+ */
+public class ContainerComparison
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(ContainerComparison.class);
+
+    private final List<Class<? extends WebappContainer>> containerClasses;
+
+    /**
+     * @param containerClasses the classes of the containers, with a public no-argument constructor, in the order they run
+     */
+    public ContainerComparison(List<Class<? extends WebappContainer>> containerClasses)
+    {
+        this.containerClasses = containerClasses;
+    }
+
+    /**
+     * @param webappDirectory the exploded WAR deployed on every container
+     * @return the result of every container, in order
+     */
+    public List<Result> run(Path webappDirectory)
+    {
+        List<Result> results = new ArrayList<>();
+        for (Class<? extends WebappContainer> containerClass : containerClasses)
+        {
+            results.add(run(containerClass, webappDirectory));
+        }
+        return results;
+    }
+
+    private Result run(Class<? extends WebappContainer> containerClass, Path webappDirectory)
+    {
+        Result result = new Result(containerClass.getSimpleName());
+        WebappContainer container;
+        try
+        {
+            container = containerClass.getConstructor().newInstance();
+            result.name = container.getName();
+        }
+        catch (ReflectiveOperationException e)
+        {
+            result.failure = e;
+            return result;
+        }
+
+        System.gc();
+        try
+        {
+            long start = System.nanoTime();
+            container.start(webappDirectory);
+            result.startMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            LOGGER.info("{} started {} in {} ms", result.name, container.getWebappURI(), result.startMillis);
+
+            URI webappURI = container.getWebappURI();
+            List<WebappCorpus.Target> targets = WebappCorpus.get(webappURI);
+            check(result, webappURI, targets);
+
+            result.load = new LoadGenerator(webappURI, WebappCorpus.requestTargets(targets)).run(TestSettings.getLoadConcurrency(), TestSettings.getLoadRate(),
+                TestSettings.getLoadWarmupMillis(), TestSettings.getLoadDurationMillis(), TestSettings.getLoadRequests());
+            LOGGER.info("{} load = {}", result.name, result.load);
+        }
+        catch (Exception e)
+        {
+            LOGGER.warn("{} failed", result.name, e);
+            result.failure = e;
+        }
+        finally
+        {
+            try
+            {
+                container.stop();
+            }
+            catch (Exception e)
+            {
+                LOGGER.warn("{} did not stop", result.name, e);
+            }
+        }
+        return result;
+    }
+
+    private static void check(Result result, URI webappURI, List<WebappCorpus.Target> targets) throws IOException
+    {
+        URI origin = URI.create(webappURI.getScheme() + "://" + webappURI.getRawAuthority());
+        List<RawResponse> responses = new PipelinedHttpEngine(origin).execute(WebappCorpus.requestTargets(targets));
+        for (int i = 0; i < targets.size(); i++)
+        {
+            RawResponse response = responses.get(i);
+            if (response.getStatus() == 200 && response.getBodyAsString().contains(targets.get(i).getExpectedContents()))
+                result.correct++;
+        }
+        result.total = targets.size();
+    }
+
+    /**
+     * @param results the results of the containers
+     * @return a table with a row per container
+     */
+    public static String toTable(List<Result> results)
+    {
+        StringBuilder table = new StringBuilder();
+        table.append(String.format(Locale.ROOT, "%-24s %8s %13s %10s %10s %10s %10s %10s %10s%n",
+            "container", "start ms", "correct", "requests", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms"));
+        for (Result result : results)
+        {
+            table.append(String.format(Locale.ROOT, "%-24s %8d %13s", result.name, result.startMillis, result.correct + "/" + result.total));
+            if (result.load == null)
+            {
+                table.append("  ").append(result.failure == null ? "no load" : "failed: " + result.failure).append(System.lineSeparator());
+                continue;
+            }
+            Histogram latencies = result.load.getLatencies();
+            table.append(String.format(Locale.ROOT, " %10d %10.0f %10.3f %10.3f %10.3f %10.3f%n", result.load.getRequests(), result.load.getThroughput(),
+                latencies.getValueAtPercentile(50) / 1000D, latencies.getValueAtPercentile(99) / 1000D,
+                latencies.getValueAtPercentile(99.9) / 1000D, latencies.getMaxValue() / 1000D));
+        }
+        return table.toString();
+    }
+
+    public static class Result
+    {
+        private String name;
+        private long startMillis;
+        private int correct;
+        private int total;
+        private LoadGenerator.Report load;
+        private Exception failure;
+
+        private Result(String name)
+        {
+            this.name = name;
+        }
+
+        public String getName()
+        {
+            return name;
+        }
+
+        public long getStartMillis()
+        {
+            return startMillis;
+        }
+
+        /**
+         * @return the number of requests of the corpus answered with a 200 and the expected contents
+         */
+        public int getCorrect()
+        {
+            return correct;
+        }
+
+        public int getTotal()
+        {
+            return total;
+        }
+
+        /**
+         * @return the report of the load, or null if the container failed before it
+         */
+        public LoadGenerator.Report getLoad()
+        {
+            return load;
+        }
+
+        /**
+         * @return why the container could not be compared, or null
+         */
+        public Exception getFailure()
+        {
+            return failure;
+        }
+    }
+}
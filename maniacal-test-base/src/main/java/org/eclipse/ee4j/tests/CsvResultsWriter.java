@@ -0,0 +1,49 @@
+package org.eclipse.ee4j.tests;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * The results matrix as CSV, every value quoted (but not escaped, as it always was).
+ */
+public class CsvResultsWriter implements ResultsWriter
+{
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private final Writer out;
+
+    public CsvResultsWriter(Writer out) throws IOException
+    {
+        this.out = out;
+        writeLine("META-INF/resources path (as it exists in JAR)",
+            "Raw Path Requested",
+            "Raw URI Result",
+            "Encoded Path Requested",
+            "Encoded URI Result");
+    }
+
+    @Override
+    public void write(ResultRow row) throws IOException
+    {
+        writeLine(row.getRawPath(), row.getRawPath(), row.getRawResult(), row.getEncodedPath(), row.getEncodedResult());
+    }
+
+    private void writeLine(String... values) throws IOException
+    {
+        for (int i = 0; i < values.length; i++)
+        {
+            if (i > 0)
+                out.write(", ");
+            out.write('"');
+            out.write(values[i]);
+            out.write('"');
+        }
+        out.write(LINE_SEPARATOR);
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        out.close();
+    }
+}
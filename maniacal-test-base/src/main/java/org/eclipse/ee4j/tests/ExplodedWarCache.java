@@ -0,0 +1,255 @@
+package org.eclipse.ee4j.tests;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * WARs exploded once into {@link TestSettings#WAR_CACHE}, in a directory named after the
+ * checksum of the WAR, so that a container can deploy the directory without extracting the
+ * WAR again, in this run or the next ones, until the WAR changes. The checksum is of the
+ * contents of the WAR, not of its bytes, so a WAR rebuilt from the same sources is the same WAR,
+ * and once a WAR is exploded, the directories of its previous builds are deleted.
+ * <p>
+ * A WAR is extracted to a temporary directory which is then moved in place, so a directory
+ * in the cache is always complete, even with several JVMs exploding the same WAR at once.
+ * </p>
+ */
+public class ExplodedWarCache
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExplodedWarCache.class);
+
+    /**
+     * @param war the WAR file
+     * @return the directory of the exploded WAR, in the cache of {@link TestSettings#getWarCache()}
+     * @throws IOException if the WAR cannot be read or extracted
+     */
+    public static Path explode(File war) throws IOException
+    {
+        return explode(war, TestSettings.getWarCache());
+    }
+
+    /**
+     * @param war the WAR file
+     * @param cache the directory of the exploded WARs
+     * @return the directory of the exploded WAR
+     * @throws IOException if the WAR cannot be read or extracted
+     */
+    public static Path explode(File war, Path cache) throws IOException
+    {
+        String name = war.getName().replaceFirst("\\.war$", "");
+        Path exploded = cache.resolve(name + "-" + checksum(war));
+        if (Files.isDirectory(exploded))
+        {
+            LOGGER.debug("{} already exploded to {}", war, exploded);
+            return exploded;
+        }
+
+        long start = System.nanoTime();
+        Files.createDirectories(cache);
+        Path temp = Files.createTempDirectory(cache, name + ".tmp-");
+        try
+        {
+            extract(war, temp);
+            if (moveInPlace(temp, exploded))
+            {
+                LOGGER.info("{} exploded to {} in {} ms", war, exploded, (System.nanoTime() - start) / 1_000_000);
+                deletePreviousBuilds(cache, name, exploded);
+            }
+        }
+        finally
+        {
+            delete(temp);
+        }
+        return exploded;
+    }
+
+    /**
+     * @return true if moved, false if the directory was exploded at the same time by another JVM
+     * @throws IOException if the move failed, and there is no directory in place
+     */
+    static boolean moveInPlace(Path temp, Path exploded) throws IOException
+    {
+        try
+        {
+            Files.move(temp, exploded, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        }
+        catch (FileSystemException e)
+        {
+            // onto an existing directory, the move fails with DirectoryNotEmptyException (or FileAlreadyExistsException)
+            if (!Files.isDirectory(exploded))
+                throw e;
+            LOGGER.debug("{} exploded at the same time by another JVM", exploded, e);
+            return false;
+        }
+    }
+
+    /**
+     * The checksum of the names, CRC-32s and sizes of the entries of the WAR, and of the entries of
+     * the jars in it: unlike the bytes of the WAR, they do not change with the timestamps of a rebuild.
+     *
+     * @param war the WAR file
+     * @return the first 64 bits of the SHA-256 of the contents of the WAR, in hex, as in the name of its exploded directory
+     * @throws IOException if the WAR cannot be read
+     */
+    public static String checksum(File war) throws IOException
+    {
+        List<String> entries = new ArrayList<>();
+        try (ZipFile zip = new ZipFile(war))
+        {
+            for (Enumeration<? extends ZipEntry> e = zip.entries(); e.hasMoreElements(); )
+            {
+                ZipEntry entry = e.nextElement();
+                if (entry.isDirectory())
+                    continue;
+                if (entry.getName().endsWith(".jar"))
+                {
+                    try (InputStream in = zip.getInputStream(entry))
+                    {
+                        addJarEntries(entry.getName() + "!/", in, entries);
+                    }
+                }
+                else
+                {
+                    entries.add(entry.getName() + "\t" + Long.toHexString(entry.getCrc()) + "\t" + entry.getSize());
+                }
+            }
+        }
+        // in the order of the names, whatever the order of the entries in the WAR
+        Collections.sort(entries);
+        try
+        {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String entry : entries)
+            {
+                digest.update(entry.getBytes(UTF_8));
+                digest.update((byte)'\n');
+            }
+            StringBuilder hex = new StringBuilder();
+            byte[] hash = digest.digest();
+            // 64 bits are plenty to tell the builds of a WAR apart
+            for (int i = 0; i < 8; i++)
+            {
+                hex.append(String.format("%02x", hash[i]));
+            }
+            return hex.toString();
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void addJarEntries(String prefix, InputStream jar, List<String> entries) throws IOException
+    {
+        ZipInputStream zip = new ZipInputStream(jar, UTF_8);
+        byte[] buffer = new byte[8 * 1024];
+        CRC32 crc = new CRC32();
+        ZipEntry entry;
+        while ((entry = zip.getNextEntry()) != null)
+        {
+            if (entry.isDirectory())
+                continue;
+            // the CRC is not always in the local header of the entry, so it is computed
+            crc.reset();
+            long size = 0;
+            int read;
+            while ((read = zip.read(buffer)) >= 0)
+            {
+                crc.update(buffer, 0, read);
+                size += read;
+            }
+            entries.add(prefix + entry.getName() + "\t" + Long.toHexString(crc.getValue()) + "\t" + size);
+        }
+    }
+
+    /**
+     * Delete the directories of the previous builds of the WAR. One that cannot be deleted,
+     * eg: still deployed by another JVM, is left for the next time.
+     */
+    private static void deletePreviousBuilds(Path cache, String name, Path exploded)
+    {
+        Pattern build = Pattern.compile(Pattern.quote(name) + "-[0-9a-f]{16}");
+        try (Stream<Path> paths = Files.list(cache))
+        {
+            for (Path path : (Iterable<Path>)paths::iterator)
+            {
+                if (path.equals(exploded) || !build.matcher(path.getFileName().toString()).matches() || !Files.isDirectory(path))
+                    continue;
+                try
+                {
+                    delete(path);
+                    LOGGER.debug("Deleted the previous build {}", path);
+                }
+                catch (IOException e)
+                {
+                    LOGGER.warn("Unable to delete the previous build {}", path, e);
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            LOGGER.warn("Unable to list {}", cache, e);
+        }
+    }
+
+    private static void extract(File war, Path directory) throws IOException
+    {
+        try (ZipFile zip = new ZipFile(war))
+        {
+            for (Enumeration<? extends ZipEntry> entries = zip.entries(); entries.hasMoreElements(); )
+            {
+                ZipEntry entry = entries.nextElement();
+                Path path = directory.resolve(entry.getName()).normalize();
+                if (!path.startsWith(directory))
+                    throw new IOException("Entry outside of the WAR: " + entry.getName());
+                if (entry.isDirectory())
+                {
+                    Files.createDirectories(path);
+                    continue;
+                }
+                Files.createDirectories(path.getParent());
+                try (InputStream in = zip.getInputStream(entry))
+                {
+                    Files.copy(in, path);
+                }
+            }
+        }
+    }
+
+    private static void delete(Path directory) throws IOException
+    {
+        if (!Files.exists(directory))
+            return;
+        try (Stream<Path> paths = Files.walk(directory))
+        {
+            for (Path path : (Iterable<Path>)paths.sorted(Comparator.reverseOrder())::iterator)
+            {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package org.eclipse.ee4j.tests;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.MetaData;
+import org.eclipse.jetty.http2.hpack.HpackEncoder;
+import org.eclipse.jetty.http2.hpack.HpackException;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * The corpus over HTTP/2 cleartext compared to HTTP/1.1, on the same server:
+ * <ul>
+ *   <li>the requests whose result differs when their request target is an HPACK {@code :path}
+ *   rather than a request line,</li>
+ *   <li>how many bytes HPACK takes for the {@code :path} and the whole request head, with the
+ *   dynamic table of one connection carrying the corpus in order,</li>
+ *   <li>the throughput of the corpus multiplexed on one HTTP/2 connection, against HTTP/1.1
+ *   pipelined on one connection and on {@link TestSettings#RAW_CONNECTIONS} connections.</li>
+ * </ul>
+ * <p>
+ * A request that the server cannot parse closes an HTTP/2 connection with all its streams in flight,
+ * where it only closes the connection of one pipeline over HTTP/1.1. So the throughput is measured
+ * twice: in one pass of the whole corpus, which includes that cost, and in rounds of the requests
+ * that get a response over HTTP/2, which compare the transports alone.
+ * </p>
+ */
+public class Http2Report
+{
+    private static final int HEADER_BLOCK_SIZE = 64 * 1024;
+
+    private final List<String> requestTargets;
+    private final List<Difference> differences = new ArrayList<>();
+    private final List<Transport> transports = new ArrayList<>();
+    private final List<Transport> roundTransports = new ArrayList<>();
+    private int http2Failures;
+    private long rawPathBytes;
+    private long hpackPathBytes;
+    private long http1HeadBytes;
+    private long hpackHeadBytes;
+    private int unencodable;
+
+    private Http2Report(List<String> requestTargets)
+    {
+        this.requestTargets = requestTargets;
+    }
+
+    /**
+     * @param serverURI the URI of the server, only its scheme and authority are used
+     * @param requestTargets the request targets (absolute paths), sent as is
+     * @param rounds the number of times the requests answered over HTTP/2 are sent for the throughput of each transport
+     * @return the report
+     * @throws IOException if the server cannot be reached
+     */
+    public static Http2Report run(URI serverURI, List<String> requestTargets, int rounds) throws IOException
+    {
+        URI origin = URI.create(serverURI.getScheme() + "://" + serverURI.getRawAuthority());
+        Http2Report report = new Http2Report(requestTargets);
+        List<String> answered = report.compare(origin);
+        report.measureHpack(origin);
+
+        int connections = TestSettings.getRawConnections();
+        int pipelineDepth = TestSettings.getPipelineDepth();
+        report.time("http/1.1 pipelined, 1 connection", answered, rounds, () -> new PipelinedHttpEngine(origin, 1, pipelineDepth).execute(answered));
+        report.time("http/1.1 pipelined, " + connections + " connections", answered, rounds, () -> new PipelinedHttpEngine(origin, connections, pipelineDepth).execute(answered));
+        report.time("h2c multiplexed, 1 connection", answered, rounds, () -> new MultiplexedHttpEngine(origin).execute(answered));
+        return report;
+    }
+
+    /**
+     * @return the request targets that got a response over HTTP/2
+     */
+    private List<String> compare(URI origin) throws IOException
+    {
+        long start = System.nanoTime();
+        List<RawResponse> http1 = new PipelinedHttpEngine(origin).execute(requestTargets);
+        transports.add(new Transport("http/1.1 pipelined, " + TestSettings.getRawConnections() + " connections", requestTargets.size(), System.nanoTime() - start));
+        start = System.nanoTime();
+        List<RawResponse> http2 = new MultiplexedHttpEngine(origin).execute(requestTargets);
+        transports.add(new Transport("h2c multiplexed, 1 connection", requestTargets.size(), System.nanoTime() - start));
+
+        List<String> answered = new ArrayList<>();
+        for (int i = 0; i < requestTargets.size(); i++)
+        {
+            if (http2.get(i).getFailure() != null)
+                http2Failures++;
+            else
+                answered.add(requestTargets.get(i));
+            String result1 = describe(http1.get(i));
+            String result2 = describe(http2.get(i));
+            if (!Objects.equals(result1, result2))
+                differences.add(new Difference(requestTargets.get(i), result1, result2));
+        }
+        return answered;
+    }
+
+    private static String describe(RawResponse response)
+    {
+        if (response.getFailure() != null)
+            return response.getFailure().getClass().getSimpleName();
+        // a different body of the same status is a different resource
+        return response.getStatus() + (response.getStatus() == 200 ? " " + response.getBody().length + "B" : "");
+    }
+
+    private void measureHpack(URI origin)
+    {
+        // what the client sends on one connection: the dynamic table carries over from request to request
+        HpackEncoder headEncoder = new HpackEncoder();
+        HpackEncoder pathEncoder = new HpackEncoder();
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BLOCK_SIZE);
+        for (String target : requestTargets)
+        {
+            MetaData.Request request = MultiplexedHttpEngine.newRequest(origin, target);
+            rawPathBytes += target.getBytes(UTF_8).length;
+            http1HeadBytes += PipelinedHttpEngine.newRequest(origin, target).length;
+            try
+            {
+                buffer.clear();
+                pathEncoder.encode(buffer, new HttpField(HttpHeader.C_PATH, request.getURI().getPathQuery()));
+                hpackPathBytes += buffer.position();
+
+                buffer.clear();
+                headEncoder.encode(buffer, request);
+                hpackHeadBytes += buffer.position();
+            }
+            catch (HpackException | RuntimeException e)
+            {
+                unencodable++;
+            }
+        }
+    }
+
+    private void time(String name, List<String> targets, int rounds, Round round) throws IOException
+    {
+        // one round to warm up the connections, the JIT and the caches of the webapp
+        round.run();
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++)
+        {
+            round.run();
+        }
+        roundTransports.add(new Transport(name, (long)rounds * targets.size(), System.nanoTime() - start));
+    }
+
+    /**
+     * @return the requests whose status (or size of a 200 body) over HTTP/2 is not the one over HTTP/1.1
+     */
+    public List<Difference> getDifferences()
+    {
+        return differences;
+    }
+
+    /**
+     * @return the number of requests that got no response over HTTP/2 (eg: a reset stream)
+     */
+    public int getHttp2Failures()
+    {
+        return http2Failures;
+    }
+
+    /**
+     * @return the throughput of one pass of the whole corpus, by transport
+     */
+    public List<Transport> getTransports()
+    {
+        return transports;
+    }
+
+    /**
+     * @return the throughput of the requests that get a response over HTTP/2, by transport
+     */
+    public List<Transport> getRoundTransports()
+    {
+        return roundTransports;
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder report = new StringBuilder();
+        int requests = requestTargets.size();
+        report.append(String.format(Locale.ROOT, "%d requests, %d without a response over h2c, %d with a different result than over http/1.1%n",
+            requests, http2Failures, differences.size()));
+        report.append(String.format(Locale.ROOT, ":path          %9d bytes raw, %9d bytes HPACK (%.1f%%), %d not encodable%n",
+            rawPathBytes, hpackPathBytes, 100D * hpackPathBytes / Math.max(1, rawPathBytes), unencodable));
+        report.append(String.format(Locale.ROOT, "request heads  %9d bytes http/1.1, %9d bytes HPACK (%.1f%%)%n",
+            http1HeadBytes, hpackHeadBytes, 100D * hpackHeadBytes / Math.max(1, http1HeadBytes)));
+        report.append(String.format(Locale.ROOT, "%n%-36s %10s %10s%n", "whole corpus, one pass", "requests", "req/s"));
+        appendTransports(report, transports);
+        report.append(String.format(Locale.ROOT, "%n%-36s %10s %10s%n", "requests answered over h2c", "requests", "req/s"));
+        appendTransports(report, roundTransports);
+        if (!differences.isEmpty())
+        {
+            report.append(String.format(Locale.ROOT, "%n%-16s %-16s %s%n", "http/1.1", "h2c", "request target"));
+            for (Difference difference : differences)
+            {
+                report.append(String.format(Locale.ROOT, "%-16s %-16s %s%n", difference.getHttp1Result(), difference.getHttp2Result(), difference.getRequestTarget()));
+            }
+        }
+        return report.toString();
+    }
+
+    private static void appendTransports(StringBuilder report, List<Transport> transports)
+    {
+        for (Transport transport : transports)
+        {
+            report.append(String.format(Locale.ROOT, "%-36s %10d %10.0f%n", transport.getName(), transport.getRequests(), transport.getThroughput()));
+        }
+    }
+
+    private interface Round
+    {
+        void run() throws IOException;
+    }
+
+    public static class Difference
+    {
+        private final String requestTarget;
+        private final String http1Result;
+        private final String http2Result;
+
+        private Difference(String requestTarget, String http1Result, String http2Result)
+        {
+            this.requestTarget = requestTarget;
+            this.http1Result = http1Result;
+            this.http2Result = http2Result;
+        }
+
+        public String getRequestTarget()
+        {
+            return requestTarget;
+        }
+
+        public String getHttp1Result()
+        {
+            return http1Result;
+        }
+
+        public String getHttp2Result()
+        {
+            return http2Result;
+        }
+    }
+
+    public static class Transport
+    {
+        private final String name;
+        private final long requests;
+        private final long elapsedNanos;
+
+        private Transport(String name, long requests, long elapsedNanos)
+        {
+            this.name = name;
+            this.requests = requests;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public String getName()
+        {
+            return name;
+        }
+
+        public long getRequests()
+        {
+            return requests;
+        }
+
+        /**
+         * @return the requests per second
+         */
+        public double getThroughput()
+        {
+            return requests * 1_000_000_000D / Math.max(1, elapsedNanos);
+        }
+    }
+}
@@ -0,0 +1,704 @@
+package org.eclipse.ee4j.tests;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * An incremental HTTP/1.1 response parser, fed the bytes of a connection as they arrive, in
+ * pieces of any size: the status line, the headers, and a body framed by its {@code Content-Length},
+ * chunked {@code Transfer-Encoding} or the end of the connection. Interim (1xx) responses are skipped.
+ * <p>
+ * Only the status, the framing and the {@code Connection} headers are parsed, from the bytes of
+ * a line buffer reused from one response to the next. The headers and the body are only kept when
+ * asked for ({@link #setRetainHeaders(boolean)}, {@link #setRetainContent(int)}), and the body can
+ * be searched for an expected content as it goes by, with {@link #setExpectedContents(byte[])}, so that
+ * a response can be checked without a {@code String} (or a copy of it) being made.
+ * </p>
+ * <pre>
+ *   parser.reset(false);
+ *   parser.setExpectedContents(expected);
+ *   if (parser.read(in) &amp;&amp; parser.getStatus() == 200 &amp;&amp; parser.containsExpectedContents())
+ *       ...
+ * </pre>
+ * <p>
+ * Not thread safe, there is one parser per connection.
+ * </p>
+ */
+public class HttpResponseParser
+{
+    private static final int MAX_LINE_LENGTH = 64 * 1024;
+    private static final byte[] CONTENT_LENGTH = "content-length".getBytes(ISO_8859_1);
+    private static final byte[] TRANSFER_ENCODING = "transfer-encoding".getBytes(ISO_8859_1);
+    private static final byte[] CONNECTION = "connection".getBytes(ISO_8859_1);
+    private static final byte[] CHUNKED = "chunked".getBytes(ISO_8859_1);
+    private static final byte[] CLOSE = "close".getBytes(ISO_8859_1);
+    private static final byte[] KEEP_ALIVE = "keep-alive".getBytes(ISO_8859_1);
+    private static final byte[] HTTP = "HTTP/".getBytes(ISO_8859_1);
+    private static final byte[] HTTP_1_0 = "HTTP/1.0".getBytes(ISO_8859_1);
+
+    private enum State
+    {
+        STATUS_LINE, HEADERS, CONTENT, CHUNK_SIZE, CHUNK_DATA, CHUNK_END, TRAILERS, EOF_CONTENT, COMPLETE
+    }
+
+    private final List<String[]> headers = new ArrayList<>();
+    private byte[] line = new byte[256];
+    private int lineLength;
+    private byte[] statusLine = new byte[64];
+    private int statusLineLength;
+    private String statusLineString;
+    private byte[] content = new byte[0];
+    private int contentLength;
+    private long received;
+    private final ContentMatcher matcher = new ContentMatcher();
+    private byte[] input;
+    private int inputStart;
+    private int inputEnd;
+    private byte[] transfer;
+    private boolean retainHeaders;
+    private int maxRetainedContent;
+    private boolean headRequest;
+    private boolean started;
+    private State state = State.STATUS_LINE;
+    private int status = -1;
+    private boolean http10;
+    private boolean connectionClose;
+    private boolean connectionKeepAlive;
+    private boolean chunked;
+    private long declaredLength;
+    private long remaining;
+    private boolean close;
+
+    /**
+     * @param retainHeaders true to keep every header of the response, for {@link #getHeaders()}
+     */
+    public void setRetainHeaders(boolean retainHeaders)
+    {
+        this.retainHeaders = retainHeaders;
+    }
+
+    /**
+     * @param retainContent true to keep the body of the response, for {@link #getContent()}
+     */
+    public void setRetainContent(boolean retainContent)
+    {
+        setRetainContent(retainContent ? Integer.MAX_VALUE : 0);
+    }
+
+    /**
+     * @param maxBytes the number of bytes to keep from the start of the body, for {@link #getContent()}:
+     * enough to show it, while {@link #setExpectedContents(byte[])} checks all of it
+     */
+    public void setRetainContent(int maxBytes)
+    {
+        this.maxRetainedContent = maxBytes;
+    }
+
+    /**
+     * Get ready for the next response on the connection. Bytes read by {@link #read(InputStream)}
+     * after the end of the previous response are kept, they are the start of this one.
+     *
+     * @param headRequest true if the request was a {@code HEAD}, whose response has no body whatever its headers say
+     */
+    public void reset(boolean headRequest)
+    {
+        this.headRequest = headRequest;
+        headers.clear();
+        lineLength = 0;
+        statusLineLength = 0;
+        statusLineString = null;
+        contentLength = 0;
+        received = 0;
+        matcher.reset(null);
+        started = false;
+        state = State.STATUS_LINE;
+        status = -1;
+        close = false;
+    }
+
+    /**
+     * Get ready for the first response of a new connection, discarding the bytes read from the previous one.
+     */
+    public void recycle()
+    {
+        inputStart = 0;
+        inputEnd = 0;
+        reset(false);
+    }
+
+    /**
+     * Search the body of the current response for some bytes, as it is parsed.
+     * The search spans the boundaries of the reads and of the chunks.
+     *
+     * @param expected the bytes to look for, or null to not search
+     * @see #containsExpectedContents()
+     */
+    public void setExpectedContents(byte[] expected)
+    {
+        matcher.reset(expected);
+    }
+
+    /**
+     * @param buf the bytes received
+     * @param offset the offset of the first byte
+     * @param length the number of bytes
+     * @return the number of bytes consumed, less than {@code length} if the response completed before them
+     * @throws IOException if the response is malformed: a bad status line, {@code Content-Length} or chunk, or a line too long
+     */
+    public int parse(byte[] buf, int offset, int length) throws IOException
+    {
+        int pos = offset;
+        int end = offset + length;
+        if (pos < end)
+            started = true;
+        while (pos < end && state != State.COMPLETE)
+        {
+            switch (state)
+            {
+                case CONTENT:
+                case CHUNK_DATA:
+                {
+                    int n = (int)Math.min(remaining, end - pos);
+                    content(buf, pos, n);
+                    pos += n;
+                    remaining -= n;
+                    if (remaining == 0)
+                        state = state == State.CONTENT ? State.COMPLETE : State.CHUNK_END;
+                    break;
+                }
+                case EOF_CONTENT:
+                {
+                    content(buf, pos, end - pos);
+                    pos = end;
+                    break;
+                }
+                default:
+                {
+                    int eol = pos;
+                    while (eol < end && buf[eol] != '\n')
+                    {
+                        eol++;
+                    }
+                    appendLine(buf, pos, eol - pos);
+                    if (eol == end)
+                        return end - offset;
+                    pos = eol + 1;
+                    int lineEnd = lineLength;
+                    if (lineEnd > 0 && line[lineEnd - 1] == '\r')
+                        lineEnd--;
+                    lineLength = 0;
+                    parsedLine(lineEnd);
+                    break;
+                }
+            }
+        }
+        return pos - offset;
+    }
+
+    /**
+     * @param buffer the bytes received, consumed up to the end of the response
+     * @return true if the response is complete
+     * @throws IOException if the response is malformed
+     */
+    public boolean parse(ByteBuffer buffer) throws IOException
+    {
+        if (buffer.hasArray())
+        {
+            int consumed = parse(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            buffer.position(buffer.position() + consumed);
+            return isComplete();
+        }
+
+        if (transfer == null)
+            transfer = new byte[8 * 1024];
+        while (buffer.hasRemaining() && !isComplete())
+        {
+            int n = Math.min(buffer.remaining(), transfer.length);
+            buffer.get(transfer, 0, n);
+            int consumed = parse(transfer, 0, n);
+            buffer.position(buffer.position() - (n - consumed));
+        }
+        return isComplete();
+    }
+
+    /**
+     * The connection ended: complete a body that ends with the connection.
+     *
+     * @return true if the response is complete, false if the connection ended cleanly before the response started
+     * @throws EOFException if the connection ended within the response
+     */
+    public boolean eof() throws EOFException
+    {
+        switch (state)
+        {
+            case COMPLETE:
+                return true;
+            case EOF_CONTENT:
+                state = State.COMPLETE;
+                return true;
+            case STATUS_LINE:
+                if (!started)
+                    return false;
+                // fall through
+            default:
+                throw new EOFException("Connection closed within the response");
+        }
+    }
+
+    /**
+     * Read the rest of the current response from a stream, through a buffer of the parser:
+     * it must be the only reader of the stream, and the same parser must read the next responses.
+     *
+     * @param in the stream of the connection, it needs no buffering
+     * @return true if the response is complete, false if the stream ended cleanly before the response started
+     * @throws IOException if the stream failed or ended within the response, or the response is malformed
+     */
+    public boolean read(InputStream in) throws IOException
+    {
+        if (input == null)
+            input = new byte[8 * 1024];
+        while (!isComplete())
+        {
+            if (inputStart == inputEnd)
+            {
+                int n = in.read(input, 0, input.length);
+                if (n < 0)
+                    return eof();
+                inputStart = 0;
+                inputEnd = n;
+            }
+            inputStart += parse(input, inputStart, inputEnd - inputStart);
+        }
+        return true;
+    }
+
+    public boolean isComplete()
+    {
+        return state == State.COMPLETE;
+    }
+
+    /**
+     * @return the status code, or -1 before the status line
+     */
+    public int getStatus()
+    {
+        return status;
+    }
+
+    /**
+     * @return the status line (without the CRLF), or null before the status line
+     */
+    public String getStatusLine()
+    {
+        if (statusLineString == null && status >= 0)
+            statusLineString = new String(statusLine, 0, statusLineLength, ISO_8859_1);
+        return statusLineString;
+    }
+
+    /**
+     * @return true if the connection cannot carry another response after this one
+     */
+    public boolean isClose()
+    {
+        return close;
+    }
+
+    /**
+     * @return the headers of the response as name and value pairs, if {@link #setRetainHeaders(boolean) retained}
+     */
+    public List<String[]> getHeaders()
+    {
+        return headers;
+    }
+
+    /**
+     * @return a copy of the body, or of its start, if {@link #setRetainContent(int) retained}
+     */
+    public byte[] getContent()
+    {
+        return Arrays.copyOf(content, contentLength);
+    }
+
+    public String getContentAsString()
+    {
+        return new String(content, 0, contentLength, UTF_8);
+    }
+
+    /**
+     * @return the number of bytes of the body received so far, retained or not
+     */
+    public long getContentLength()
+    {
+        return received;
+    }
+
+    /**
+     * @return true if the body received so far contains the {@link #setExpectedContents(byte[]) expected contents}
+     */
+    public boolean containsExpectedContents()
+    {
+        return matcher.isFound();
+    }
+
+    private void appendLine(byte[] buf, int offset, int length) throws IOException
+    {
+        if (lineLength + length > line.length)
+        {
+            if (lineLength + length > MAX_LINE_LENGTH)
+                throw new IOException("Line too long");
+            line = Arrays.copyOf(line, Math.min(MAX_LINE_LENGTH, Math.max(line.length * 2, lineLength + length)));
+        }
+        System.arraycopy(buf, offset, line, lineLength, length);
+        lineLength += length;
+    }
+
+    private void parsedLine(int length) throws IOException
+    {
+        switch (state)
+        {
+            case STATUS_LINE:
+                parsedStatusLine(length);
+                break;
+            case HEADERS:
+                if (length == 0)
+                    headersComplete();
+                else
+                    parsedHeader(length);
+                break;
+            case CHUNK_SIZE:
+                remaining = parseChunkSize(length);
+                state = remaining == 0 ? State.TRAILERS : State.CHUNK_DATA;
+                break;
+            case CHUNK_END:
+                if (length != 0)
+                    throw new IOException("No CRLF after chunk");
+                state = State.CHUNK_SIZE;
+                break;
+            case TRAILERS:
+                if (length == 0)
+                    state = State.COMPLETE;
+                break;
+            default:
+                throw new IllegalStateException(state.toString());
+        }
+    }
+
+    private void parsedStatusLine(int length) throws IOException
+    {
+        // HTTP/1.1 200 OK
+        if (length == 0)
+            return;
+        int sp = indexOf(line, 0, length, (byte)' ');
+        if (!startsWith(line, length, HTTP) || sp < 0 || length < sp + 4)
+            throw new IOException("Bad status line: " + new String(line, 0, length, ISO_8859_1));
+        int code = 0;
+        for (int i = sp + 1; i < sp + 4; i++)
+        {
+            int digit = line[i] - '0';
+            if (digit < 0 || digit > 9)
+                throw new IOException("Bad status line: " + new String(line, 0, length, ISO_8859_1));
+            code = code * 10 + digit;
+        }
+
+        status = code;
+        if (statusLine.length < length)
+            statusLine = new byte[length];
+        System.arraycopy(line, 0, statusLine, 0, length);
+        statusLineLength = length;
+        statusLineString = null;
+        http10 = startsWith(line, length, HTTP_1_0);
+        connectionClose = false;
+        connectionKeepAlive = false;
+        chunked = false;
+        declaredLength = -1;
+        headers.clear();
+        state = State.HEADERS;
+    }
+
+    private void parsedHeader(int length) throws IOException
+    {
+        int colon = indexOf(line, 0, length, (byte)':');
+        if (colon <= 0)
+            return;
+        int nameEnd = trimEnd(line, 0, colon);
+        int valueStart = trimStart(line, colon + 1, length);
+        int valueEnd = trimEnd(line, valueStart, length);
+
+        if (equalsIgnoreCase(line, 0, nameEnd, CONTENT_LENGTH))
+        {
+            declaredLength = parseContentLength(valueStart, valueEnd);
+        }
+        else if (equalsIgnoreCase(line, 0, nameEnd, TRANSFER_ENCODING))
+        {
+            chunked |= hasToken(valueStart, valueEnd, CHUNKED);
+        }
+        else if (equalsIgnoreCase(line, 0, nameEnd, CONNECTION))
+        {
+            connectionClose |= hasToken(valueStart, valueEnd, CLOSE);
+            connectionKeepAlive |= hasToken(valueStart, valueEnd, KEEP_ALIVE);
+        }
+
+        if (retainHeaders)
+        {
+            headers.add(new String[]{
+                new String(line, 0, nameEnd, ISO_8859_1),
+                new String(line, valueStart, valueEnd - valueStart, ISO_8859_1)});
+        }
+    }
+
+    private void headersComplete()
+    {
+        if (status >= 100 && status < 200)
+        {
+            // an interim response, the final one follows
+            state = State.STATUS_LINE;
+            return;
+        }
+
+        close = connectionClose || (http10 && !connectionKeepAlive);
+        if (headRequest || status == 204 || status == 304)
+        {
+            state = State.COMPLETE;
+        }
+        else if (chunked)
+        {
+            state = State.CHUNK_SIZE;
+        }
+        else if (declaredLength >= 0)
+        {
+            remaining = declaredLength;
+            state = remaining == 0 ? State.COMPLETE : State.CONTENT;
+        }
+        else
+        {
+            // no framing, the body ends with the connection
+            close = true;
+            state = State.EOF_CONTENT;
+        }
+    }
+
+    private void content(byte[] buf, int offset, int length)
+    {
+        received += length;
+        int retained = Math.min(length, maxRetainedContent - contentLength);
+        if (retained > 0)
+        {
+            if (contentLength + retained > content.length)
+            {
+                int capacity = Math.max(content.length * 2, Math.max(1024, contentLength + retained));
+                content = Arrays.copyOf(content, Math.min(capacity, maxRetainedContent));
+            }
+            System.arraycopy(buf, offset, content, contentLength, retained);
+            contentLength += retained;
+        }
+        matcher.update(buf, offset, length);
+    }
+
+    private long parseContentLength(int start, int end) throws IOException
+    {
+        if (start == end || end - start > 18)
+            throw new IOException("Bad Content-Length: " + new String(line, start, end - start, ISO_8859_1));
+        long value = 0;
+        for (int i = start; i < end; i++)
+        {
+            int digit = line[i] - '0';
+            if (digit < 0 || digit > 9)
+                throw new IOException("Bad Content-Length: " + new String(line, start, end - start, ISO_8859_1));
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private long parseChunkSize(int length) throws IOException
+    {
+        // 1a;name=value
+        int semicolon = indexOf(line, 0, length, (byte)';');
+        int start = trimStart(line, 0, semicolon < 0 ? length : semicolon);
+        int end = trimEnd(line, start, semicolon < 0 ? length : semicolon);
+        if (start == end || end - start > 15)
+            throw new IOException("Bad chunk size: " + new String(line, 0, length, ISO_8859_1));
+        long size = 0;
+        for (int i = start; i < end; i++)
+        {
+            int digit = Character.digit(line[i], 16);
+            if (digit < 0)
+                throw new IOException("Bad chunk size: " + new String(line, 0, length, ISO_8859_1));
+            size = size * 16 + digit;
+        }
+        return size;
+    }
+
+    /**
+     * @return true if the comma separated value has the token, case insensitive
+     */
+    private boolean hasToken(int start, int end, byte[] token)
+    {
+        int from = start;
+        while (from <= end)
+        {
+            int comma = indexOf(line, from, end, (byte)',');
+            int to = comma < 0 ? end : comma;
+            int tokenStart = trimStart(line, from, to);
+            if (equalsIgnoreCase(line, tokenStart, trimEnd(line, tokenStart, to), token))
+                return true;
+            from = to + 1;
+        }
+        return false;
+    }
+
+    private static boolean equalsIgnoreCase(byte[] buf, int start, int end, byte[] lowerCase)
+    {
+        if (end - start != lowerCase.length)
+            return false;
+        for (int i = 0; i < lowerCase.length; i++)
+        {
+            byte b = buf[start + i];
+            if (b >= 'A' && b <= 'Z')
+                b += 'a' - 'A';
+            if (b != lowerCase[i])
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean startsWith(byte[] buf, int length, byte[] prefix)
+    {
+        if (length < prefix.length)
+            return false;
+        for (int i = 0; i < prefix.length; i++)
+        {
+            if (buf[i] != prefix[i])
+                return false;
+        }
+        return true;
+    }
+
+    private static int indexOf(byte[] buf, int from, int end, byte b)
+    {
+        for (int i = from; i < end; i++)
+        {
+            if (buf[i] == b)
+                return i;
+        }
+        return -1;
+    }
+
+    private static int trimStart(byte[] buf, int start, int end)
+    {
+        while (start < end && (buf[start] == ' ' || buf[start] == '\t'))
+        {
+            start++;
+        }
+        return start;
+    }
+
+    private static int trimEnd(byte[] buf, int start, int end)
+    {
+        while (end > start && (buf[end - 1] == ' ' || buf[end - 1] == '\t'))
+        {
+            end--;
+        }
+        return end;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x[%s, status=%d, content=%d bytes]", getClass().getSimpleName(), hashCode(), state, status, received);
+    }
+
+    /**
+     * A search for some bytes in a content that comes in pieces (Knuth-Morris-Pratt), that does
+     * not allocate once its table is as long as the bytes looked for.
+     */
+    public static final class ContentMatcher
+    {
+        private byte[] expected;
+        private int[] partialMatches = new int[0];
+        private int matched;
+        private boolean found;
+
+        /**
+         * @param content the whole content
+         * @param expected the bytes to look for
+         * @return true if the content contains the bytes
+         */
+        public static boolean contains(byte[] content, byte[] expected)
+        {
+            ContentMatcher matcher = new ContentMatcher();
+            matcher.reset(expected);
+            matcher.update(content, 0, content.length);
+            return matcher.isFound();
+        }
+
+        /**
+         * Start a new search.
+         *
+         * @param expected the bytes to look for, or null to not search
+         */
+        public void reset(byte[] expected)
+        {
+            this.expected = expected;
+            matched = 0;
+            found = expected != null && expected.length == 0;
+            if (expected == null || expected.length == 0)
+                return;
+
+            // the length of the longest proper prefix that is also a suffix, of each prefix
+            if (partialMatches.length < expected.length)
+                partialMatches = new int[expected.length];
+            partialMatches[0] = 0;
+            int k = 0;
+            for (int i = 1; i < expected.length; i++)
+            {
+                while (k > 0 && expected[k] != expected[i])
+                {
+                    k = partialMatches[k - 1];
+                }
+                if (expected[k] == expected[i])
+                    k++;
+                partialMatches[i] = k;
+            }
+        }
+
+        /**
+         * @param buf the next piece of the content
+         * @param offset the offset of its first byte
+         * @param length the number of bytes
+         */
+        public void update(byte[] buf, int offset, int length)
+        {
+            if (expected == null || found)
+                return;
+            for (int i = offset; i < offset + length; i++)
+            {
+                byte b = buf[i];
+                while (matched > 0 && expected[matched] != b)
+                {
+                    matched = partialMatches[matched - 1];
+                }
+                if (expected[matched] == b && ++matched == expected.length)
+                {
+                    found = true;
+                    return;
+                }
+            }
+        }
+
+        /**
+         * @return true if the content so far contains the bytes looked for
+         */
+        public boolean isFound()
+        {
+            return found;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package org.eclipse.ee4j.tests;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * The results matrix as JSON Lines, one object per row:
+ * <pre>
+ * {"rawPath":"...","rawResult":"OK","encodedPath":"...","encodedResult":"404 Not Found"}
+ * </pre>
+ */
+public class JsonLinesResultsWriter implements ResultsWriter
+{
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Writer out;
+
+    public JsonLinesResultsWriter(Writer out)
+    {
+        this.out = out;
+    }
+
+    @Override
+    public void write(ResultRow row) throws IOException
+    {
+        out.write("{\"rawPath\":");
+        writeString(row.getRawPath());
+        out.write(",\"rawResult\":");
+        writeString(row.getRawResult());
+        out.write(",\"encodedPath\":");
+        writeString(row.getEncodedPath());
+        out.write(",\"encodedResult\":");
+        writeString(row.getEncodedResult());
+        out.write("}\n");
+    }
+
+    private void writeString(String value) throws IOException
+    {
+        out.write('"');
+        int start = 0;
+        for (int i = 0; i < value.length(); i++)
+        {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\')
+                continue;
+            out.write(value, start, i - start);
+            start = i + 1;
+            switch (c)
+            {
+                case '"':
+                    out.write("\\\"");
+                    break;
+                case '\\':
+                    out.write("\\\\");
+                    break;
+                case '\n':
+                    out.write("\\n");
+                    break;
+                case '\r':
+                    out.write("\\r");
+                    break;
+                case '\t':
+                    out.write("\\t");
+                    break;
+                default:
+                    out.write("\\u00");
+                    out.write(HEX[c >> 4]);
+                    out.write(HEX[c & 0xF]);
+                    break;
+            }
+        }
+        out.write(value, start, value.length() - start);
+        out.write('"');
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        out.close();
+    }
+}
@@ -0,0 +1,331 @@
+package org.eclipse.ee4j.tests;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Replays raw {@code GET} requests continuously, for a duration or a number of requests,
+ * and records their latencies in a {@link Histogram} per response status.
+ * <p>
+ * Each of the {@code concurrency} workers has its own keep-alive connection, replaced
+ * when the server closes it. In the closed loop (no rate) a worker sends its next request as
+ * soon as it has the previous response. In the open loop the requests are due at a fixed
+ * rate, whatever the responses, and the latency of a request is measured from when it was
+ * due rather than from when it was sent: so a stalled server is charged for the requests
+ * that were queued behind it (coordinated omission).
+ * </p>
+ * <p>
+ * The requests of the warm-up are sent the same way, but not recorded.
+ * </p>
+ */
+public class LoadGenerator
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoadGenerator.class);
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final InetSocketAddress address;
+    private final List<byte[]> requests;
+
+    /**
+     * @param serverURI the URI of the server, only its scheme and authority are used
+     * @param requestTargets the request targets (absolute paths), sent as is and cycled through in order
+     */
+    public LoadGenerator(URI serverURI, List<String> requestTargets)
+    {
+        if (requestTargets.isEmpty())
+            throw new IllegalArgumentException("No request targets");
+        URI origin = URI.create(serverURI.getScheme() + "://" + serverURI.getRawAuthority());
+        this.address = new InetSocketAddress(serverURI.getHost(), serverURI.getPort());
+        this.requests = new ArrayList<>(requestTargets.size());
+        for (String target : requestTargets)
+        {
+            requests.add(PipelinedHttpEngine.newRequest(origin, target));
+        }
+    }
+
+    /**
+     * @param concurrency the number of workers, each with its own connection
+     * @param rate the requests per second of the open loop, or 0 for a closed loop
+     * @param warmupMillis how long to send requests before recording them
+     * @param durationMillis how long to record requests, or 0 for no limit
+     * @param maxRequests the number of requests to record, or 0 for no limit
+     * @return the throughput and latencies of the recorded requests
+     * @throws IOException if a worker cannot connect to the server
+     */
+    public Report run(int concurrency, double rate, long warmupMillis, long durationMillis, long maxRequests) throws IOException
+    {
+        if (durationMillis <= 0 && maxRequests <= 0)
+            throw new IllegalArgumentException("No duration and no number of requests");
+        Run run = new Run(rate, warmupMillis, durationMillis, maxRequests);
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency, SharedHttpClient.newDaemonThreadFactory("maniacal-load"));
+        List<Future<Map<Integer, Histogram>>> futures = new ArrayList<>();
+        try
+        {
+            for (int i = 0; i < concurrency; i++)
+            {
+                futures.add(executor.submit(run::work));
+            }
+
+            Map<Integer, Histogram> histograms = new TreeMap<>();
+            for (Future<Map<Integer, Histogram>> future : futures)
+            {
+                for (Map.Entry<Integer, Histogram> entry : future.get().entrySet())
+                {
+                    histograms.computeIfAbsent(entry.getKey(), (status) -> new Histogram(SIGNIFICANT_DIGITS)).add(entry.getValue());
+                }
+            }
+            long elapsed = Math.max(0, run.measureEnd.get() - run.measureStart);
+            return new Report(concurrency, rate, elapsed, histograms);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof IOException)
+                throw (IOException)e.getCause();
+            throw new IOException(e.getCause());
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    private class Run
+    {
+        private final long intervalNanos;
+        private final long start;
+        private final long measureStart;
+        private final long durationNanos;
+        private final long maxRequests;
+        private final AtomicLong sequence = new AtomicLong();
+        private final AtomicLong recorded = new AtomicLong();
+        private final AtomicLong measureEnd = new AtomicLong();
+
+        private Run(double rate, long warmupMillis, long durationMillis, long maxRequests)
+        {
+            this.intervalNanos = rate > 0 ? Math.max(1, (long)(1_000_000_000D / rate)) : 0;
+            this.start = System.nanoTime();
+            this.measureStart = start + TimeUnit.MILLISECONDS.toNanos(warmupMillis);
+            this.durationNanos = TimeUnit.MILLISECONDS.toNanos(durationMillis);
+            this.maxRequests = maxRequests > 0 ? maxRequests : Long.MAX_VALUE;
+        }
+
+        private Map<Integer, Histogram> work() throws IOException
+        {
+            Map<Integer, Histogram> histograms = new TreeMap<>();
+            Connection connection = null;
+            try
+            {
+                while (true)
+                {
+                    long seq = sequence.getAndIncrement();
+                    long due;
+                    if (intervalNanos > 0)
+                    {
+                        due = start + seq * intervalNanos;
+                        if (isOver(due))
+                            break;
+                        long wait;
+                        while ((wait = due - System.nanoTime()) > 0)
+                        {
+                            LockSupport.parkNanos(wait);
+                        }
+                    }
+                    else
+                    {
+                        due = System.nanoTime();
+                        if (isOver(due))
+                            break;
+                    }
+                    boolean record = due - measureStart >= 0;
+                    if (record && recorded.getAndIncrement() >= maxRequests)
+                        break;
+
+                    if (connection == null)
+                        connection = new Connection(address);
+                    int status;
+                    try
+                    {
+                        status = connection.send(requests.get((int)(seq % requests.size())));
+                        if (connection.isClose())
+                        {
+                            connection.close();
+                            connection = null;
+                        }
+                    }
+                    catch (IOException e)
+                    {
+                        LOGGER.debug("Request failed", e);
+                        connection.close();
+                        connection = null;
+                        status = -1;
+                    }
+                    long now = System.nanoTime();
+                    if (record)
+                    {
+                        histograms.computeIfAbsent(status, (s) -> new Histogram(SIGNIFICANT_DIGITS))
+                            .recordValue(Math.max(0, TimeUnit.NANOSECONDS.toMicros(now - due)));
+                        measureEnd.accumulateAndGet(now, Math::max);
+                    }
+                }
+            }
+            finally
+            {
+                if (connection != null)
+                    connection.close();
+            }
+            return histograms;
+        }
+
+        private boolean isOver(long due)
+        {
+            return durationNanos > 0 && due - measureStart >= durationNanos;
+        }
+    }
+
+    private static class Connection
+    {
+        private final Socket socket;
+        private final OutputStream out;
+        private final InputStream in;
+        private final HttpResponseParser parser = new HttpResponseParser();
+
+        private Connection(InetSocketAddress address) throws IOException
+        {
+            socket = new Socket();
+            socket.setTcpNoDelay(true);
+            socket.connect(address);
+            out = socket.getOutputStream();
+            in = socket.getInputStream();
+        }
+
+        /**
+         * @return the status of the response, whose headers and body are parsed but not kept
+         */
+        private int send(byte[] request) throws IOException
+        {
+            out.write(request);
+            out.flush();
+            parser.reset(false);
+            if (!parser.read(in))
+                throw new IOException("Connection closed before the response");
+            return parser.getStatus();
+        }
+
+        /**
+         * @return true if the connection cannot carry another request after the last response
+         */
+        private boolean isClose()
+        {
+            return parser.isClose();
+        }
+
+        private void close() throws IOException
+        {
+            socket.close();
+        }
+    }
+
+    public static class Report
+    {
+        private final int concurrency;
+        private final double rate;
+        private final long elapsedNanos;
+        private final Map<Integer, Histogram> histograms;
+        private final Histogram total;
+
+        private Report(int concurrency, double rate, long elapsedNanos, Map<Integer, Histogram> histograms)
+        {
+            this.concurrency = concurrency;
+            this.rate = rate;
+            this.elapsedNanos = elapsedNanos;
+            this.histograms = histograms;
+            this.total = new Histogram(SIGNIFICANT_DIGITS);
+            for (Histogram histogram : histograms.values())
+            {
+                total.add(histogram);
+            }
+        }
+
+        public long getRequests()
+        {
+            return total.getTotalCount();
+        }
+
+        public long getElapsedNanos()
+        {
+            return elapsedNanos;
+        }
+
+        /**
+         * @return the recorded requests per second
+         */
+        public double getThroughput()
+        {
+            return getRequests() * 1_000_000_000D / Math.max(1, elapsedNanos);
+        }
+
+        /**
+         * @return the latencies (in microseconds) of every recorded request
+         */
+        public Histogram getLatencies()
+        {
+            return total;
+        }
+
+        /**
+         * @return the latencies (in microseconds) per response status, {@code -1} for the requests without a response
+         */
+        public Map<Integer, Histogram> getLatenciesByStatus()
+        {
+            return histograms;
+        }
+
+        @Override
+        public String toString()
+        {
+            StringBuilder report = new StringBuilder();
+            report.append(String.format(Locale.ROOT, "%d requests in %d ms (%.0f req/s), %d workers, %s%n",
+                getRequests(), TimeUnit.NANOSECONDS.toMillis(elapsedNanos), getThroughput(), concurrency,
+                rate > 0 ? String.format(Locale.ROOT, "open loop at %.0f req/s", rate) : "closed loop"));
+            report.append(String.format(Locale.ROOT, "%8s %10s %10s %10s %10s %10s%n", "status", "count", "p50 ms", "p99 ms", "p99.9 ms", "max ms"));
+            for (Map.Entry<Integer, Histogram> entry : histograms.entrySet())
+            {
+                appendRow(report, entry.getKey().toString(), entry.getValue());
+            }
+            appendRow(report, "all", total);
+            return report.toString();
+        }
+
+        private static void appendRow(StringBuilder report, String status, Histogram histogram)
+        {
+            report.append(String.format(Locale.ROOT, "%8s %10d %10.3f %10.3f %10.3f %10.3f%n", status, histogram.getTotalCount(),
+                histogram.getValueAtPercentile(50) / 1000D, histogram.getValueAtPercentile(99) / 1000D,
+                histogram.getValueAtPercentile(99.9) / 1000D, histogram.getMaxValue() / 1000D));
+        }
+    }
+}
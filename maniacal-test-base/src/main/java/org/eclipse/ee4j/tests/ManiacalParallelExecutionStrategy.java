@@ -0,0 +1,59 @@
+package org.eclipse.ee4j.tests;
+
+import org.junit.platform.engine.ConfigurationParameters;
+import org.junit.platform.engine.support.hierarchical.ParallelExecutionConfiguration;
+import org.junit.platform.engine.support.hierarchical.ParallelExecutionConfigurationStrategy;
+
+/**
+ * Sizes the JUnit parallel execution from {@link TestSettings#PARALLELISM}, so that one
+ * property controls the concurrency of every suite.
+ * <p>
+ * Enabled in a container module with a {@code junit-platform.properties} of
+ * </p>
+ * <pre>
+ * junit.jupiter.execution.parallel.enabled=true
+ * junit.jupiter.execution.parallel.config.strategy=custom
+ * junit.jupiter.execution.parallel.config.custom.class=org.eclipse.ee4j.tests.ManiacalParallelExecutionStrategy
+ * </pre>
+ */
+public class ManiacalParallelExecutionStrategy implements ParallelExecutionConfigurationStrategy
+{
+    @Override
+    public ParallelExecutionConfiguration createConfiguration(ConfigurationParameters configurationParameters)
+    {
+        int parallelism = TestSettings.getParallelism();
+        return new ParallelExecutionConfiguration()
+        {
+            @Override
+            public int getParallelism()
+            {
+                return parallelism;
+            }
+
+            @Override
+            public int getMinimumRunnable()
+            {
+                return parallelism;
+            }
+
+            @Override
+            public int getMaxPoolSize()
+            {
+                // the test cases block on network I/O, leave room for compensating threads
+                return parallelism + 256;
+            }
+
+            @Override
+            public int getCorePoolSize()
+            {
+                return parallelism;
+            }
+
+            @Override
+            public int getKeepAliveSeconds()
+            {
+                return 30;
+            }
+        };
+    }
+}
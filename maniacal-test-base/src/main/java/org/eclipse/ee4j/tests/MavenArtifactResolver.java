@@ -1,10 +1,15 @@
 package org.eclipse.ee4j.tests;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.maven.repository.internal.MavenRepositorySystemUtils;
 import org.eclipse.aether.AbstractRepositoryListener;
@@ -24,18 +29,65 @@ import org.eclipse.aether.resolution.ArtifactResult;
 import org.eclipse.aether.spi.connector.RepositoryConnectorFactory;
 import org.eclipse.aether.spi.connector.transport.TransporterFactory;
 import org.eclipse.aether.transfer.AbstractTransferListener;
+import org.eclipse.aether.transfer.ArtifactNotFoundException;
 import org.eclipse.aether.transport.file.FileTransporterFactory;
 import org.eclipse.aether.transport.http.HttpTransporterFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Resolve the artifacts under test (the webapp war) to files.
+ * <p>
+ * The repository system and its session are created once per resolver, and the resolved
+ * coordinates are remembered, so only the first resolution pays for them. With
+ * {@link TestSettings#MAVEN_OFFLINE} the artifacts are only looked for in the
+ * {@link TestSettings#ARTIFACT_DIRECTORY} and then the local repository, without the repository
+ * system at all, and never downloaded.
+ * </p>
+ */
 public class MavenArtifactResolver
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(MavenArtifactResolver.class);
+    private static final String BUILD_PROPERTIES = "maniacal-build.properties";
+    private static MavenArtifactResolver shared;
 
     private final Map<String, String> mavenRemoteRepositories = new HashMap<>();
-    private String testBaseVersion = "1.0-SNAPSHOT"; // TODO: handle this intelligently
+    private final Map<String, File> resolved = new ConcurrentHashMap<>();
+    private String testBaseVersion = getBuildVersion();
     private String mavenLocalRepository = System.getProperty("mavenRepoPath", System.getProperty("user.home") + "/.m2/repository");
+    private boolean offline = TestSettings.isMavenOffline();
+    private File artifactDirectory = TestSettings.getArtifactDirectory();
+    private RepositorySystem repositorySystem;
+    private RepositorySystemSession session;
+
+    /**
+     * @return a resolver for the whole JVM, so that the test classes share its session and resolved artifacts
+     */
+    public static synchronized MavenArtifactResolver get()
+    {
+        if (shared == null)
+            shared = new MavenArtifactResolver();
+        return shared;
+    }
+
+    /**
+     * @return the version of this build of the suite, which is the version of the webapp under test
+     */
+    public static String getBuildVersion()
+    {
+        Properties properties = new Properties();
+        try (InputStream in = MavenArtifactResolver.class.getResourceAsStream(BUILD_PROPERTIES))
+        {
+            if (in == null)
+                throw new IllegalStateException("No " + BUILD_PROPERTIES + " next to " + MavenArtifactResolver.class.getName());
+            properties.load(in);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        return properties.getProperty("version");
+    }
 
     public String getMavenLocalRepository()
     {
@@ -47,26 +99,102 @@ public class MavenArtifactResolver
         this.testBaseVersion = version;
     }
 
+    /**
+     * @param offline true to only look for artifacts in the artifact directory and the local repository
+     */
+    public synchronized void setOffline(boolean offline)
+    {
+        this.offline = offline;
+        resolved.clear();
+    }
+
+    /**
+     * @param artifactDirectory a directory of artifacts (named {@code <artifactId>-<version>[-<classifier>].<extension>})
+     * looked into before the repositories, or null for none
+     */
+    public synchronized void setArtifactDirectory(File artifactDirectory)
+    {
+        this.artifactDirectory = artifactDirectory;
+        resolved.clear();
+    }
+
     public File resolveTestWarFile() throws ArtifactResolutionException
     {
         return resolveArtifact("org.eclipse.ee4j.tests:maniacal-webapp:war:" + testBaseVersion);
     }
 
+    /**
+     * @param coordinates {@code <groupId>:<artifactId>[:<extension>[:<classifier>]]:<version>}
+     * @return the file of the artifact
+     * @throws ArtifactResolutionException if the artifact cannot be found
+     */
     public File resolveArtifact(String coordinates) throws ArtifactResolutionException
     {
-        RepositorySystem repositorySystem = newRepositorySystem();
+        File file = resolved.get(coordinates);
+        if (file != null && file.isFile())
+            return file;
 
+        long start = System.nanoTime();
         Artifact artifact = new DefaultArtifact(coordinates);
+        file = findLocal(artifact);
+        if (file == null)
+        {
+            if (isOffline())
+            {
+                ArtifactRequest artifactRequest = new ArtifactRequest(artifact, List.of(), null);
+                ArtifactResult artifactResult = new ArtifactResult(artifactRequest);
+                artifactResult.addException(new ArtifactNotFoundException(artifact, null,
+                    "Offline, and not in " + (artifactDirectory == null ? "" : artifactDirectory + " or ") + mavenLocalRepository));
+                throw new ArtifactResolutionException(List.of(artifactResult));
+            }
 
-        RepositorySystemSession session = newRepositorySystemSession(repositorySystem);
+            ArtifactRequest artifactRequest = new ArtifactRequest();
+            artifactRequest.setArtifact(artifact);
+            artifactRequest.setRepositories(newRepositories());
+            ArtifactResult artifactResult;
+            synchronized (this)
+            {
+                if (repositorySystem == null)
+                {
+                    repositorySystem = newRepositorySystem();
+                    session = newRepositorySystemSession(repositorySystem);
+                }
+                artifactResult = repositorySystem.resolveArtifact(session, artifactRequest);
+            }
+            file = artifactResult.getArtifact().getFile();
+        }
+        LOGGER.debug("{} resolved to {} in {} ms", coordinates, file, (System.nanoTime() - start) / 1_000_000);
+        resolved.put(coordinates, file);
+        return file;
+    }
 
-        ArtifactRequest artifactRequest = new ArtifactRequest();
-        artifactRequest.setArtifact(artifact);
-        artifactRequest.setRepositories(newRepositories());
-        ArtifactResult artifactResult = repositorySystem.resolveArtifact(session, artifactRequest);
+    private synchronized boolean isOffline()
+    {
+        return offline;
+    }
 
-        artifact = artifactResult.getArtifact();
-        return artifact.getFile();
+    /**
+     * @return the file of the artifact in the artifact directory, or (offline only) in the local
+     * repository, or null if it is not there
+     */
+    private synchronized File findLocal(Artifact artifact)
+    {
+        String classifier = artifact.getClassifier().isEmpty() ? "" : "-" + artifact.getClassifier();
+        String fileName = artifact.getArtifactId() + "-" + artifact.getVersion() + classifier + "." + artifact.getExtension();
+        if (artifactDirectory != null)
+        {
+            File file = new File(artifactDirectory, fileName);
+            if (file.isFile())
+                return file;
+        }
+        if (offline)
+        {
+            // the layout of a local repository, which is all that the repository system would look at offline
+            File file = new File(mavenLocalRepository, artifact.getGroupId().replace('.', '/') + "/" + artifact.getArtifactId() + "/" + artifact.getBaseVersion() + "/" + fileName);
+            if (file.isFile())
+                return file;
+        }
+        return null;
     }
 
     private RepositorySystem newRepositorySystem()
@@ -0,0 +1,221 @@
+package org.eclipse.ee4j.tests;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * The index of the {@code META-INF/resources} entries of the resource jars
+ * ({@code metainf-resources-encoding} and {@code metainf-resources-slosh}), built once per JVM
+ * on first use.
+ * <p>
+ * The index is built from the central directory of each jar, so it costs no read of the entries:
+ * an {@link Entry} holds the raw name, its encoded form and the CRC-32 of its contents,
+ * and the contents themselves are only read when asked for.
+ * </p>
+ */
+public class MetaInfResourceIndex
+{
+    /**
+     * The resources that mark the resource jars, one per top level directory of {@code META-INF/resources}.
+     */
+    private static final String[] MARKER_RESOURCES = {
+        "META-INF/resources/encoding/exists.txt",
+        "META-INF/resources/slosh/exists.txt"
+    };
+    private static final String PREFIX = "META-INF/resources/";
+
+    private final Map<String, List<Entry>> entriesByDirectory;
+    private final List<Entry> entries;
+
+    private MetaInfResourceIndex(Map<String, List<Entry>> entriesByDirectory)
+    {
+        this.entriesByDirectory = entriesByDirectory;
+        List<Entry> all = new ArrayList<>();
+        entriesByDirectory.values().forEach(all::addAll);
+        this.entries = Collections.unmodifiableList(all);
+    }
+
+    private static class Holder
+    {
+        private static final MetaInfResourceIndex INSTANCE = build();
+    }
+
+    /**
+     * @return the index, built by the first caller
+     * @throws UncheckedIOException if a resource jar cannot be found or read
+     */
+    public static MetaInfResourceIndex get()
+    {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * @return every file entry of every resource jar, jar by jar, each sorted by raw path
+     */
+    public List<Entry> getEntries()
+    {
+        return entries;
+    }
+
+    /**
+     * @param directory the top level directory of {@code META-INF/resources}, eg: {@code encoding}
+     * @return the file entries of the resource jar with that directory, sorted by raw path
+     * @throws IllegalArgumentException if there is no such resource jar
+     */
+    public List<Entry> getEntries(String directory)
+    {
+        List<Entry> result = entriesByDirectory.get(directory);
+        if (result == null)
+            throw new IllegalArgumentException("No resource jar for " + directory + ", only " + entriesByDirectory.keySet());
+        return result;
+    }
+
+    private static MetaInfResourceIndex build()
+    {
+        Map<String, List<Entry>> entriesByDirectory = new LinkedHashMap<>();
+        for (String resourceName : MARKER_RESOURCES)
+        {
+            URL url = MetaInfResourceIndex.class.getClassLoader().getResource(resourceName);
+            if (url == null)
+                throw new IllegalStateException("Unable to find " + resourceName);
+            String directory = resourceName.substring(PREFIX.length(), resourceName.lastIndexOf('/'));
+            entriesByDirectory.put(directory, Collections.unmodifiableList(index(url)));
+        }
+        return new MetaInfResourceIndex(entriesByDirectory);
+    }
+
+    private static List<Entry> index(URL url)
+    {
+        String deepClassRef = url.toExternalForm();
+        int deepRefIdx = deepClassRef.indexOf("!/");
+        File jarFile;
+        try
+        {
+            // jar:file:/path/to/resources.jar!/META-INF/resources/...
+            jarFile = new File(new URI(deepClassRef.substring("jar:".length(), deepRefIdx)));
+        }
+        catch (URISyntaxException | RuntimeException e)
+        {
+            throw new IllegalStateException("Not a resource in a jar file: " + url, e);
+        }
+
+        // the jar stays open for the life of the JVM, to load the contents on demand
+        ZipFile zipFile;
+        try
+        {
+            zipFile = new ZipFile(jarFile, UTF_8);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException("Unable to open " + jarFile, e);
+        }
+
+        List<Entry> result = new ArrayList<>();
+        Enumeration<? extends ZipEntry> zipEntries = zipFile.entries();
+        while (zipEntries.hasMoreElements())
+        {
+            ZipEntry zipEntry = zipEntries.nextElement();
+            if (zipEntry.isDirectory() || !zipEntry.getName().startsWith(PREFIX))
+                continue;
+            String name = zipEntry.getName();
+            result.add(new Entry(name.substring(PREFIX.length()), zipEntry.getCrc(), zipEntry.getSize(), () ->
+            {
+                try (InputStream in = zipFile.getInputStream(zipFile.getEntry(name)))
+                {
+                    return new String(in.readAllBytes(), UTF_8);
+                }
+                catch (IOException e)
+                {
+                    throw new UncheckedIOException("Unable to read " + name + " from " + jarFile, e);
+                }
+            }));
+        }
+        result.sort(Comparator.comparing(Entry::getRawPath));
+        return result;
+    }
+
+    /**
+     * A file of {@code META-INF/resources}.
+     */
+    public static class Entry
+    {
+        private final String rawPath;
+        private final String encodedPath;
+        private final long crc;
+        private final long size;
+        private final Supplier<String> contents;
+
+        /**
+         * @param rawPath the path relative to {@code META-INF/resources}, as it exists in the jar
+         * @param crc the CRC-32 of the contents
+         * @param size the size of the contents, in bytes
+         * @param contents the loader of the contents, called on every {@link #getContents()}
+         */
+        public Entry(String rawPath, long crc, long size, Supplier<String> contents)
+        {
+            this.rawPath = rawPath;
+            this.encodedPath = EncodeUtils.encodeJavaPathToUriPath(rawPath);
+            this.crc = crc;
+            this.size = size;
+            this.contents = contents;
+        }
+
+        public String getRawPath()
+        {
+            return rawPath;
+        }
+
+        /**
+         * @return the raw path as encoded by {@link EncodeUtils#encodeJavaPathToUriPath(String)}
+         */
+        public String getEncodedPath()
+        {
+            return encodedPath;
+        }
+
+        /**
+         * @return the CRC-32 of the contents, from the jar's central directory
+         */
+        public long getCrc()
+        {
+            return crc;
+        }
+
+        public long getSize()
+        {
+            return size;
+        }
+
+        /**
+         * @return the contents, read (as UTF-8) on each call rather than held by the index
+         * @throws UncheckedIOException if the contents cannot be read
+         */
+        public String getContents()
+        {
+            return contents.get();
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s[%s, crc=%08x, size=%d]", getClass().getSimpleName(), rawPath, crc, size);
+        }
+    }
+}
@@ -0,0 +1,374 @@
+package org.eclipse.ee4j.tests;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpURI;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http.MetaData;
+import org.eclipse.jetty.http2.ErrorCode;
+import org.eclipse.jetty.http2.api.Session;
+import org.eclipse.jetty.http2.api.Stream;
+import org.eclipse.jetty.http2.client.HTTP2Client;
+import org.eclipse.jetty.http2.frames.DataFrame;
+import org.eclipse.jetty.http2.frames.GoAwayFrame;
+import org.eclipse.jetty.http2.frames.HeadersFrame;
+import org.eclipse.jetty.http2.frames.ResetFrame;
+import org.eclipse.jetty.http2.frames.SettingsFrame;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.Promise;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Sends {@code GET} requests as the streams of one HTTP/2 cleartext connection (with prior
+ * knowledge, no upgrade), with the request target as the {@code :path} exactly as given.
+ * <p>
+ * HPACK strings are octets, so the {@code :path} carries the UTF-8 bytes of the request target,
+ * the same bytes as the request line of the {@link PipelinedHttpEngine}. The requests are
+ * multiplexed up to the {@code SETTINGS_MAX_CONCURRENT_STREAMS} of the server.
+ * </p>
+ * <p>
+ * The server sends {@code GOAWAY} and closes the connection after a request it cannot parse (as it
+ * closes an HTTP/1.1 connection after a {@code 400}), losing the responses of the other streams in
+ * flight. The {@code GOAWAY} is the {@link RawResponse#failed(Throwable) failed} response of the first
+ * stream after its last stream id, the one the server could not parse. No more streams are opened on
+ * the connection, and as the requests are {@code GET}s, the ones without a response are sent again on
+ * a new connection. If a connection gets no response at all, the first request is sent alone: if it
+ * gets no response alone on a connection either, it is reported as a failed response.
+ * </p>
+ */
+public class MultiplexedHttpEngine
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(MultiplexedHttpEngine.class);
+    private static final int DEFAULT_MAX_STREAMS = 128;
+    private static final long TIMEOUT_SECONDS = 60;
+
+    private final URI baseURI;
+    private final int maxConcurrentStreams;
+
+    public MultiplexedHttpEngine(URI baseURI)
+    {
+        this(baseURI, DEFAULT_MAX_STREAMS);
+    }
+
+    /**
+     * @param baseURI the URI that the request targets are appended to (its raw path, as is)
+     * @param maxConcurrentStreams the most streams open at once, lowered to the maximum of the server
+     */
+    public MultiplexedHttpEngine(URI baseURI, int maxConcurrentStreams)
+    {
+        this.baseURI = baseURI;
+        this.maxConcurrentStreams = Math.max(1, maxConcurrentStreams);
+    }
+
+    /**
+     * @param baseURI the URI of the server, and the raw path prefix of the request target
+     * @param pathToRequest the rest of the request target, as is
+     * @return the request of a stream, with the UTF-8 bytes of the request target as the {@code :path}
+     */
+    public static MetaData.Request newRequest(URI baseURI, String pathToRequest)
+    {
+        String path = new String((baseURI.getRawPath() + pathToRequest).getBytes(UTF_8), ISO_8859_1);
+        HttpURI uri = HttpURI.build()
+            .scheme(baseURI.getScheme())
+            .host(baseURI.getHost())
+            .port(baseURI.getPort())
+            .path(path);
+        return new MetaData.Request("GET", uri, HttpVersion.HTTP_2, HttpFields.EMPTY);
+    }
+
+    /**
+     * @param pathsToRequest the paths to request, appended as is to the raw path of the base URI
+     * @return the responses, in the order of the paths
+     * @throws IOException if the connection to the server cannot be established
+     */
+    public List<RawResponse> execute(List<String> pathsToRequest) throws IOException
+    {
+        RawResponse[] responses = new RawResponse[pathsToRequest.size()];
+        HTTP2Client client = new HTTP2Client();
+        // large windows, so that flow control does not throttle the multiplexed responses
+        client.setInitialSessionRecvWindow(16 * 1024 * 1024);
+        client.setInitialStreamRecvWindow(1024 * 1024);
+        try
+        {
+            client.start();
+            List<Integer> pending = new ArrayList<>(responses.length);
+            for (int i = 0; i < responses.length; i++)
+            {
+                pending.add(i);
+            }
+            while (!pending.isEmpty())
+            {
+                List<Integer> retry = runSession(client, pathsToRequest, pending, responses);
+                if (retry.size() == pending.size())
+                {
+                    // alone on a connection, the first request shows whether it is the one the server fails on
+                    runSession(client, pathsToRequest, retry.subList(0, 1), responses);
+                    retry.remove(0);
+                }
+                pending = retry;
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        }
+        catch (ExecutionException | TimeoutException e)
+        {
+            throw new IOException("Unable to connect to " + baseURI, e);
+        }
+        catch (IOException e)
+        {
+            throw e;
+        }
+        catch (Exception e)
+        {
+            throw new IOException(e);
+        }
+        finally
+        {
+            stop(client);
+        }
+        return Arrays.asList(responses);
+    }
+
+    /**
+     * Send the pending requests on a new connection, until the server sends {@code GOAWAY}, and record
+     * their responses (or failures).
+     *
+     * @return the requests to send again: not sent, or without a response, in order
+     */
+    private List<Integer> runSession(HTTP2Client client, List<String> pathsToRequest, List<Integer> pending, RawResponse[] responses)
+        throws IOException, InterruptedException, ExecutionException, TimeoutException
+    {
+        SessionListener sessionListener = new SessionListener();
+        Session session = client.connect(new InetSocketAddress(baseURI.getHost(), baseURI.getPort()), sessionListener).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        int streams = Math.min(maxConcurrentStreams, sessionListener.maxStreams.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        LOGGER.debug("{} requests on {} concurrent streams", pending.size(), streams);
+
+        Semaphore permits = new Semaphore(streams);
+        CountDownLatch done = new CountDownLatch(pending.size());
+        List<StreamListener> listeners = new ArrayList<>(pending.size());
+        List<Integer> retry = new ArrayList<>();
+        for (int index : pending)
+        {
+            if (!sessionListener.closing && !permits.tryAcquire(TIMEOUT_SECONDS, TimeUnit.SECONDS))
+                throw new IOException("Timeout waiting for a stream, " + done.getCount() + " responses pending");
+            if (sessionListener.closing)
+            {
+                // not sent
+                retry.add(index);
+                done.countDown();
+                continue;
+            }
+            StreamListener listener = new StreamListener(index, permits, done);
+            listeners.add(listener);
+            sessionListener.streams.add(listener);
+            HeadersFrame headers = new HeadersFrame(newRequest(baseURI, pathsToRequest.get(index)), null, true);
+            session.newStream(headers, new Promise<>()
+            {
+                @Override
+                public void succeeded(Stream stream)
+                {
+                    listener.id = stream.getId();
+                }
+
+                @Override
+                public void failed(Throwable x)
+                {
+                    listener.complete(RawResponse.failed(x), true);
+                }
+            }, listener);
+        }
+        if (!done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS))
+            throw new IOException("Timeout waiting for " + done.getCount() + " responses");
+        session.close(0, null, Callback.NOOP);
+
+        for (StreamListener listener : listeners)
+        {
+            responses[listener.index] = listener.response;
+            if (listener.retry)
+                retry.add(listener.index);
+        }
+        if (sessionListener.closing)
+            LOGGER.debug("Closed by the server (GOAWAY after stream {}), {} requests to send again", sessionListener.lastStreamId, retry.size());
+        Collections.sort(retry);
+        return retry;
+    }
+
+    private static void stop(HTTP2Client client)
+    {
+        try
+        {
+            client.stop();
+        }
+        catch (Exception e)
+        {
+            LOGGER.debug("Unable to stop the HTTP/2 client", e);
+        }
+    }
+
+    private static class SessionListener extends Session.Listener.Adapter
+    {
+        private final CompletableFuture<Integer> maxStreams = new CompletableFuture<>();
+        private final List<StreamListener> streams = new CopyOnWriteArrayList<>();
+        // no more streams are opened once the server sent GOAWAY or closed the connection
+        private volatile boolean closing;
+        // the last stream processed according to the GOAWAY of the server, if any
+        private volatile int lastStreamId = -1;
+
+        @Override
+        public void onSettings(Session session, SettingsFrame frame)
+        {
+            maxStreams.complete(frame.getSettings().getOrDefault(SettingsFrame.MAX_CONCURRENT_STREAMS, Integer.MAX_VALUE));
+        }
+
+        @Override
+        public void onGoAway(Session session, GoAwayFrame frame)
+        {
+            lastStreamId = frame.getLastStreamId();
+            closing = true;
+            // after an error, the server could not process the first stream after the last one it processed
+            StreamListener failed = null;
+            if (frame.getError() != ErrorCode.NO_ERROR.code)
+            {
+                for (StreamListener stream : streams)
+                {
+                    int id = stream.id;
+                    if (id > lastStreamId && (failed == null || id < failed.id))
+                        failed = stream;
+                }
+            }
+            if (failed != null)
+                failed.complete(RawResponse.failed(new IOException("GOAWAY after stream " + lastStreamId + ": " + frame.tryConvertPayload())), false);
+            // the server did not process the later streams, their requests are sent again right away
+            for (StreamListener stream : streams)
+            {
+                int id = stream.id;
+                if (id == 0 || id > lastStreamId)
+                    stream.complete(RawResponse.failed(new IOException("Not processed before the GOAWAY after stream " + lastStreamId)), true);
+            }
+        }
+
+        @Override
+        public void onClose(Session session, GoAwayFrame frame)
+        {
+            failStreams(new IOException("Session closed"));
+        }
+
+        @Override
+        public void onFailure(Session session, Throwable failure)
+        {
+            failStreams(failure);
+        }
+
+        private void failStreams(Throwable failure)
+        {
+            // the GOAWAY can be lost, when the server closes the connection with requests still unread
+            closing = true;
+            // the streams that were not notified of the end of the session
+            for (StreamListener stream : streams)
+            {
+                stream.complete(RawResponse.failed(failure), true);
+            }
+        }
+    }
+
+    private static class StreamListener extends Stream.Listener.Adapter
+    {
+        private final int index;
+        private final Semaphore permits;
+        private final CountDownLatch done;
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        private final List<String[]> headers = new ArrayList<>();
+        private int status;
+        // the id of the stream, once opened
+        private volatile int id;
+        private RawResponse response;
+        // true if the request is to be sent again, as it failed with the connection
+        private boolean retry;
+
+        private StreamListener(int index, Semaphore permits, CountDownLatch done)
+        {
+            this.index = index;
+            this.permits = permits;
+            this.done = done;
+        }
+
+        @Override
+        public void onHeaders(Stream stream, HeadersFrame frame)
+        {
+            if (frame.getMetaData() instanceof MetaData.Response)
+            {
+                MetaData.Response response = (MetaData.Response)frame.getMetaData();
+                // skip the interim (1xx) responses
+                if (response.getStatus() >= 200)
+                {
+                    status = response.getStatus();
+                    for (HttpField field : response.getFields())
+                    {
+                        headers.add(new String[]{field.getName(), field.getValue()});
+                    }
+                }
+            }
+            if (frame.isEndStream())
+                complete(RawResponse.http2(status, headers, body.toByteArray()), false);
+        }
+
+        @Override
+        public void onData(Stream stream, DataFrame frame, Callback callback)
+        {
+            ByteBuffer data = frame.getData();
+            byte[] bytes = new byte[data.remaining()];
+            data.get(bytes);
+            body.write(bytes, 0, bytes.length);
+            callback.succeeded();
+            if (frame.isEndStream())
+                complete(RawResponse.http2(status, headers, body.toByteArray()), false);
+        }
+
+        @Override
+        public void onReset(Stream stream, ResetFrame frame)
+        {
+            complete(RawResponse.failed(new IOException("Stream reset, error " + frame.getError())), true);
+        }
+
+        @Override
+        public void onFailure(Stream stream, int error, String reason, Throwable failure, Callback callback)
+        {
+            complete(RawResponse.failed(failure != null ? failure : new IOException("Stream failed, error " + error + ": " + reason)), true);
+            callback.succeeded();
+        }
+
+        private synchronized void complete(RawResponse response, boolean retry)
+        {
+            if (this.response != null)
+                return;
+            this.response = response;
+            this.retry = retry;
+            permits.release();
+            done.countDown();
+        }
+    }
+}
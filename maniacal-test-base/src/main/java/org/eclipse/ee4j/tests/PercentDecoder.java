@@ -0,0 +1,277 @@
+package org.eclipse.ee4j.tests;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Incremental decoder of percent-encoded ({@code %XX}) bytes.
+ * <p>
+ * The input can be fed in arbitrary chunks, such as the buffers read from the network,
+ * and an escape split across chunks (a trailing {@code %}, or {@code %} and one hex digit)
+ * is carried over to the next call.
+ * </p>
+ * <p>
+ * Malformed escapes (eg: {@code this_is_100%_valid.txt} or {@code 50%-of-precincts})
+ * never throw: they are passed through to the output unchanged, and their position
+ * is reported to the {@link MalformedListener}.
+ * </p>
+ * <p>
+ * An instance is not thread safe, use one per stream of input.
+ * </p>
+ */
+public class PercentDecoder
+{
+    public interface MalformedListener
+    {
+        /**
+         * @param offset the offset of the {@code %} of the malformed escape,
+         * counted from the first byte given to the decoder since it was created or reset.
+         */
+        void onMalformedEscape(long offset);
+    }
+
+    private static final MalformedListener IGNORE = (offset) ->
+    {
+        // ignore
+    };
+
+    private static final int STATE_TEXT = 0;
+    private static final int STATE_PERCENT = 1;
+    private static final int STATE_HEX = 2;
+
+    private final MalformedListener listener;
+    private int state = STATE_TEXT;
+    // the raw first hex digit of an escape, while in STATE_HEX
+    private byte hexDigit;
+    // the number of bytes consumed so far
+    private long offset;
+    // the offset of the '%' of the current escape
+    private long escapeOffset;
+    private long malformedCount;
+    // decoded bytes that did not have room in the output yet
+    private byte[] pending = new byte[4];
+    private int pendingHead;
+    private int pendingCount;
+
+    public PercentDecoder()
+    {
+        this(IGNORE);
+    }
+
+    public PercentDecoder(MalformedListener listener)
+    {
+        this.listener = listener;
+    }
+
+    /**
+     * Decode bytes from {@code in} to {@code out}, until {@code in} is empty or {@code out} is full.
+     *
+     * @param in the encoded bytes, its position is moved past the bytes consumed
+     * @param out the buffer for the decoded bytes, its position is moved past the bytes written
+     */
+    public void decode(ByteBuffer in, ByteBuffer out)
+    {
+        out.position(decode(in, out, out.position(), false));
+    }
+
+    /**
+     * Decode the bytes between the position and the limit of the buffer, in place.
+     * <p>
+     * On return the buffer position is unchanged and its limit is the end of the decoded bytes.
+     * Decoded bytes that had no room (only possible when an escape carried over from the previous
+     * chunk turns out to be malformed) are kept, and come out first on the next call or on {@link #finish(ByteBuffer)}.
+     * </p>
+     *
+     * @param buffer the encoded bytes, replaced by the decoded bytes
+     */
+    public void decodeInPlace(ByteBuffer buffer)
+    {
+        int start = buffer.position();
+        int end = decode(buffer, buffer, start, true);
+        buffer.limit(end);
+        buffer.position(start);
+    }
+
+    /**
+     * Signal the end of the input, flushing any incomplete escape (reported as malformed)
+     * and any decoded bytes still kept.
+     *
+     * @param out the buffer for the remaining decoded bytes
+     * @return true if everything was flushed, false if {@code out} was too small and finish needs to be called again
+     */
+    public boolean finish(ByteBuffer out)
+    {
+        if (state != STATE_TEXT)
+        {
+            malformed();
+            enqueue((byte)'%');
+            if (state == STATE_HEX)
+                enqueue(hexDigit);
+            state = STATE_TEXT;
+        }
+        while (pendingCount > 0 && out.hasRemaining())
+        {
+            out.put(pending[pendingHead++]);
+            pendingCount--;
+        }
+        if (pendingCount == 0)
+            pendingHead = 0;
+        return pendingCount == 0;
+    }
+
+    /**
+     * Make the decoder ready for a new stream of input.
+     */
+    public void reset()
+    {
+        state = STATE_TEXT;
+        offset = 0;
+        malformedCount = 0;
+        pendingHead = 0;
+        pendingCount = 0;
+    }
+
+    /**
+     * @return the number of malformed escapes found since the decoder was created or reset
+     */
+    public long getMalformedCount()
+    {
+        return malformedCount;
+    }
+
+    /**
+     * Moves the position of {@code in} past the bytes consumed, but leaves the position of {@code out} alone.
+     *
+     * @return the index in {@code out} after the last byte written
+     */
+    private int decode(ByteBuffer in, ByteBuffer out, int outIndex, boolean inPlace)
+    {
+        int r = in.position();
+        int end = in.limit();
+        int w = outIndex;
+        // in place the writes can never overtake the reads
+        int wEnd = inPlace ? r : out.limit();
+
+        while (true)
+        {
+            // drain what could not be written before
+            while (pendingCount > 0 && w < wEnd)
+            {
+                out.put(w++, pending[pendingHead++]);
+                pendingCount--;
+            }
+            if (pendingCount == 0)
+                pendingHead = 0;
+            else if (!inPlace)
+                break; // out is full
+
+            if (r == end)
+                break;
+
+            byte b = in.get(r++);
+            offset++;
+            if (inPlace)
+                wEnd = r;
+
+            if (state == STATE_TEXT)
+            {
+                if (b == '%')
+                {
+                    state = STATE_PERCENT;
+                    escapeOffset = offset - 1;
+                }
+                else if (pendingCount == 0 && w < wEnd)
+                {
+                    out.put(w++, b);
+                }
+                else
+                {
+                    enqueue(b);
+                }
+                continue;
+            }
+
+            int value = hexValue(b);
+            if (state == STATE_PERCENT)
+            {
+                if (value >= 0)
+                {
+                    hexDigit = b;
+                    state = STATE_HEX;
+                    continue;
+                }
+                malformed();
+                enqueue((byte)'%');
+            }
+            else
+            {
+                if (value >= 0)
+                {
+                    byte decoded = (byte)((hexValue(hexDigit) << 4) | value);
+                    state = STATE_TEXT;
+                    if (pendingCount == 0 && w < wEnd)
+                        out.put(w++, decoded);
+                    else
+                        enqueue(decoded);
+                    continue;
+                }
+                malformed();
+                enqueue((byte)'%');
+                enqueue(hexDigit);
+            }
+
+            // the byte that made the escape malformed starts over as text
+            state = STATE_TEXT;
+            if (b == '%')
+            {
+                state = STATE_PERCENT;
+                escapeOffset = offset - 1;
+            }
+            else
+            {
+                enqueue(b);
+            }
+        }
+
+        in.position(r);
+        return w;
+    }
+
+    private void malformed()
+    {
+        malformedCount++;
+        listener.onMalformedEscape(escapeOffset);
+    }
+
+    private void enqueue(byte b)
+    {
+        int tail = pendingHead + pendingCount;
+        if (tail == pending.length)
+        {
+            if (pendingHead > 0)
+            {
+                System.arraycopy(pending, pendingHead, pending, 0, pendingCount);
+                pendingHead = 0;
+                tail = pendingCount;
+            }
+            else
+            {
+                byte[] grown = new byte[pending.length * 2];
+                System.arraycopy(pending, 0, grown, 0, pendingCount);
+                pending = grown;
+            }
+        }
+        pending[tail] = b;
+        pendingCount++;
+    }
+
+    private static int hexValue(byte b)
+    {
+        if (b >= '0' && b <= '9')
+            return b - '0';
+        if (b >= 'A' && b <= 'F')
+            return b - 'A' + 10;
+        if (b >= 'a' && b <= 'f')
+            return b - 'a' + 10;
+        return -1;
+    }
+}
@@ -0,0 +1,210 @@
+package org.eclipse.ee4j.tests;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Sends raw HTTP/1.1 {@code GET} requests, with the request target exactly as given (no
+ * normalization or encoding of any kind), over a few persistent connections, pipelining
+ * up to {@link TestSettings#PIPELINE_DEPTH} requests on each.
+ * <p>
+ * Responses are matched to the requests by their order on the connection, using their
+ * {@code Content-Length} or chunked framing. When the server closes a connection (eg: after
+ * a {@code 400 Bad Request}), the requests that were pipelined behind the last response
+ * are sent again on a new connection. A request that gets no response even as the first one
+ * on a new connection is reported as {@link RawResponse#failed(Throwable) failed}.
+ * </p>
+ */
+public class PipelinedHttpEngine
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(PipelinedHttpEngine.class);
+
+    private final URI baseURI;
+    private final int connections;
+    private final int pipelineDepth;
+
+    public PipelinedHttpEngine(URI baseURI)
+    {
+        this(baseURI, TestSettings.getRawConnections(), TestSettings.getPipelineDepth());
+    }
+
+    /**
+     * @param baseURI the URI that the request targets are appended to (its raw path, as is)
+     * @param connections the number of connections used concurrently
+     * @param pipelineDepth the number of requests sent ahead of their responses, 1 for no pipelining
+     */
+    public PipelinedHttpEngine(URI baseURI, int connections, int pipelineDepth)
+    {
+        this.baseURI = baseURI;
+        this.connections = Math.max(1, connections);
+        this.pipelineDepth = Math.max(1, pipelineDepth);
+    }
+
+    /**
+     * @param pathsToRequest the paths to request, appended as is to the raw path of the base URI
+     * @return the responses, in the order of the paths
+     * @throws IOException if the connection to the server cannot be established
+     */
+    public List<RawResponse> execute(List<String> pathsToRequest) throws IOException
+    {
+        List<byte[]> requests = new ArrayList<>(pathsToRequest.size());
+        for (String path : pathsToRequest)
+        {
+            requests.add(newRequest(baseURI, path));
+        }
+        RawResponse[] responses = new RawResponse[requests.size()];
+
+        int slices = Math.min(connections, requests.size());
+        if (slices <= 1)
+        {
+            runSlice(requests, 0, requests.size(), responses);
+            return Arrays.asList(responses);
+        }
+
+        // a contiguous slice of the requests per connection
+        ExecutorService executor = Executors.newFixedThreadPool(slices, SharedHttpClient.newDaemonThreadFactory("maniacal-pipeline"));
+        try
+        {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int s = 0; s < slices; s++)
+            {
+                int from = (int)((long)requests.size() * s / slices);
+                int to = (int)((long)requests.size() * (s + 1) / slices);
+                futures.add(executor.submit(() ->
+                {
+                    runSlice(requests, from, to, responses);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures)
+            {
+                future.get();
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof IOException)
+                throw (IOException)e.getCause();
+            throw new IOException(e.getCause());
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+        return Arrays.asList(responses);
+    }
+
+    /**
+     * @param baseURI the URI of the server, and the raw path prefix of the request target
+     * @param pathToRequest the rest of the request target, as is
+     * @return the bytes of a keep-alive {@code GET} request
+     */
+    public static byte[] newRequest(URI baseURI, String pathToRequest)
+    {
+        StringBuilder req = new StringBuilder();
+        req.append("GET ").append(baseURI.getRawPath()).append(pathToRequest).append(" HTTP/1.1\r\n");
+        req.append("Host: ").append(baseURI.getRawAuthority()).append("\r\n");
+        req.append("\r\n");
+        return req.toString().getBytes(UTF_8);
+    }
+
+    private void runSlice(List<byte[]> requests, int from, int to, RawResponse[] responses) throws IOException
+    {
+        int next = from;
+        while (next < to)
+        {
+            try (Socket socket = new Socket())
+            {
+                socket.connect(new InetSocketAddress(baseURI.getHost(), baseURI.getPort()));
+                next = pipeline(socket, requests, next, to, responses);
+            }
+        }
+    }
+
+    /**
+     * Pipeline the requests from {@code from} on one connection, until they all have a response
+     * or the connection is closed.
+     *
+     * @return the index of the first request without a response
+     */
+    private int pipeline(Socket socket, List<byte[]> requests, int from, int to, RawResponse[] responses) throws IOException
+    {
+        OutputStream out = socket.getOutputStream();
+        InputStream in = socket.getInputStream();
+        HttpResponseParser parser = new HttpResponseParser();
+        parser.setRetainHeaders(true);
+        parser.setRetainContent(true);
+        int sent = from;
+        int received = from;
+
+        while (received < to)
+        {
+            try
+            {
+                while (sent < to && sent - received < pipelineDepth)
+                {
+                    out.write(requests.get(sent++));
+                }
+                out.flush();
+            }
+            catch (IOException e)
+            {
+                // the server may have closed the connection, but can still have sent responses
+                LOGGER.debug("Write failed after request {}", sent, e);
+            }
+
+            RawResponse response;
+            try
+            {
+                parser.reset(false);
+                response = parser.read(in) ? RawResponse.of(parser) : null;
+            }
+            catch (IOException e)
+            {
+                response = null;
+                if (received == from)
+                {
+                    responses[received++] = RawResponse.failed(e);
+                    return received;
+                }
+            }
+
+            if (response == null)
+            {
+                // closed without a response to this request: try it again on a new connection,
+                // unless it already was the first request of this connection
+                if (received == from)
+                    responses[received++] = RawResponse.failed(new IOException("Connection closed without a response"));
+                return received;
+            }
+
+            if (LOGGER.isDebugEnabled())
+                LOGGER.debug("Response [{}] {}", received, response);
+            responses[received++] = response;
+            if (response.isClosed())
+                return received;
+        }
+        return received;
+    }
+}
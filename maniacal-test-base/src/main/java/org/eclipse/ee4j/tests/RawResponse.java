@@ -0,0 +1,132 @@
+package org.eclipse.ee4j.tests;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * One HTTP/1.1 response read off a raw connection by a {@link HttpResponseParser},
+ * framed by its {@code Content-Length} or chunked {@code Transfer-Encoding} so that the
+ * next response on the same connection can follow it.
+ * <p>
+ * A request that got no response at all is represented by {@link #failed(Throwable)},
+ * and the response of an HTTP/2 stream by {@link #http2(int, List, byte[])}.
+ * </p>
+ */
+public class RawResponse
+{
+    private final String statusLine;
+    private final int status;
+    private final List<String[]> headers;
+    private final byte[] body;
+    private final boolean closed;
+    private final Throwable failure;
+
+    private RawResponse(String statusLine, int status, List<String[]> headers, byte[] body, boolean closed, Throwable failure)
+    {
+        this.statusLine = statusLine;
+        this.status = status;
+        this.headers = headers;
+        this.body = body;
+        this.closed = closed;
+        this.failure = failure;
+    }
+
+    public static RawResponse failed(Throwable failure)
+    {
+        return new RawResponse(null, -1, List.of(), new byte[0], true, failure);
+    }
+
+    /**
+     * @param status the {@code :status} of the stream
+     * @param headers the response headers, as name and value pairs
+     * @param body the content of the DATA frames
+     * @return the response, with a status line in the HTTP/1.1 form but without a reason phrase (HTTP/2 has none), eg: {@code HTTP/2 404}
+     */
+    public static RawResponse http2(int status, List<String[]> headers, byte[] body)
+    {
+        return new RawResponse("HTTP/2 " + status, status, headers, body, false, null);
+    }
+
+    /**
+     * @param parser a parser that completed a response, retaining its headers and content
+     * @return a copy of the response
+     */
+    public static RawResponse of(HttpResponseParser parser)
+    {
+        if (!parser.isComplete())
+            throw new IllegalStateException("Incomplete response: " + parser);
+        return new RawResponse(parser.getStatusLine(), parser.getStatus(), new ArrayList<>(parser.getHeaders()),
+            parser.getContent(), parser.isClose(), null);
+    }
+
+    /**
+     * @return the status line (without the CRLF), or null if the request failed
+     */
+    public String getStatusLine()
+    {
+        return statusLine;
+    }
+
+    /**
+     * @return the status code, or -1 if the request failed
+     */
+    public int getStatus()
+    {
+        return status;
+    }
+
+    /**
+     * @param name the header name, case insensitive
+     * @return the value of the first header of that name, or null
+     */
+    public String getHeader(String name)
+    {
+        return getHeader(headers, name);
+    }
+
+    public byte[] getBody()
+    {
+        return body;
+    }
+
+    public String getBodyAsString()
+    {
+        return new String(body, UTF_8);
+    }
+
+    /**
+     * @return true if the connection cannot carry another response after this one
+     */
+    public boolean isClosed()
+    {
+        return closed;
+    }
+
+    /**
+     * @return why the request got no response, or null if it got one
+     */
+    public Throwable getFailure()
+    {
+        return failure;
+    }
+
+    @Override
+    public String toString()
+    {
+        if (failure != null)
+            return String.format("%s@%x[failure=%s]", getClass().getSimpleName(), hashCode(), failure);
+        return String.format("%s@%x[%s, body=%d bytes]", getClass().getSimpleName(), hashCode(), statusLine, body.length);
+    }
+
+    private static String getHeader(List<String[]> headers, String name)
+    {
+        for (String[] header : headers)
+        {
+            if (header[0].equalsIgnoreCase(name))
+                return header[1];
+        }
+        return null;
+    }
+}
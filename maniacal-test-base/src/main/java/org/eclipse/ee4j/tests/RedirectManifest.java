@@ -0,0 +1,135 @@
+package org.eclipse.ee4j.tests;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@code redir-resource/manifest} of the webapp: every numbered resource of
+ * {@code RedirectToDefaultResourceServlet} with its raw path, contents and location,
+ * fetched in one request instead of one redirect per index.
+ * <p>
+ * Manifests are kept per URI with their ETag, so fetching one again costs a {@code 304}.
+ * </p>
+ */
+public class RedirectManifest
+{
+    private static final Map<URI, RedirectManifest> CACHE = new ConcurrentHashMap<>();
+
+    private final String etag;
+    private final List<Entry> entries;
+
+    private RedirectManifest(String etag, List<Entry> entries)
+    {
+        this.etag = etag;
+        this.entries = entries;
+    }
+
+    /**
+     * @param httpClient the client to fetch with
+     * @param manifestURI the URI of the manifest
+     * @return the manifest, from the cache if the server says it is not modified
+     * @throws IOException if the manifest cannot be fetched or parsed
+     * @throws InterruptedException if interrupted while fetching
+     */
+    public static RedirectManifest fetch(HttpClient httpClient, URI manifestURI) throws IOException, InterruptedException
+    {
+        RedirectManifest cached = CACHE.get(manifestURI);
+        HttpRequest.Builder request = HttpRequest.newBuilder(manifestURI).GET();
+        if (cached != null && cached.etag != null)
+            request.header("If-None-Match", cached.etag);
+
+        HttpResponse<String> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() == 304 && cached != null)
+            return cached;
+        if (response.statusCode() != 200)
+            throw new IOException("Manifest response status code " + response.statusCode() + " from " + manifestURI);
+
+        RedirectManifest manifest = new RedirectManifest(response.headers().firstValue("ETag").orElse(null), parse(response.body()));
+        CACHE.put(manifestURI, manifest);
+        return manifest;
+    }
+
+    /**
+     * @param body the tab separated lines of index, raw path, contents and location
+     * @return the entries, in the order of the lines
+     * @throws IOException if a line does not have 4 fields
+     */
+    public static List<Entry> parse(String body) throws IOException
+    {
+        List<Entry> entries = new ArrayList<>();
+        for (String line : body.split("\n"))
+        {
+            if (line.isEmpty())
+                continue;
+            String[] fields = line.split("\t", -1);
+            if (fields.length != 4)
+                throw new IOException("Bad manifest line: " + line);
+            try
+            {
+                entries.add(new Entry(Integer.parseInt(fields[0]), TsvFields.unescape(fields[1]), TsvFields.unescape(fields[2]), TsvFields.unescape(fields[3])));
+            }
+            catch (NumberFormatException e)
+            {
+                throw new IOException("Bad manifest line: " + line, e);
+            }
+        }
+        return Collections.unmodifiableList(entries);
+    }
+
+    public String getETag()
+    {
+        return etag;
+    }
+
+    public List<Entry> getEntries()
+    {
+        return entries;
+    }
+
+    public static class Entry
+    {
+        private final int idx;
+        private final String rawPath;
+        private final String contents;
+        private final String location;
+
+        public Entry(int idx, String rawPath, String contents, String location)
+        {
+            this.idx = idx;
+            this.rawPath = rawPath;
+            this.contents = contents;
+            this.location = location;
+        }
+
+        public int getIdx()
+        {
+            return idx;
+        }
+
+        public String getRawPath()
+        {
+            return rawPath;
+        }
+
+        public String getContents()
+        {
+            return contents;
+        }
+
+        /**
+         * @return the location that the redirect of this index points to, a path relative to the server root
+         */
+        public String getLocation()
+        {
+            return location;
+        }
+    }
+}
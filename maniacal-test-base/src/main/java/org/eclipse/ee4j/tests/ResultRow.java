@@ -0,0 +1,75 @@
+package org.eclipse.ee4j.tests;
+
+import java.util.Objects;
+
+/**
+ * One row of the results matrix: how a container answered a META-INF resource
+ * requested by its raw path and by its encoded path.
+ */
+public class ResultRow
+{
+    private final String rawPath;
+    private final String rawResult;
+    private final String encodedPath;
+    private final String encodedResult;
+
+    /**
+     * @param rawPath the path of the resource, as it exists in the JAR (and as requested raw)
+     * @param rawResult the result of requesting the raw path, eg: {@code OK}
+     * @param encodedPath the encoded path requested
+     * @param encodedResult the result of requesting the encoded path
+     */
+    public ResultRow(String rawPath, String rawResult, String encodedPath, String encodedResult)
+    {
+        this.rawPath = rawPath;
+        this.rawResult = rawResult;
+        this.encodedPath = encodedPath;
+        this.encodedResult = encodedResult;
+    }
+
+    public String getRawPath()
+    {
+        return rawPath;
+    }
+
+    public String getRawResult()
+    {
+        return rawResult;
+    }
+
+    public String getEncodedPath()
+    {
+        return encodedPath;
+    }
+
+    public String getEncodedResult()
+    {
+        return encodedResult;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        ResultRow that = (ResultRow)o;
+        return rawPath.equals(that.rawPath) &&
+            rawResult.equals(that.rawResult) &&
+            encodedPath.equals(that.encodedPath) &&
+            encodedResult.equals(that.encodedResult);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(rawPath, rawResult, encodedPath, encodedResult);
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s[%s=%s, %s=%s]", getClass().getSimpleName(), rawPath, rawResult, encodedPath, encodedResult);
+    }
+}
@@ -0,0 +1,175 @@
+package org.eclipse.ee4j.tests;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A {@link ResultsWriter} that passes the rows on, and compares them to the rows of a baseline,
+ * a results matrix in the {@link BinaryResultsWriter} format, by raw path.
+ * <p>
+ * The report has one line per row that changed, was added or was removed since the baseline:
+ * </p>
+ * <pre>
+ *   changed  semi;colon/%3Acolon.txt  raw: OK -&gt; 404 Not Found  encoded: OK
+ *   added    new.txt                  raw: OK                     encoded: OK
+ * </pre>
+ * <p>
+ * (tab separated) and a summary. When there is no baseline yet, the rows are written as the baseline
+ * instead, so that the next runs are compared to this one.
+ * </p>
+ */
+public class ResultsDiff implements ResultsWriter
+{
+    private final ResultsWriter delegate;
+    private final Path baselineFile;
+    private final Map<String, ResultRow> baseline;
+    private final ResultsWriter recorder;
+    private final Writer report;
+    private long added;
+    private long removed;
+    private long changed;
+    private long unchanged;
+
+    /**
+     * @param delegate the writer the rows are passed on to
+     * @param baselineFile the baseline, written if it does not exist
+     * @param reportFile the report of the differences, only written when there is a baseline
+     * @throws IOException if the baseline cannot be read, or the files cannot be created
+     */
+    public ResultsDiff(ResultsWriter delegate, Path baselineFile, Path reportFile) throws IOException
+    {
+        this.delegate = delegate;
+        this.baselineFile = baselineFile;
+        if (Files.exists(baselineFile))
+        {
+            baseline = new LinkedHashMap<>();
+            try (InputStream in = Files.newInputStream(baselineFile))
+            {
+                BinaryResultsWriter.read(in, row -> baseline.put(row.getRawPath(), row));
+            }
+            recorder = null;
+            report = Files.newBufferedWriter(reportFile, UTF_8);
+        }
+        else
+        {
+            baseline = null;
+            Files.createDirectories(baselineFile.toAbsolutePath().getParent());
+            // moved in place when closed, so that an interrupted run leaves no partial baseline
+            recorder = new BinaryResultsWriter(new BufferedOutputStream(Files.newOutputStream(recordingFile())));
+            report = null;
+        }
+    }
+
+    @Override
+    public void write(ResultRow row) throws IOException
+    {
+        delegate.write(row);
+        if (recorder != null)
+        {
+            recorder.write(row);
+            return;
+        }
+
+        ResultRow before = baseline.remove(row.getRawPath());
+        if (before == null)
+        {
+            added++;
+            report.append("added\t").append(row.getRawPath())
+                .append("\traw: ").append(row.getRawResult())
+                .append("\tencoded: ").append(row.getEncodedResult()).append('\n');
+        }
+        else if (before.getRawResult().equals(row.getRawResult()) && before.getEncodedResult().equals(row.getEncodedResult()))
+        {
+            unchanged++;
+        }
+        else
+        {
+            changed++;
+            report.append("changed\t").append(row.getRawPath())
+                .append("\traw: ").append(change(before.getRawResult(), row.getRawResult()))
+                .append("\tencoded: ").append(change(before.getEncodedResult(), row.getEncodedResult())).append('\n');
+        }
+    }
+
+    private Path recordingFile()
+    {
+        return baselineFile.resolveSibling(baselineFile.getFileName() + ".tmp");
+    }
+
+    private static String change(String before, String after)
+    {
+        return before.equals(after) ? after : before + " -> " + after;
+    }
+
+    public long getAdded()
+    {
+        return added;
+    }
+
+    /**
+     * @return the number of rows of the baseline not written, once closed
+     */
+    public long getRemoved()
+    {
+        return removed;
+    }
+
+    public long getChanged()
+    {
+        return changed;
+    }
+
+    public long getUnchanged()
+    {
+        return unchanged;
+    }
+
+    /**
+     * @return true if there was no baseline, and the rows were written as the baseline
+     */
+    public boolean isRecording()
+    {
+        return recorder != null;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        try (ResultsWriter ignored = delegate)
+        {
+            if (recorder != null)
+            {
+                recorder.close();
+                Files.move(recordingFile(), baselineFile, StandardCopyOption.REPLACE_EXISTING);
+                return;
+            }
+            try (Writer ignoredReport = report)
+            {
+                for (ResultRow row : baseline.values())
+                {
+                    removed++;
+                    report.append("removed\t").append(row.getRawPath()).append('\n');
+                }
+                baseline.clear();
+                report.append(toString()).append('\n');
+            }
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        if (recorder != null)
+            return String.format("baseline written to %s", baselineFile);
+        return String.format("%d changed, %d added, %d removed, %d unchanged since %s", changed, added, removed, unchanged, baselineFile);
+    }
+}
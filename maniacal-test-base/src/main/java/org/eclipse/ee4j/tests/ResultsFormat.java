@@ -0,0 +1,87 @@
+package org.eclipse.ee4j.tests;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.util.Locale;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * The output formats of the results matrix, chosen with {@link TestSettings#RESULTS_FORMAT}.
+ */
+public enum ResultsFormat
+{
+    /**
+     * The historical {@code results-encoding.csv}, with a header line.
+     */
+    CSV("csv")
+    {
+        @Override
+        public ResultsWriter newWriter(OutputStream out) throws IOException
+        {
+            return new CsvResultsWriter(new BufferedWriter(new OutputStreamWriter(out, UTF_8)));
+        }
+    },
+    /**
+     * One JSON object per line.
+     */
+    JSONL("jsonl")
+    {
+        @Override
+        public ResultsWriter newWriter(OutputStream out)
+        {
+            return new JsonLinesResultsWriter(new BufferedWriter(new OutputStreamWriter(out, UTF_8)));
+        }
+    },
+    /**
+     * A compact binary form, see {@link BinaryResultsWriter}.
+     */
+    BINARY("bin")
+    {
+        @Override
+        public ResultsWriter newWriter(OutputStream out) throws IOException
+        {
+            return new BinaryResultsWriter(new BufferedOutputStream(out));
+        }
+    };
+
+    private final String extension;
+
+    ResultsFormat(String extension)
+    {
+        this.extension = extension;
+    }
+
+    /**
+     * @return the file name extension, without the dot
+     */
+    public String getExtension()
+    {
+        return extension;
+    }
+
+    /**
+     * @param out the stream to write to, closed when the writer is closed
+     * @return a new writer of this format
+     * @throws IOException if the start of the output cannot be written
+     */
+    public abstract ResultsWriter newWriter(OutputStream out) throws IOException;
+
+    /**
+     * @param name the name of the format, or its file name extension, case insensitive
+     * @return the format
+     * @throws IllegalArgumentException if there is no such format
+     */
+    public static ResultsFormat from(String name)
+    {
+        for (ResultsFormat format : values())
+        {
+            if (format.name().equalsIgnoreCase(name) || format.extension.equalsIgnoreCase(name))
+                return format;
+        }
+        throw new IllegalArgumentException("Unknown results format: " + name.toLowerCase(Locale.ENGLISH));
+    }
+}
@@ -0,0 +1,189 @@
+package org.eclipse.ee4j.tests;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+
+/**
+ * Produces the results matrix (every resource requested by its raw and its encoded path)
+ * and streams its rows, in the order of the cases, to a {@link ResultsWriter}.
+ * <p>
+ * The cases are taken in batches, each requested by one worker of a bounded pool on one
+ * pipelined connection (see {@link PipelinedHttpEngine}), or one HTTP/2 connection with
+ * {@link TestSettings#H2C} (see {@link MultiplexedHttpEngine}). At most two batches per worker are
+ * in flight or waiting for the writer, so the memory used does not depend on the size of the corpus.
+ * </p>
+ * <p>
+ * With a {@link ResultsStore}, only the cases without a stored result are requested, and their
+ * results stored (unless the request failed): the rows are the same, merged from both.
+ * </p>
+ */
+public class ResultsMatrix
+{
+    public static final int DEFAULT_BATCH_SIZE = 64;
+    /**
+     * The variant of the cases requested by the raw path, in the {@link ResultsStore}.
+     */
+    public static final String RAW = "raw";
+    /**
+     * The variant of the cases requested by the encoded path, in the {@link ResultsStore}.
+     */
+    public static final String ENCODED = "encoded";
+
+    private final URI baseURI;
+    private final int workers;
+    private final int pipelineDepth;
+    private final int batchSize;
+    private final BiFunction<RawResponse, String, String> describer;
+
+    /**
+     * @param baseURI the URI of the webapp
+     * @param describer the result of a response, given the expected contents, eg: {@code OK}
+     */
+    public ResultsMatrix(URI baseURI, BiFunction<RawResponse, String, String> describer)
+    {
+        this(baseURI, TestSettings.getRawConnections(), TestSettings.getPipelineDepth(), DEFAULT_BATCH_SIZE, describer);
+    }
+
+    public ResultsMatrix(URI baseURI, int workers, int pipelineDepth, int batchSize, BiFunction<RawResponse, String, String> describer)
+    {
+        this.baseURI = baseURI;
+        this.workers = Math.max(1, workers);
+        this.pipelineDepth = pipelineDepth;
+        this.batchSize = Math.max(1, batchSize);
+        this.describer = describer;
+    }
+
+    /**
+     * @param cases the resources, whose contents are read by the workers
+     * @param writer the writer of the rows
+     * @return the number of rows written
+     * @throws IOException if the server cannot be reached, or the writer fails
+     */
+    public long run(Iterator<MetaInfResourceIndex.Entry> cases, ResultsWriter writer) throws IOException
+    {
+        return run(cases, writer, null);
+    }
+
+    /**
+     * @param cases the resources, whose contents are read by the workers
+     * @param writer the writer of the rows
+     * @param store the results of the previous runs, or null to request every case
+     * @return the number of rows written
+     * @throws IOException if the server cannot be reached, or the writer fails
+     */
+    public long run(Iterator<MetaInfResourceIndex.Entry> cases, ResultsWriter writer, ResultsStore store) throws IOException
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(workers, SharedHttpClient.newDaemonThreadFactory("maniacal-matrix"));
+        Deque<Future<List<ResultRow>>> window = new ArrayDeque<>();
+        int maxWindow = workers * 2;
+        long rows = 0;
+        try
+        {
+            while (cases.hasNext() || !window.isEmpty())
+            {
+                while (cases.hasNext() && window.size() < maxWindow)
+                {
+                    List<MetaInfResourceIndex.Entry> batch = new ArrayList<>(batchSize);
+                    while (cases.hasNext() && batch.size() < batchSize)
+                    {
+                        batch.add(cases.next());
+                    }
+                    window.addLast(executor.submit(() -> runBatch(batch, store)));
+                }
+
+                for (ResultRow row : await(window.removeFirst()))
+                {
+                    writer.write(row);
+                    rows++;
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+        return rows;
+    }
+
+    private List<ResultRow> runBatch(List<MetaInfResourceIndex.Entry> batch, ResultsStore store) throws IOException
+    {
+        String[] paths = new String[batch.size() * 2];
+        String[] results = new String[paths.length];
+        List<String> pathsToRequest = new ArrayList<>(paths.length);
+        List<Integer> requested = new ArrayList<>(paths.length);
+        for (int i = 0; i < paths.length; i++)
+        {
+            MetaInfResourceIndex.Entry entry = batch.get(i / 2);
+            paths[i] = i % 2 == 0 ? entry.getRawPath() : entry.getEncodedPath();
+            if (store != null)
+                results[i] = store.get(variant(i), paths[i], entry.getCrc(), entry.getSize());
+            if (results[i] == null)
+            {
+                pathsToRequest.add(paths[i]);
+                requested.add(i);
+            }
+        }
+
+        if (!pathsToRequest.isEmpty())
+        {
+            List<RawResponse> responses = TestSettings.isH2c()
+                ? new MultiplexedHttpEngine(baseURI).execute(pathsToRequest)
+                : new PipelinedHttpEngine(baseURI, 1, pipelineDepth).execute(pathsToRequest);
+
+            String expectedContents = null;
+            for (int r = 0; r < responses.size(); r++)
+            {
+                int i = requested.get(r);
+                MetaInfResourceIndex.Entry entry = batch.get(i / 2);
+                // both paths of an entry are next to each other, read its contents once
+                if (r == 0 || requested.get(r - 1) / 2 != i / 2)
+                    expectedContents = entry.getContents();
+                RawResponse response = responses.get(r);
+                results[i] = describer.apply(response, expectedContents);
+                if (store != null && response.getFailure() == null)
+                    store.put(variant(i), paths[i], entry.getCrc(), entry.getSize(), results[i]);
+            }
+        }
+
+        List<ResultRow> rows = new ArrayList<>(batch.size());
+        for (int i = 0; i < paths.length; i += 2)
+        {
+            rows.add(new ResultRow(paths[i], results[i], paths[i + 1], results[i + 1]));
+        }
+        return rows;
+    }
+
+    private static String variant(int index)
+    {
+        return index % 2 == 0 ? RAW : ENCODED;
+    }
+
+    private static List<ResultRow> await(Future<List<ResultRow>> batch) throws IOException
+    {
+        try
+        {
+            return batch.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof IOException)
+                throw (IOException)e.getCause();
+            throw new IOException(e.getCause());
+        }
+    }
+}
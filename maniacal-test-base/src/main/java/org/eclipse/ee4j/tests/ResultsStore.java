@@ -0,0 +1,533 @@
+package org.eclipse.ee4j.tests;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.eclipse.aether.resolution.ArtifactResolutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * The results of the cases run in the previous runs, so that a run with {@link TestSettings#INCREMENTAL}
+ * only requests the cases that are new, or whose contents changed, and takes the others from the store.
+ * <p>
+ * There is one store per fingerprint of the container (see {@link #fingerprint(WebappContainer, URI)}),
+ * in a file of {@link TestSettings#getResultsStore()}. A store replaces the ones it supersedes, those of
+ * the same container, configuration, transport and path, for another webapp or {@link #RESULTS_VERSION}:
+ * their files are deleted when it is opened. A result is keyed by a 64 bit hash of its
+ * variant (eg: {@code raw}), the path requested, and the CRC-32 and size of the contents of the entry.
+ * So changing the contents of an entry, the encoding of its path, the webapp or the container
+ * invalidates its results, without any bookkeeping. The keys are held in an open addressing table
+ * of {@code long}s and the results as indexes in the table of the different results, so a
+ * store of millions of cases costs between 24 and 48 bytes per case in memory, and about 9 on disk.
+ * </p>
+ * <p>
+ * After the magic {@code MRS1}, a store file has the fingerprint, the table of results (a count,
+ * then each as a length and UTF-8 bytes), then the number of cases and, for each, its key and the
+ * varint index of its result.
+ * </p>
+ */
+public class ResultsStore
+{
+    public static final int MAGIC = ('M' << 24) | ('R' << 16) | ('S' << 8) | '1';
+    /**
+     * The version of how the results are computed, part of the fingerprint: bump it whenever the
+     * result of a case changes for the same response, eg: the checks of the tests or {@code toRequestResults}.
+     */
+    public static final int RESULTS_VERSION = 2;
+
+    /**
+     * The part of the fingerprint that is the {@link #RESULTS_VERSION}.
+     */
+    static final String RESULTS = "results";
+    /**
+     * The part of the fingerprint that is the checksum of the contents of the webapp, see {@link ExplodedWarCache#checksum(File)}.
+     */
+    static final String WAR = "war";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResultsStore.class);
+    private static final Map<String, ResultsStore> STORES = new HashMap<>();
+    private static final Map<File, String> WAR_CHECKSUMS = new HashMap<>();
+
+    private final String fingerprint;
+    private final Path file;
+    private final List<String> results = new ArrayList<>();
+    private final Map<String, Integer> resultIndexes = new HashMap<>();
+    // 0 is a free slot, a key is never 0
+    private long[] keys = new long[1024];
+    private int[] values = new int[1024];
+    private int size;
+    private boolean dirty;
+    private long hits;
+    private long misses;
+
+    /**
+     * @param fingerprint the fingerprint of the container, see {@link #fingerprint(WebappContainer, URI)}
+     * @param file the file of the store, read if it exists
+     * @throws IOException if the file exists but cannot be read
+     */
+    public ResultsStore(String fingerprint, Path file) throws IOException
+    {
+        this.fingerprint = fingerprint;
+        this.file = file;
+        load();
+    }
+
+    /**
+     * @param container the container under test
+     * @param baseURI the URI the paths are requested from
+     * @return the store of the results of the container, shared by the JVM
+     * @throws IOException if the store cannot be read, or the webapp cannot be resolved
+     */
+    public static ResultsStore get(WebappContainer container, URI baseURI) throws IOException
+    {
+        Map<String, String> parts = fingerprintParts(container, baseURI);
+        String fingerprint = parts.toString();
+        synchronized (STORES)
+        {
+            ResultsStore store = STORES.get(fingerprint);
+            if (store == null)
+            {
+                store = open(TestSettings.getResultsStore(), container.getName(), parts);
+                STORES.put(fingerprint, store);
+            }
+            return store;
+        }
+    }
+
+    /**
+     * Open the store of a fingerprint, in a file named after the container, the hash of the parts of
+     * the fingerprint that a new build does not change, and the hash of the fingerprint, and delete the
+     * files of the stores that it supersedes: the other stores of the same first two.
+     *
+     * @param directory the directory of the stores
+     * @param name the name of the container
+     * @param parts the parts of the fingerprint, see {@link #fingerprint(WebappContainer, URI)}
+     * @return the store of the fingerprint
+     * @throws IOException if the store cannot be read
+     */
+    static ResultsStore open(Path directory, String name, Map<String, String> parts) throws IOException
+    {
+        Map<String, String> lineage = new LinkedHashMap<>(parts);
+        lineage.remove(RESULTS);
+        lineage.remove(WAR);
+        String prefix = name + "-" + sha256(lineage.toString()) + "-";
+        Path file = directory.resolve(prefix + sha256(parts.toString()) + ".mrs");
+        deleteSuperseded(directory, name, prefix, file);
+        return new ResultsStore(parts.toString(), file);
+    }
+
+    private static void deleteSuperseded(Path directory, String name, String prefix, Path file) throws IOException
+    {
+        if (!Files.isDirectory(directory))
+            return;
+        // and the stores named by the hash of the fingerprint only, before the stores were superseded
+        Pattern unversioned = Pattern.compile(Pattern.quote(name) + "-[0-9a-f]{16}\\.mrs");
+        try (Stream<Path> paths = Files.list(directory))
+        {
+            for (Path path : (Iterable<Path>)paths::iterator)
+            {
+                String fileName = path.getFileName().toString();
+                // not the temporary files of a store being saved by another JVM
+                boolean superseded = fileName.startsWith(prefix) && fileName.endsWith(".mrs");
+                if ((superseded || unversioned.matcher(fileName).matches()) && !path.equals(file))
+                {
+                    Files.deleteIfExists(path);
+                    LOGGER.debug("Deleted the superseded store {}", path);
+                }
+            }
+        }
+    }
+
+    /**
+     * Save the stores of the JVM that have new results.
+     *
+     * @throws IOException if a store cannot be written
+     */
+    public static void saveAll() throws IOException
+    {
+        List<ResultsStore> stores;
+        synchronized (STORES)
+        {
+            stores = new ArrayList<>(STORES.values());
+        }
+        for (ResultsStore store : stores)
+        {
+            store.save();
+        }
+    }
+
+    /**
+     * @param container the container under test
+     * @param baseURI the URI the paths are requested from
+     * @return everything that changes the results, other than the cases: the {@link #RESULTS_VERSION},
+     * the container, its configuration, the webapp, the transport and the path of the base URI
+     * @throws IOException if the webapp cannot be resolved or read
+     */
+    public static String fingerprint(WebappContainer container, URI baseURI) throws IOException
+    {
+        return fingerprintParts(container, baseURI).toString();
+    }
+
+    private static Map<String, String> fingerprintParts(WebappContainer container, URI baseURI) throws IOException
+    {
+        String war;
+        try
+        {
+            war = warChecksum(MavenArtifactResolver.get().resolveTestWarFile());
+        }
+        catch (ArtifactResolutionException e)
+        {
+            throw new IOException("Unable to resolve the webapp", e);
+        }
+        Map<String, String> parts = new LinkedHashMap<>();
+        parts.put(RESULTS, Integer.toString(RESULTS_VERSION));
+        parts.put("container", container.getName());
+        parts.put("configuration", container.getConfiguration());
+        parts.put(WAR, war);
+        parts.put("transport", TestSettings.isH2c() ? "h2c" : "http/1.1");
+        parts.put("path", baseURI.getRawPath());
+        return parts;
+    }
+
+    private static String warChecksum(File war) throws IOException
+    {
+        synchronized (WAR_CHECKSUMS)
+        {
+            String checksum = WAR_CHECKSUMS.get(war);
+            if (checksum == null)
+            {
+                checksum = ExplodedWarCache.checksum(war);
+                WAR_CHECKSUMS.put(war, checksum);
+            }
+            return checksum;
+        }
+    }
+
+    public String getFingerprint()
+    {
+        return fingerprint;
+    }
+
+    public Path getFile()
+    {
+        return file;
+    }
+
+    /**
+     * @param variant how the path is requested, eg: {@code raw}
+     * @param path the path requested
+     * @param crc the CRC-32 of the contents of the entry
+     * @param contentSize the size of the contents of the entry
+     * @return the result stored for the case, or null if it has not been run yet
+     */
+    public synchronized String get(String variant, String path, long crc, long contentSize)
+    {
+        int slot = slot(key(variant, path, crc, contentSize));
+        if (keys[slot] == 0)
+        {
+            misses++;
+            return null;
+        }
+        hits++;
+        return results.get(values[slot]);
+    }
+
+    /**
+     * @param variant how the path is requested, eg: {@code raw}
+     * @param path the path requested
+     * @param crc the CRC-32 of the contents of the entry
+     * @param contentSize the size of the contents of the entry
+     * @param result the result of the case
+     */
+    public synchronized void put(String variant, String path, long crc, long contentSize, String result)
+    {
+        put(key(variant, path, crc, contentSize), resultIndex(result));
+    }
+
+    /**
+     * @return the number of cases stored
+     */
+    public synchronized int size()
+    {
+        return size;
+    }
+
+    public synchronized long getHits()
+    {
+        return hits;
+    }
+
+    public synchronized long getMisses()
+    {
+        return misses;
+    }
+
+    /**
+     * Write the store to its file, if it has new results, replacing the file at once.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    public synchronized void save() throws IOException
+    {
+        if (!dirty)
+            return;
+        Files.createDirectories(file.getParent());
+        Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try
+        {
+            try (OutputStream out = Files.newOutputStream(temp))
+            {
+                writeTo(out);
+            }
+            try
+            {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            }
+            catch (AtomicMoveNotSupportedException e)
+            {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            dirty = false;
+            LOGGER.info("Saved {} results to {}", size, file);
+        }
+        finally
+        {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public synchronized String toString()
+    {
+        return String.format("%s[%s, size=%d, hits=%d, misses=%d]", getClass().getSimpleName(), file, size, hits, misses);
+    }
+
+    private void writeTo(OutputStream stream) throws IOException
+    {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 64 * 1024));
+        out.writeInt(MAGIC);
+        writeString(out, fingerprint);
+        writeVarInt(out, results.size());
+        for (String result : results)
+        {
+            writeString(out, result);
+        }
+        out.writeInt(size);
+        for (int i = 0; i < keys.length; i++)
+        {
+            if (keys[i] == 0)
+                continue;
+            out.writeLong(keys[i]);
+            writeVarInt(out, values[i]);
+        }
+        out.flush();
+    }
+
+    private void load() throws IOException
+    {
+        try (InputStream stream = Files.newInputStream(file))
+        {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(stream, 64 * 1024));
+            if (in.readInt() != MAGIC)
+                throw new IOException("Not a results store: " + file);
+            String stored = readString(in);
+            if (!stored.equals(fingerprint))
+            {
+                // a collision of the file names, the results are not for this fingerprint
+                LOGGER.warn("Ignoring {}, it is the store of {}", file, stored);
+                dirty = true;
+                return;
+            }
+            int resultCount = readVarInt(in);
+            for (int i = 0; i < resultCount; i++)
+            {
+                resultIndex(readString(in));
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++)
+            {
+                long key = in.readLong();
+                int index = readVarInt(in);
+                if (key == 0 || index >= results.size())
+                    throw new IOException("Bad case " + i + " in " + file);
+                put(key, index);
+            }
+            dirty = false;
+            LOGGER.debug("Loaded {} results from {}", size, file);
+        }
+        catch (NoSuchFileException e)
+        {
+            LOGGER.debug("No results store {}", file);
+        }
+    }
+
+    private int resultIndex(String result)
+    {
+        Integer index = resultIndexes.get(result);
+        if (index == null)
+        {
+            index = results.size();
+            results.add(result);
+            resultIndexes.put(result, index);
+        }
+        return index;
+    }
+
+    private void put(long key, int value)
+    {
+        int slot = slot(key);
+        if (keys[slot] == 0)
+        {
+            keys[slot] = key;
+            size++;
+            dirty = true;
+            values[slot] = value;
+            // at most half full, so that the probes stay short
+            if (size * 2 > keys.length)
+                grow();
+        }
+        else if (values[slot] != value)
+        {
+            values[slot] = value;
+            dirty = true;
+        }
+    }
+
+    private void grow()
+    {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        for (int i = 0; i < oldKeys.length; i++)
+        {
+            if (oldKeys[i] == 0)
+                continue;
+            int slot = slot(oldKeys[i]);
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+
+    /**
+     * @return the slot of the key, or the free slot where it would go
+     */
+    private int slot(long key)
+    {
+        int mask = keys.length - 1;
+        int slot = (int)(key ^ (key >>> 32)) & mask;
+        while (keys[slot] != 0 && keys[slot] != key)
+        {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    static long key(String variant, String path, long crc, long contentSize)
+    {
+        // FNV-1a over the chars, then the contents mixed in and the bits spread (the finalizer of MurmurHash3)
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < variant.length(); i++)
+        {
+            hash = (hash ^ variant.charAt(i)) * 0x100000001b3L;
+        }
+        hash = (hash ^ 0xFFFF) * 0x100000001b3L;
+        for (int i = 0; i < path.length(); i++)
+        {
+            hash = (hash ^ path.charAt(i)) * 0x100000001b3L;
+        }
+        hash ^= crc * 0x9E3779B97F4A7C15L;
+        hash ^= contentSize * 0xC2B2AE3D27D4EB4FL;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash == 0 ? 1 : hash;
+    }
+
+    private static String sha256(String value)
+    {
+        try
+        {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(value.getBytes(UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (int i = 0; i < 8; i++)
+            {
+                hex.append(String.format("%02x", hash[i]));
+            }
+            return hex.toString();
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException
+    {
+        byte[] bytes = value.getBytes(UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException
+    {
+        byte[] bytes = new byte[readVarInt(in)];
+        in.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException
+    {
+        while ((value & ~0x7F) != 0)
+        {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException
+    {
+        int value = 0;
+        int shift = 0;
+        while (true)
+        {
+            int b = in.read();
+            if (b < 0)
+                throw new EOFException();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+            shift += 7;
+            if (shift > 28)
+                throw new IOException("Bad varint");
+        }
+    }
+}
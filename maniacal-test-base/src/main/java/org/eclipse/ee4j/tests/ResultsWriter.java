@@ -0,0 +1,18 @@
+package org.eclipse.ee4j.tests;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Writes the rows of the results matrix as they are produced, see {@link ResultsFormat}.
+ */
+public interface ResultsWriter extends Closeable
+{
+    void write(ResultRow row) throws IOException;
+
+    /**
+     * Flush the rows written so far, and close the underlying stream.
+     */
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,311 @@
+package org.eclipse.ee4j.tests;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Drives raw HTTP/1.1 {@code GET} requests over many concurrent keep-alive connections
+ * from a single thread, using a {@link Selector}.
+ * <p>
+ * The request targets are sent as is, they are never parsed by {@link URI} (which rejects
+ * many of them, see the {@code URI_UNSUPPORTED} cases of {@code RedirectToDefaultResourceServlet}),
+ * so the container's own URI parser sees exactly the bytes of the corpus.
+ * </p>
+ * <p>
+ * Each connection has one request in flight. When the server closes a connection, a new
+ * one replaces it, and a request that was not answered is sent again (unless it was the first
+ * request on its connection, then it counts as a failure, status {@code -1}).
+ * </p>
+ */
+public class SelectorRequestDriver
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(SelectorRequestDriver.class);
+    private static final long STALL_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final InetSocketAddress address;
+    private final List<byte[]> requests;
+
+    /**
+     * @param baseURI the URI of the server, its raw path prefixes every path
+     * @param pathsToRequest the paths to request, cycled through in order
+     */
+    public SelectorRequestDriver(URI baseURI, List<String> pathsToRequest)
+    {
+        if (pathsToRequest.isEmpty())
+            throw new IllegalArgumentException("No paths to request");
+        this.address = new InetSocketAddress(baseURI.getHost(), baseURI.getPort());
+        this.requests = new ArrayList<>(pathsToRequest.size());
+        for (String path : pathsToRequest)
+        {
+            requests.add(PipelinedHttpEngine.newRequest(baseURI, path));
+        }
+    }
+
+    /**
+     * @param connections the number of connections kept open at once
+     * @param totalRequests the number of requests to complete
+     * @return the throughput and status distribution of the run
+     * @throws IOException if the selector fails, or no request completes for 30 seconds
+     */
+    public Report run(int connections, long totalRequests) throws IOException
+    {
+        Run run = new Run(totalRequests);
+        long start = System.nanoTime();
+        try (Selector selector = Selector.open())
+        {
+            for (int i = 0; i < Math.min(connections, totalRequests); i++)
+            {
+                run.connect(selector, new Connection());
+            }
+
+            long lastProgress = System.nanoTime();
+            while (run.completed < totalRequests)
+            {
+                long completed = run.completed;
+                selector.select(1000);
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext())
+                {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    run.process(selector, key);
+                }
+
+                if (run.completed > completed)
+                    lastProgress = System.nanoTime();
+                else if (System.nanoTime() - lastProgress > STALL_TIMEOUT_NANOS)
+                    throw new IOException("No response for 30s, " + run.completed + "/" + totalRequests + " requests completed");
+            }
+
+            for (SelectionKey key : selector.keys())
+            {
+                key.channel().close();
+            }
+        }
+        return new Report(run.completed, System.nanoTime() - start, connections, run.connects, run.statusCounts);
+    }
+
+    private static class Connection
+    {
+        private SocketChannel channel;
+        private ByteBuffer request;
+        private final HttpResponseParser parser = new HttpResponseParser();
+        private int responses;
+    }
+
+    private class Run
+    {
+        private final long totalRequests;
+        private final Map<Integer, Long> statusCounts = new TreeMap<>();
+        private long issued;
+        private long completed;
+        private long connects;
+        private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(64 * 1024);
+
+        private Run(long totalRequests)
+        {
+            this.totalRequests = totalRequests;
+        }
+
+        private void connect(Selector selector, Connection connection) throws IOException
+        {
+            connects++;
+            connection.channel = SocketChannel.open();
+            connection.channel.configureBlocking(false);
+            connection.parser.reset(false);
+            connection.responses = 0;
+            if (connection.channel.connect(address))
+                next(connection.channel.register(selector, 0, connection), connection);
+            else
+                connection.channel.register(selector, SelectionKey.OP_CONNECT, connection);
+        }
+
+        private void process(Selector selector, SelectionKey key) throws IOException
+        {
+            Connection connection = (Connection)key.attachment();
+            try
+            {
+                if (key.isConnectable())
+                {
+                    connection.channel.finishConnect();
+                    next(key, connection);
+                }
+                if (key.isValid() && key.isWritable())
+                {
+                    connection.channel.write(connection.request);
+                    if (!connection.request.hasRemaining())
+                        key.interestOps(SelectionKey.OP_READ);
+                }
+                if (key.isValid() && key.isReadable())
+                    read(selector, key, connection);
+            }
+            catch (IOException e)
+            {
+                LOGGER.debug("Connection failed", e);
+                key.cancel();
+                connection.channel.close();
+                if (connection.request != null && connection.responses == 0)
+                    complete(-1, connection);
+                if (issued < totalRequests || connection.request != null)
+                    connect(selector, connection);
+            }
+        }
+
+        private void read(Selector selector, SelectionKey key, Connection connection) throws IOException
+        {
+            HttpResponseParser parser = connection.parser;
+            readBuffer.clear();
+            int read = connection.channel.read(readBuffer);
+            readBuffer.flip();
+
+            boolean complete;
+            int status = -1;
+            boolean close = true;
+            try
+            {
+                complete = parser.parse(readBuffer) || (read < 0 && parser.eof());
+                if (complete)
+                {
+                    status = parser.getStatus();
+                    close = parser.isClose();
+                }
+            }
+            catch (EOFException e)
+            {
+                complete = false;
+            }
+            catch (IOException e)
+            {
+                // a bad status line, Content-Length or chunk size, the rest of the connection cannot be framed
+                LOGGER.debug("Unframeable response", e);
+                complete = true;
+            }
+            if (complete)
+            {
+                connection.responses++;
+                complete(status, connection);
+                if (!close && read >= 0)
+                {
+                    // the bytes after the response are the start of the next one
+                    parser.reset(false);
+                    parser.parse(readBuffer);
+                    next(key, connection);
+                    return;
+                }
+            }
+            else if (read >= 0)
+            {
+                return;
+            }
+
+            // the connection is closed, or going to be
+            key.cancel();
+            connection.channel.close();
+            if (connection.request != null && connection.responses == 0)
+                complete(-1, connection);
+            if (issued < totalRequests || connection.request != null)
+                connect(selector, connection);
+        }
+
+        private void next(SelectionKey key, Connection connection) throws IOException
+        {
+            if (connection.request == null)
+            {
+                if (issued == totalRequests)
+                {
+                    key.cancel();
+                    connection.channel.close();
+                    return;
+                }
+                connection.request = ByteBuffer.wrap(requests.get((int)(issued++ % requests.size())));
+            }
+            else
+            {
+                // sent again on a new connection
+                connection.request.rewind();
+            }
+            key.interestOps(SelectionKey.OP_WRITE);
+        }
+
+        private void complete(int status, Connection connection)
+        {
+            connection.request = null;
+            completed++;
+            statusCounts.merge(status, 1L, Long::sum);
+        }
+    }
+
+    public static class Report
+    {
+        private final long requests;
+        private final long elapsedNanos;
+        private final int connections;
+        private final long connects;
+        private final Map<Integer, Long> statusCounts;
+
+        private Report(long requests, long elapsedNanos, int connections, long connects, Map<Integer, Long> statusCounts)
+        {
+            this.requests = requests;
+            this.elapsedNanos = elapsedNanos;
+            this.connections = connections;
+            this.connects = connects;
+            this.statusCounts = statusCounts;
+        }
+
+        public long getRequests()
+        {
+            return requests;
+        }
+
+        public long getElapsedNanos()
+        {
+            return elapsedNanos;
+        }
+
+        /**
+         * @return the completed requests per second
+         */
+        public double getThroughput()
+        {
+            return requests * 1_000_000_000D / Math.max(1, elapsedNanos);
+        }
+
+        /**
+         * @return the number of connections opened, including the ones replacing closed connections
+         */
+        public long getConnects()
+        {
+            return connects;
+        }
+
+        /**
+         * @return the number of requests per response status, {@code -1} for the ones without a response
+         */
+        public Map<Integer, Long> getStatusCounts()
+        {
+            return statusCounts;
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%d requests in %d ms (%.0f req/s) over %d connections (%d connects), status %s",
+                requests, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), getThroughput(), connections, connects, statusCounts);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package org.eclipse.ee4j.tests;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * One {@link HttpClient} for the whole JVM, so that the test cases share its
+ * connection pool, selector thread and executor, rather than paying for new ones
+ * on every request.
+ * <p>
+ * {@link HttpClient} is thread safe, so the shared instance can be used from concurrent test cases.
+ * </p>
+ */
+public class SharedHttpClient
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(SharedHttpClient.class);
+
+    private static HttpClient httpClient;
+
+    public static synchronized HttpClient get()
+    {
+        if (httpClient == null)
+        {
+            httpClient = HttpClient.newBuilder()
+                .executor(newExecutor("maniacal-httpclient"))
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        }
+        return httpClient;
+    }
+
+    /**
+     * A new executor that runs each task on a virtual thread when the JDK has them
+     * (and {@link TestSettings#VIRTUAL_THREADS} allows it), or else on a cached pool of daemon threads.
+     *
+     * @param name the name prefix of the threads
+     * @return the new executor
+     */
+    public static ExecutorService newExecutor(String name)
+    {
+        if (TestSettings.isVirtualThreads())
+        {
+            try
+            {
+                Method newVirtual = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                return (ExecutorService)newVirtual.invoke(null);
+            }
+            catch (NoSuchMethodException e)
+            {
+                LOGGER.debug("No virtual threads in this JDK");
+            }
+            catch (IllegalAccessException | InvocationTargetException e)
+            {
+                // eg: virtual threads are a preview feature that is not enabled
+                LOGGER.debug("Virtual threads not available", e);
+            }
+        }
+        return Executors.newCachedThreadPool(newDaemonThreadFactory(name));
+    }
+
+    /**
+     * @param name the name prefix of the threads
+     * @return a factory of daemon threads, so that pools left behind by a test cannot hold up the JVM exit
+     */
+    public static ThreadFactory newDaemonThreadFactory(String name)
+    {
+        AtomicInteger count = new AtomicInteger();
+        return (runnable) ->
+        {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
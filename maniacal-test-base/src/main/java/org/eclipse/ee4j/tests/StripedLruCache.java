@@ -0,0 +1,102 @@
+package org.eclipse.ee4j.tests;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A bounded least recently used cache, split into stripes by the hash of the key
+ * so that threads working on different keys rarely wait on the same lock.
+ * <p>
+ * Each stripe evicts on its own, so the bound is {@code maxSize} in total but the
+ * entry evicted is the least recently used of its stripe, not of the whole cache.
+ * </p>
+ */
+public class StripedLruCache<K, V>
+{
+    private final Stripe<K, V>[] stripes;
+    private final int mask;
+
+    /**
+     * @param maxSize the most entries held
+     * @param stripes the number of stripes, rounded up to a power of 2 (but no more than {@code maxSize})
+     */
+    @SuppressWarnings("unchecked")
+    public StripedLruCache(int maxSize, int stripes)
+    {
+        if (maxSize < 1)
+            throw new IllegalArgumentException("maxSize must be at least 1: " + maxSize);
+        int count = 1;
+        while (count < stripes && count * 2 <= maxSize)
+        {
+            count <<= 1;
+        }
+        this.stripes = new Stripe[count];
+        this.mask = count - 1;
+        for (int i = 0; i < count; i++)
+        {
+            // spread the remainder over the first stripes
+            this.stripes[i] = new Stripe<>(maxSize / count + (i < maxSize % count ? 1 : 0));
+        }
+    }
+
+    /**
+     * @param key the key
+     * @param loader computes the value of a key that is not cached, outside of any lock
+     * @return the cached or computed value
+     */
+    public V get(K key, Function<? super K, ? extends V> loader)
+    {
+        Stripe<K, V> stripe = stripeOf(key);
+        V value;
+        synchronized (stripe)
+        {
+            value = stripe.get(key);
+        }
+        if (value != null)
+            return value;
+
+        value = loader.apply(key);
+        synchronized (stripe)
+        {
+            V previous = stripe.putIfAbsent(key, value);
+            return previous == null ? value : previous;
+        }
+    }
+
+    public int size()
+    {
+        int size = 0;
+        for (Stripe<K, V> stripe : stripes)
+        {
+            synchronized (stripe)
+            {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    private Stripe<K, V> stripeOf(K key)
+    {
+        int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & mask];
+    }
+
+    private static class Stripe<K, V> extends LinkedHashMap<K, V>
+    {
+        private final int maxSize;
+
+        public Stripe(int maxSize)
+        {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest)
+        {
+            return size() > maxSize;
+        }
+    }
+}
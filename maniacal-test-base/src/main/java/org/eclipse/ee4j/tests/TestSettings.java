@@ -0,0 +1,213 @@
+package org.eclipse.ee4j.tests;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * The system properties that tune how the suites run.
+ * <p>
+ * They can be passed on the maven command line, eg: {@code mvn test -Dmaniacal.parallelism=16}
+ * </p>
+ */
+public class TestSettings
+{
+    /**
+     * The number of requests (or test cases) run concurrently. Default: 1 (serial).
+     */
+    public static final String PARALLELISM = "maniacal.parallelism";
+    /**
+     * Use virtual threads for the shared {@link java.net.http.HttpClient} when the JDK has them. Default: true.
+     */
+    public static final String VIRTUAL_THREADS = "maniacal.virtualThreads";
+    /**
+     * The number of connections the raw request matrix is spread over. Default: 4.
+     */
+    public static final String RAW_CONNECTIONS = "maniacal.rawConnections";
+    /**
+     * The number of raw requests pipelined on a connection ahead of their responses. Default: 16, 1 disables pipelining.
+     */
+    public static final String PIPELINE_DEPTH = "maniacal.pipelineDepth";
+    /**
+     * How the redirect suite learns the numbered resources: {@code manifest} (one request for all) or
+     * {@code redirect} (following the redirect of every index). Default: manifest.
+     */
+    public static final String REDIRECT_MODE = "maniacal.redirectMode";
+    /**
+     * The format of the results matrix: {@code csv}, {@code jsonl} or {@code binary}. Default: csv.
+     */
+    public static final String RESULTS_FORMAT = "maniacal.results.format";
+    /**
+     * Only request the cases of the results matrix (and of the parameterized suites) that have no
+     * result in the {@link ResultsStore} of the container, and store the new results. Default: false.
+     */
+    public static final String INCREMENTAL = "maniacal.incremental";
+    /**
+     * The directory of the {@link ResultsStore}s. Default: {@code maniacal-results-store} in {@code java.io.tmpdir}.
+     */
+    public static final String RESULTS_STORE = "maniacal.resultsStore";
+    /**
+     * A directory of baselines of the results matrix, which the results are compared to (see {@link ResultsDiff}).
+     * A missing baseline is written by the run. Default: none, no comparison.
+     */
+    public static final String RESULTS_BASELINE = "maniacal.results.baseline";
+    /**
+     * The number of concurrent connections of the selector stress test, which only runs when this is set.
+     */
+    public static final String SELECTOR_CONNECTIONS = "maniacal.selectorConnections";
+    /**
+     * The number of requests sent by the selector stress test. Default: 100000.
+     */
+    public static final String SELECTOR_REQUESTS = "maniacal.selectorRequests";
+    /**
+     * Serve HTTP/2 cleartext next to HTTP/1.1, send the raw request matrix as the streams of an HTTP/2
+     * connection (see {@link MultiplexedHttpEngine}), and run the {@link Http2Report}. Default: false.
+     */
+    public static final String H2C = "maniacal.h2c";
+
+    /**
+     * The number of workers of the load test, which only runs when this is set.
+     */
+    public static final String LOAD_CONCURRENCY = "maniacal.load.concurrency";
+    /**
+     * The requests per second of the load test (open loop), 0 for a closed loop. Default: 0.
+     */
+    public static final String LOAD_RATE = "maniacal.load.rate";
+    /**
+     * The seconds of the load test that are recorded, 0 for no limit. Default: 30.
+     */
+    public static final String LOAD_DURATION = "maniacal.load.duration";
+    /**
+     * The number of requests of the load test that are recorded, 0 for no limit. Default: 0.
+     */
+    public static final String LOAD_REQUESTS = "maniacal.load.requests";
+    /**
+     * The seconds of the load test before it records the requests. Default: 5.
+     */
+    public static final String LOAD_WARMUP = "maniacal.load.warmup";
+    /**
+     * Run the {@link ContainerComparison} of the containers, with the load settings. Default: false.
+     */
+    public static final String COMPARE = "maniacal.compare";
+
+    /**
+     * Only resolve the webapp from the {@link #ARTIFACT_DIRECTORY} or the local repository, never from a remote one. Default: false.
+     */
+    public static final String MAVEN_OFFLINE = "maniacal.maven.offline";
+    /**
+     * A directory of artifacts ({@code <artifactId>-<version>[-<classifier>].<extension>}), looked into before the repositories.
+     */
+    public static final String ARTIFACT_DIRECTORY = "maniacal.artifactDirectory";
+    /**
+     * The directory of the exploded WARs, see {@link ExplodedWarCache}. Default: {@code maniacal-war-cache} in {@code java.io.tmpdir}.
+     */
+    public static final String WAR_CACHE = "maniacal.warCache";
+
+    public static int getParallelism()
+    {
+        return Math.max(1, Integer.getInteger(PARALLELISM, 1));
+    }
+
+    public static boolean isVirtualThreads()
+    {
+        return Boolean.parseBoolean(System.getProperty(VIRTUAL_THREADS, "true"));
+    }
+
+    public static int getRawConnections()
+    {
+        return Math.max(1, Integer.getInteger(RAW_CONNECTIONS, 4));
+    }
+
+    public static int getPipelineDepth()
+    {
+        return Math.max(1, Integer.getInteger(PIPELINE_DEPTH, 16));
+    }
+
+    public static int getSelectorConnections()
+    {
+        return Math.max(1, Integer.getInteger(SELECTOR_CONNECTIONS, 1000));
+    }
+
+    public static long getSelectorRequests()
+    {
+        return Math.max(1, Long.getLong(SELECTOR_REQUESTS, 100_000));
+    }
+
+    public static int getLoadConcurrency()
+    {
+        return Math.max(1, Integer.getInteger(LOAD_CONCURRENCY, 1));
+    }
+
+    public static double getLoadRate()
+    {
+        return Math.max(0, Double.parseDouble(System.getProperty(LOAD_RATE, "0")));
+    }
+
+    public static long getLoadDurationMillis()
+    {
+        return Math.max(0, Long.getLong(LOAD_DURATION, 30)) * 1000;
+    }
+
+    public static long getLoadRequests()
+    {
+        return Math.max(0, Long.getLong(LOAD_REQUESTS, 0));
+    }
+
+    public static long getLoadWarmupMillis()
+    {
+        return Math.max(0, Long.getLong(LOAD_WARMUP, 5)) * 1000;
+    }
+
+    public static boolean isMavenOffline()
+    {
+        return Boolean.getBoolean(MAVEN_OFFLINE);
+    }
+
+    public static File getArtifactDirectory()
+    {
+        String directory = System.getProperty(ARTIFACT_DIRECTORY);
+        return directory == null || directory.isEmpty() ? null : new File(directory);
+    }
+
+    public static Path getWarCache()
+    {
+        String directory = System.getProperty(WAR_CACHE);
+        if (directory == null || directory.isEmpty())
+            return Paths.get(System.getProperty("java.io.tmpdir"), "maniacal-war-cache");
+        return Paths.get(directory);
+    }
+
+    public static boolean isIncremental()
+    {
+        return Boolean.getBoolean(INCREMENTAL);
+    }
+
+    public static Path getResultsStore()
+    {
+        String directory = System.getProperty(RESULTS_STORE);
+        if (directory == null || directory.isEmpty())
+            return Paths.get(System.getProperty("java.io.tmpdir"), "maniacal-results-store");
+        return Paths.get(directory);
+    }
+
+    public static Path getResultsBaseline()
+    {
+        String directory = System.getProperty(RESULTS_BASELINE);
+        return directory == null || directory.isEmpty() ? null : Paths.get(directory);
+    }
+
+    public static ResultsFormat getResultsFormat()
+    {
+        return ResultsFormat.from(System.getProperty(RESULTS_FORMAT, "csv"));
+    }
+
+    public static boolean isH2c()
+    {
+        return Boolean.getBoolean(H2C);
+    }
+
+    public static boolean isRedirectMode()
+    {
+        return "redirect".equalsIgnoreCase(System.getProperty(REDIRECT_MODE, "manifest"));
+    }
+}
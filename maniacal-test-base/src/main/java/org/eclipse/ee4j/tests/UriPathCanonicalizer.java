@@ -0,0 +1,364 @@
+package org.eclipse.ee4j.tests;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Canonicalize a raw URI path in one pass: percent-decode it (as UTF-8), apply a
+ * {@link SeparatorPolicy} to the encoded separators {@code %2F} and {@code %5C} (and to a raw
+ * {@code \}), remove the dot segments (RFC 3986 {@code remove_dot_segments}, on the decoded
+ * segments, so {@code %2e%2e} is {@code ..}), and reject any path that goes above its root.
+ * <p>
+ * A segment that holds an encoded separator (decoded or preserved) is rejected if a part of it, between
+ * the separators, is {@code .} or {@code ..}: it would be a dot segment wherever the separator is decoded
+ * later on, eg: {@code %2E%2E%2F%2E%2E} is {@code ../..}.
+ * </p>
+ * <p>
+ * The only allocations are the output {@code char[]}, the offsets of the segments and the resulting String. Results can be
+ * kept in a {@link StripedLruCache} keyed on the raw path, as the same paths are requested again and again.
+ * </p>
+ * <p>
+ * An instance is thread safe.
+ * </p>
+ */
+public class UriPathCanonicalizer
+{
+    public enum SeparatorPolicy
+    {
+        /**
+         * The path is rejected with {@link Rejection#ENCODED_SEPARATOR}.
+         */
+        REJECT,
+        /**
+         * The escape is kept (as upper case {@code %2F} or {@code %5C}) in the segment, and a raw {@code \} is escaped as {@code %5C}.
+         */
+        PRESERVE,
+        /**
+         * The separator is decoded as a character of the segment, eg: {@code a%5Ca/foo.txt} is the file {@code foo.txt} in {@code a\a},
+         * and a {@code ..} segment after it removes the whole {@code a\a}.
+         */
+        DECODE,
+        /**
+         * The separator is decoded as a {@code /} between segments.
+         */
+        SEPARATOR
+    }
+
+    public enum Rejection
+    {
+        /**
+         * A {@code %} not followed by two hex digits (ASCII only, as the {@code HEXDIG} of RFC 3986).
+         */
+        MALFORMED_ESCAPE,
+        /**
+         * Decoded bytes that are not UTF-8.
+         */
+        MALFORMED_UTF8,
+        /**
+         * A {@code %2F}, {@code %5C} or {@code \}, with {@link SeparatorPolicy#REJECT}.
+         */
+        ENCODED_SEPARATOR,
+        /**
+         * A {@code ..} segment above the root of the path, or a {@code .} or {@code ..} next to an encoded separator
+         * (unless it is decoded as a {@link SeparatorPolicy#SEPARATOR}).
+         */
+        TRAVERSAL
+    }
+
+    public static final class Result
+    {
+        private static final Map<Rejection, Result> REJECTED = new EnumMap<>(Rejection.class);
+
+        static
+        {
+            for (Rejection rejection : Rejection.values())
+            {
+                REJECTED.put(rejection, new Result(null, rejection));
+            }
+        }
+
+        private final String path;
+        private final Rejection rejection;
+
+        private Result(String path, Rejection rejection)
+        {
+            this.path = path;
+            this.rejection = rejection;
+        }
+
+        /**
+         * @return the canonical path, or null if rejected
+         */
+        public String getPath()
+        {
+            return path;
+        }
+
+        /**
+         * @return why the path was rejected, or null if it was not
+         */
+        public Rejection getRejection()
+        {
+            return rejection;
+        }
+
+        public boolean isRejected()
+        {
+            return rejection != null;
+        }
+
+        @Override
+        public String toString()
+        {
+            return rejection == null ? path : rejection.toString();
+        }
+    }
+
+    private static final char[] HEXES = "0123456789ABCDEF".toCharArray();
+
+    private final SeparatorPolicy separatorPolicy;
+    private final StripedLruCache<String, Result> cache;
+    private final Function<String, Result> loader;
+
+    /**
+     * A canonicalizer without a cache.
+     */
+    public UriPathCanonicalizer(SeparatorPolicy separatorPolicy)
+    {
+        this(separatorPolicy, 0);
+    }
+
+    /**
+     * @param separatorPolicy what to do with {@code %2F}, {@code %5C} and {@code \}
+     * @param cacheSize the number of results to keep, 0 for none
+     */
+    public UriPathCanonicalizer(SeparatorPolicy separatorPolicy, int cacheSize)
+    {
+        this.separatorPolicy = separatorPolicy;
+        this.cache = cacheSize > 0 ? new StripedLruCache<>(cacheSize, Runtime.getRuntime().availableProcessors() * 4) : null;
+        this.loader = (rawPath) -> canonicalize(rawPath, separatorPolicy);
+    }
+
+    /**
+     * @param rawPath the path of a request URI, without its query
+     * @return the canonical path, or the reason it is rejected
+     */
+    public Result canonicalize(String rawPath)
+    {
+        if (cache == null)
+            return canonicalize(rawPath, separatorPolicy);
+        return cache.get(rawPath, loader);
+    }
+
+    /**
+     * @param rawPath the path of a request URI, without its query
+     * @param separatorPolicy what to do with {@code %2F}, {@code %5C} and {@code \}
+     * @return the canonical path, or the reason it is rejected
+     */
+    public static Result canonicalize(String rawPath, SeparatorPolicy separatorPolicy)
+    {
+        int length = rawPath.length();
+        // decoding only shortens the path, and a preserved escape keeps its length, only a raw '\' escaped grows it
+        int outLength = length;
+        if (separatorPolicy == SeparatorPolicy.PRESERVE)
+        {
+            for (int i = rawPath.indexOf('\\'); i >= 0; i = rawPath.indexOf('\\', i + 1))
+            {
+                outLength += 2;
+            }
+        }
+        char[] out = new char[outLength];
+        int o = 0;
+        int root = length > 0 && rawPath.charAt(0) == '/' ? 1 : 0;
+        // the offsets of the segments before the current one, as a decoded separator is not one of their ends
+        int[] segments = new int[length + 1];
+        int depth = 0;
+        int segment = 0;
+        // the start of the part of the current segment after its last encoded separator, and whether it has one
+        int part = 0;
+        boolean separated = false;
+        // the code point being decoded from a multi-byte UTF-8 sequence, and the bytes it still needs
+        int codePoint = 0;
+        int needed = 0;
+        int minCodePoint = 0;
+
+        for (int i = 0; i < length; i++)
+        {
+            char c = rawPath.charAt(i);
+            int b;
+            if (c == '%')
+            {
+                int hi = i + 2 < length ? hexValue(rawPath.charAt(i + 1)) : -1;
+                int lo = hi < 0 ? -1 : hexValue(rawPath.charAt(i + 2));
+                if (lo < 0)
+                    return Result.REJECTED.get(Rejection.MALFORMED_ESCAPE);
+                b = (hi << 4) | lo;
+                i += 2;
+            }
+            else
+            {
+                if (needed > 0)
+                    return Result.REJECTED.get(Rejection.MALFORMED_UTF8);
+                if (c == '/')
+                {
+                    if (separated && isDotSegment(out, part, o))
+                        return Result.REJECTED.get(Rejection.TRAVERSAL);
+                    o = endSegment(out, o, segment, segments, depth, root, false);
+                    if (o < 0)
+                        return Result.REJECTED.get(Rejection.TRAVERSAL);
+                    // a segment followed by a '/' was pushed, a '..' popped the one before it
+                    depth += Integer.signum(o - segment);
+                    segment = o;
+                    part = o;
+                    separated = false;
+                    continue;
+                }
+                if (c != '\\')
+                {
+                    out[o++] = c;
+                    continue;
+                }
+                // a raw '\' is handled as if it was encoded
+                b = c;
+            }
+
+            if (needed > 0)
+            {
+                // continuation byte of a UTF-8 sequence
+                if ((b & 0xC0) != 0x80)
+                    return Result.REJECTED.get(Rejection.MALFORMED_UTF8);
+                codePoint = (codePoint << 6) | (b & 0x3F);
+                if (--needed == 0)
+                {
+                    // overlong, surrogate or out of range
+                    if (codePoint < minCodePoint || codePoint > Character.MAX_CODE_POINT || codePoint <= 0xFFFF && Character.isSurrogate((char)codePoint))
+                        return Result.REJECTED.get(Rejection.MALFORMED_UTF8);
+                    o += Character.toChars(codePoint, out, o);
+                }
+                continue;
+            }
+            if (b >= 0x80)
+            {
+                // lead byte of a UTF-8 sequence
+                if (b >= 0xC2 && b <= 0xDF)
+                {
+                    codePoint = b & 0x1F;
+                    needed = 1;
+                    minCodePoint = 0x80;
+                }
+                else if (b >= 0xE0 && b <= 0xEF)
+                {
+                    codePoint = b & 0x0F;
+                    needed = 2;
+                    minCodePoint = 0x800;
+                }
+                else if (b >= 0xF0 && b <= 0xF4)
+                {
+                    codePoint = b & 0x07;
+                    needed = 3;
+                    minCodePoint = 0x10000;
+                }
+                else
+                {
+                    return Result.REJECTED.get(Rejection.MALFORMED_UTF8);
+                }
+                continue;
+            }
+
+            if (b == '/' || b == '\\')
+            {
+                switch (separatorPolicy)
+                {
+                    case REJECT:
+                        return Result.REJECTED.get(Rejection.ENCODED_SEPARATOR);
+                    case PRESERVE:
+                        if (isDotSegment(out, part, o))
+                            return Result.REJECTED.get(Rejection.TRAVERSAL);
+                        out[o++] = '%';
+                        out[o++] = HEXES[b >> 4];
+                        out[o++] = HEXES[b & 0xF];
+                        part = o;
+                        separated = true;
+                        continue;
+                    case SEPARATOR:
+                        o = endSegment(out, o, segment, segments, depth, root, false);
+                        if (o < 0)
+                            return Result.REJECTED.get(Rejection.TRAVERSAL);
+                        // a segment followed by a '/' was pushed, a '..' popped the one before it
+                        depth += Integer.signum(o - segment);
+                        segment = o;
+                        part = o;
+                        continue;
+                    default:
+                        if (isDotSegment(out, part, o))
+                            return Result.REJECTED.get(Rejection.TRAVERSAL);
+                        out[o++] = (char)b;
+                        part = o;
+                        separated = true;
+                        continue;
+                }
+            }
+            out[o++] = (char)b;
+        }
+
+        if (needed > 0)
+            return Result.REJECTED.get(Rejection.MALFORMED_UTF8);
+        if (separated && isDotSegment(out, part, o))
+            return Result.REJECTED.get(Rejection.TRAVERSAL);
+        o = endSegment(out, o, segment, segments, depth, root, true);
+        if (o < 0)
+            return Result.REJECTED.get(Rejection.TRAVERSAL);
+        return new Result(new String(out, 0, o), null);
+    }
+
+    /**
+     * End the segment that starts at {@code segment}: drop it if it is {@code .}, drop it and the segment
+     * before it if it is {@code ..}, else follow it with a {@code /} (unless it is the last one) and push its offset.
+     *
+     * @param segments the offsets of the previous segments, {@code depth} of them
+     * @return the new length of the output, or -1 if a {@code ..} goes above the root
+     */
+    private static int endSegment(char[] out, int o, int segment, int[] segments, int depth, int root, boolean last)
+    {
+        if (isDotSegment(out, segment, o))
+        {
+            if (o - segment == 1)
+                return segment;
+            // back to the start of the previous segment, but not above the root (the empty segment before the first '/')
+            if (depth <= root)
+                return -1;
+            return segments[depth - 1];
+        }
+        if (last)
+            return o;
+        segments[depth] = segment;
+        out[o] = '/';
+        return o + 1;
+    }
+
+    /**
+     * Unlike {@link Character#digit(char, int)}, the digits of other scripts (eg: the Arabic-Indic ones) are not hex digits.
+     *
+     * @return the value of the hex digit, or -1 if the char is not one
+     */
+    private static int hexValue(char c)
+    {
+        if (c >= '0' && c <= '9')
+            return c - '0';
+        if (c >= 'A' && c <= 'F')
+            return c - 'A' + 10;
+        if (c >= 'a' && c <= 'f')
+            return c - 'a' + 10;
+        return -1;
+    }
+
+    /**
+     * @return true if the chars from {@code start} to {@code end} are {@code .} or {@code ..}
+     */
+    private static boolean isDotSegment(char[] out, int start, int end)
+    {
+        int length = end - start;
+        return (length == 1 || length == 2) && out[start] == '.' && out[end - 1] == '.';
+    }
+}
@@ -0,0 +1,52 @@
+package org.eclipse.ee4j.tests;
+
+import java.net.URI;
+import java.nio.file.Path;
+
+/**
+ * A servlet container running the maniacal webapp, so that the suites, the load test and the
+ * {@link ContainerComparison} drive every container the same way.
+ */
+public interface WebappContainer
+{
+    /**
+     * @return the name and version of the container, eg: {@code jetty-10.0.6}
+     */
+    String getName();
+
+    /**
+     * @return the settings of the container that change how it answers the maniacal requests,
+     * eg: {@code uriCompliance=RFC3986}, part of the fingerprint of its results in the {@link ResultsStore}
+     */
+    default String getConfiguration()
+    {
+        return "";
+    }
+
+    /**
+     * Start the container on a free port, with the webapp deployed from its exploded directory
+     * at its default context path ({@code /maniacal}).
+     *
+     * @param webappDirectory the exploded WAR
+     * @throws Exception if the container or the webapp does not start
+     */
+    void start(Path webappDirectory) throws Exception;
+
+    /**
+     * Start the container with the webapp under test, resolved by the {@link MavenArtifactResolver}
+     * and exploded in the {@link ExplodedWarCache}.
+     *
+     * @throws Exception if the webapp cannot be resolved, or the container does not start
+     */
+    default void start() throws Exception
+    {
+        start(ExplodedWarCache.explode(MavenArtifactResolver.get().resolveTestWarFile()));
+    }
+
+    /**
+     * @return the URI of the webapp, ending with a {@code /}
+     */
+    URI getWebappURI();
+
+    void stop() throws Exception;
+}
@@ -0,0 +1,82 @@
+package org.eclipse.ee4j.tests;
+
+import java.net.URI;
+
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * One {@link WebappContainer} of a kind for the whole JVM, shared by the test classes
+ * that register this extension, and stopped once they have all run.
+ * <pre>
+ *   &#064;RegisterExtension
+ *   static final WebappContainerExtension CONTAINER = new WebappContainerExtension(JettyWebappContainer.class);
+ * </pre>
+ */
+public class WebappContainerExtension implements BeforeAllCallback
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(WebappContainerExtension.class);
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(WebappContainerExtension.class);
+
+    private final Class<? extends WebappContainer> containerClass;
+    private SharedContainer shared;
+
+    /**
+     * @param containerClass the class of the container, with a public no-argument constructor
+     */
+    public WebappContainerExtension(Class<? extends WebappContainer> containerClass)
+    {
+        this.containerClass = containerClass;
+    }
+
+    @Override
+    public void beforeAll(ExtensionContext context)
+    {
+        // the root store is closed (and the container stopped) after the last test class
+        shared = context.getRoot().getStore(NAMESPACE).getOrComputeIfAbsent(containerClass, this::start, SharedContainer.class);
+    }
+
+    public WebappContainer getContainer()
+    {
+        return shared.container;
+    }
+
+    public URI getWebappURI()
+    {
+        return shared.container.getWebappURI();
+    }
+
+    private SharedContainer start(Class<?> key)
+    {
+        try
+        {
+            WebappContainer container = containerClass.getConstructor().newInstance();
+            long start = System.nanoTime();
+            container.start();
+            LOGGER.info("{} started {} in {} ms", container.getName(), container.getWebappURI(), (System.nanoTime() - start) / 1_000_000);
+            return new SharedContainer(container);
+        }
+        catch (Exception e)
+        {
+            throw new IllegalStateException("Unable to start " + containerClass.getName(), e);
+        }
+    }
+
+    private static class SharedContainer implements ExtensionContext.Store.CloseableResource
+    {
+        private final WebappContainer container;
+
+        private SharedContainer(WebappContainer container)
+        {
+            this.container = container;
+        }
+
+        @Override
+        public void close() throws Exception
+        {
+            container.stop();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package org.eclipse.ee4j.tests;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The request targets of the whole corpus for a deployed webapp: the locations of the
+ * {@link RedirectManifest} and the raw and encoded paths of the {@link MetaInfResourceIndex},
+ * each with the contents its response should have.
+ */
+public class WebappCorpus
+{
+    private static final String ENCODING_DIRECTORY = "encoding";
+
+    /**
+     * @param webappURI the URI of the webapp
+     * @return the request targets (absolute paths, as is) and their expected contents
+     * @throws IOException if the manifest cannot be fetched
+     * @throws InterruptedException if interrupted while fetching the manifest
+     */
+    public static List<Target> get(URI webappURI) throws IOException, InterruptedException
+    {
+        List<Target> targets = new ArrayList<>();
+        for (RedirectManifest.Entry entry : RedirectManifest.fetch(SharedHttpClient.get(), webappURI.resolve("redir-resource/manifest")).getEntries())
+        {
+            targets.add(new Target(entry.getLocation(), entry.getContents()));
+        }
+        for (MetaInfResourceIndex.Entry entry : MetaInfResourceIndex.get().getEntries(ENCODING_DIRECTORY))
+        {
+            targets.add(new Target(webappURI.getRawPath() + entry.getRawPath(), entry.getContents()));
+            targets.add(new Target(webappURI.getRawPath() + entry.getEncodedPath(), entry.getContents()));
+        }
+        return targets;
+    }
+
+    /**
+     * @param targets the targets
+     * @return the request targets alone
+     */
+    public static List<String> requestTargets(List<Target> targets)
+    {
+        List<String> requestTargets = new ArrayList<>(targets.size());
+        for (Target target : targets)
+        {
+            requestTargets.add(target.getRequestTarget());
+        }
+        return requestTargets;
+    }
+
+    public static class Target
+    {
+        private final String requestTarget;
+        private final String expectedContents;
+
+        public Target(String requestTarget, String expectedContents)
+        {
+            this.requestTarget = requestTarget;
+            this.expectedContents = expectedContents;
+        }
+
+        public String getRequestTarget()
+        {
+            return requestTarget;
+        }
+
+        public String getExpectedContents()
+        {
+            return expectedContents;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package org.eclipse.ee4j.tests;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EncodeUtilsTest
+{
+    public static Stream<String> rawPaths() throws IOException
+    {
+        List<String> corpus = MetaInfResourceIndex.get().getEntries().stream()
+            .map(MetaInfResourceIndex.Entry::getRawPath)
+            .collect(Collectors.toList());
+        return Stream.concat(corpus.stream(), Stream.of(
+            "",
+            "del\u007F.txt",
+            "café/naïve.txt",
+            "日本語/ファイル.txt",
+            "emoji-😀.txt",
+            "unpaired-\uD83D.txt",
+            "unpaired-\uDE00-low.txt",
+            "a_long_run_of_unreserved_characters/with-a-few.separators~and_digits_0123456789/then;a;reserved.txt",
+            "!$=!$=!$=!$=!$=!$=/safe-sub-delims-outside-of-the-fast-ranges"
+        ));
+    }
+
+    /**
+     * The encoding that {@link EncodeUtils} has always produced: UTF-8 bytes, with every byte
+     * outside of the safe set as a percent-encoded pair.
+     */
+    private static String referenceEncode(String rawpath)
+    {
+        String safe = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-._~!$&'()*+,/=:@";
+        StringBuilder buf = new StringBuilder();
+        for (byte b : rawpath.getBytes(UTF_8))
+        {
+            if (b >= 0 && safe.indexOf(b) >= 0)
+                buf.append((char)b);
+            else
+                buf.append(String.format("%%%02X", b & 0xFF));
+        }
+        return buf.toString();
+    }
+
+    public static Stream<Arguments> rawPathArguments() throws IOException
+    {
+        return rawPaths().map(rawPath -> Arguments.of(rawPath, referenceEncode(rawPath)));
+    }
+
+    @ParameterizedTest(name = "[{index}] {0}")
+    @MethodSource("rawPathArguments")
+    public void testEncodeJavaPathToUriPath(String rawPath, String expected)
+    {
+        assertEquals(expected, EncodeUtils.encodeJavaPathToUriPath(rawPath));
+        assertEquals(!expected.equals(rawPath), EncodeUtils.needsEncoding(rawPath));
+        assertEquals(expected.length(), EncodeUtils.encodedLength(rawPath));
+    }
+
+    @ParameterizedTest(name = "[{index}] {0}")
+    @MethodSource("rawPathArguments")
+    public void testEncodeToByteBuffer(String rawPath, String expected)
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(EncodeUtils.encodedLength(rawPath) + 2);
+        buffer.put((byte)'>');
+        int len = EncodeUtils.encode(rawPath, buffer);
+        buffer.flip();
+        assertEquals(expected.length(), len);
+        assertEquals(">" + expected, US_ASCII.decode(buffer).toString());
+    }
+
+    @ParameterizedTest(name = "[{index}] {0}")
+    @MethodSource("rawPathArguments")
+    public void testEncodeUtf8BytesToByteBuffer(String rawPath, String expected)
+    {
+        // surround with other bytes to exercise the offset, and the word-at-a-time scan on unaligned reads
+        byte[] utf8 = ("\u00e9" + rawPath + "/").getBytes(UTF_8);
+        int offset = 2;
+        int length = utf8.length - 3;
+        assertEquals(!expected.equals(rawPath), EncodeUtils.needsEncoding(utf8, offset, length));
+        assertEquals(expected.length(), EncodeUtils.encodedLength(utf8, offset, length));
+
+        ByteBuffer buffer = ByteBuffer.allocate(expected.length());
+        int len = EncodeUtils.encode(utf8, offset, length, buffer);
+        buffer.flip();
+        assertEquals(expected.length(), len);
+        assertEquals(expected, US_ASCII.decode(buffer).toString());
+    }
+
+    @ParameterizedTest(name = "[{index}] {0}")
+    @MethodSource("rawPathArguments")
+    public void testEncodeToCharArray(String rawPath, String expected)
+    {
+        char[] chars = new char[EncodeUtils.encodedLength(rawPath) + 1];
+        chars[0] = '>';
+        int end = EncodeUtils.encode(rawPath, chars, 1);
+        assertEquals(chars.length, end);
+        assertEquals(">" + expected, new String(chars));
+    }
+
+    @ParameterizedTest(name = "[{index}] {0}")
+    @MethodSource("rawPathArguments")
+    public void testEncodeToAppendable(String rawPath, String expected) throws IOException
+    {
+        assertEquals(expected, EncodeUtils.encode(rawPath, new StringWriter()).toString());
+        assertEquals(expected, EncodeUtils.encode(rawPath, new StringBuilder()).toString());
+    }
+
+    @Test
+    public void testSafePathIsReturnedUnchanged()
+    {
+        String rawPath = "encoding/exists.txt";
+        assertFalse(EncodeUtils.needsEncoding(rawPath));
+        assertSame(rawPath, EncodeUtils.encodeJavaPathToUriPath(rawPath));
+        assertTrue(EncodeUtils.needsEncoding("encoding/semi;colon/exists.txt"));
+    }
+}
@@ -0,0 +1,138 @@
+package org.eclipse.ee4j.tests;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ExplodedWarCacheTest
+{
+    @Test
+    public void testExplodedOncePerChecksum(@TempDir Path directory) throws IOException
+    {
+        Path war = directory.resolve("webapp.war");
+        Path cache = directory.resolve("cache");
+        writeWar(war, "WEB-INF/web.xml", "<web-app/>", "semi;colon/100%25 #1.txt", "v1");
+
+        Path exploded = ExplodedWarCache.explode(war.toFile(), cache);
+        assertEquals("v1", Files.readString(exploded.resolve("semi;colon/100%25 #1.txt")));
+        assertTrue(Files.isRegularFile(exploded.resolve("WEB-INF/web.xml")));
+
+        // not extracted again while the WAR is the same
+        Files.writeString(exploded.resolve("marker"), "kept");
+        assertEquals(exploded, ExplodedWarCache.explode(war.toFile(), cache));
+        assertTrue(Files.exists(exploded.resolve("marker")));
+
+        writeWar(war, "WEB-INF/web.xml", "<web-app/>", "semi;colon/100%25 #1.txt", "v2");
+        Path rebuilt = ExplodedWarCache.explode(war.toFile(), cache);
+        assertNotEquals(exploded, rebuilt);
+        assertEquals("v2", Files.readString(rebuilt.resolve("semi;colon/100%25 #1.txt")));
+
+        try (var files = Files.list(cache))
+        {
+            assertEquals(1, files.count(), "neither the previous build nor a temporary directory left behind");
+        }
+    }
+
+    @Test
+    public void testChecksumOfContents(@TempDir Path directory) throws IOException
+    {
+        Path war = directory.resolve("webapp.war");
+        writeWar(war, 1_000_000L, "WEB-INF/web.xml", "<web-app/>", "WEB-INF/lib/resources.jar", "a.txt", "a");
+        String checksum = ExplodedWarCache.checksum(war.toFile());
+
+        // rebuilt later: the timestamps of the WAR and of its jar change, not the checksum
+        writeWar(war, 2_000_000L, "WEB-INF/web.xml", "<web-app/>", "WEB-INF/lib/resources.jar", "a.txt", "a");
+        assertEquals(checksum, ExplodedWarCache.checksum(war.toFile()));
+
+        writeWar(war, 2_000_000L, "WEB-INF/web.xml", "<web-app/>", "WEB-INF/lib/resources.jar", "a.txt", "b");
+        assertNotEquals(checksum, ExplodedWarCache.checksum(war.toFile()));
+    }
+
+    /**
+     * Another JVM exploded the same WAR between the check for the directory and the move.
+     */
+    @Test
+    public void testExplodedByAnotherJvm(@TempDir Path directory) throws IOException
+    {
+        Path exploded = directory.resolve("webapp-0123456789abcdef");
+        Files.createDirectories(exploded.resolve("WEB-INF"));
+        Files.writeString(exploded.resolve("WEB-INF/web.xml"), "theirs");
+        Path temp = directory.resolve("webapp.tmp-1");
+        Files.createDirectories(temp.resolve("WEB-INF"));
+        Files.writeString(temp.resolve("WEB-INF/web.xml"), "ours");
+
+        assertFalse(ExplodedWarCache.moveInPlace(temp, exploded));
+        assertEquals("theirs", Files.readString(exploded.resolve("WEB-INF/web.xml")));
+
+        // not a directory in place: the failure is not hidden
+        Path file = directory.resolve("webapp-fedcba9876543210");
+        Files.writeString(file, "not a directory");
+        assertThrows(IOException.class, () -> ExplodedWarCache.moveInPlace(temp, file));
+    }
+
+    @Test
+    public void testEntryOutsideOfWar(@TempDir Path directory) throws IOException
+    {
+        Path war = directory.resolve("evil.war");
+        writeWar(war, "../outside.txt", "nope");
+        assertThrows(IOException.class, () -> ExplodedWarCache.explode(war.toFile(), directory.resolve("cache")));
+        assertTrue(Files.notExists(directory.resolve("outside.txt")));
+    }
+
+    private static void writeWar(Path war, String... namesAndContents) throws IOException
+    {
+        try (OutputStream out = Files.newOutputStream(war))
+        {
+            writeZip(out, System.currentTimeMillis(), namesAndContents);
+        }
+    }
+
+    /**
+     * A WAR with one jar, whose entries are the last two names and contents.
+     */
+    private static void writeWar(Path war, long time, String webXml, String webXmlContents, String jar, String name, String contents) throws IOException
+    {
+        ByteArrayOutputStream jarBytes = new ByteArrayOutputStream();
+        writeZip(jarBytes, time, name, contents);
+        try (OutputStream out = Files.newOutputStream(war);
+             ZipOutputStream zip = new ZipOutputStream(out, UTF_8))
+        {
+            putEntry(zip, time, webXml, webXmlContents.getBytes(UTF_8));
+            putEntry(zip, time, jar, jarBytes.toByteArray());
+        }
+    }
+
+    private static void writeZip(OutputStream out, long time, String... namesAndContents) throws IOException
+    {
+        try (ZipOutputStream zip = new ZipOutputStream(out, UTF_8))
+        {
+            for (int i = 0; i < namesAndContents.length; i += 2)
+            {
+                putEntry(zip, time, namesAndContents[i], namesAndContents[i + 1].getBytes(UTF_8));
+            }
+        }
+    }
+
+    private static void putEntry(ZipOutputStream zip, long time, String name, byte[] contents) throws IOException
+    {
+        ZipEntry entry = new ZipEntry(name);
+        entry.setTime(time);
+        zip.putNextEntry(entry);
+        zip.write(contents);
+        zip.closeEntry();
+    }
+}
@@ -0,0 +1,278 @@
+package org.eclipse.ee4j.tests;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HttpResponseParserTest
+{
+    private static final String CHUNKED = "HTTP/1.1 200 OK\r\n" +
+        "Content-Type: text/plain\r\n" +
+        "Transfer-Encoding: gzip, Chunked\r\n" +
+        "\r\n" +
+        "7;ext=1\r\nfirst l\r\n" +
+        "a\r\nine\nsecond\r\n" +
+        "6\r\n line\n\r\n" +
+        "0\r\n" +
+        "X-Trailer: 1\r\n" +
+        "\r\n";
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 7, 64, 1024})
+    public void testChunkedInPieces(int pieceSize) throws IOException
+    {
+        byte[] bytes = CHUNKED.getBytes(ISO_8859_1);
+        HttpResponseParser parser = newParser();
+        parser.setExpectedContents("line\nsecond line".getBytes(UTF_8));
+        int pos = 0;
+        while (pos < bytes.length && !parser.isComplete())
+        {
+            pos += parser.parse(bytes, pos, Math.min(pieceSize, bytes.length - pos));
+        }
+
+        assertTrue(parser.isComplete());
+        assertEquals(bytes.length, pos);
+        assertEquals(200, parser.getStatus());
+        assertEquals("HTTP/1.1 200 OK", parser.getStatusLine());
+        assertFalse(parser.isClose());
+        assertEquals("first line\nsecond line\n", parser.getContentAsString());
+        assertEquals(23, parser.getContentLength());
+        assertEquals(2, parser.getHeaders().size());
+        assertArrayEquals(new String[]{"Transfer-Encoding", "gzip, Chunked"}, parser.getHeaders().get(1));
+        // matched across the chunks, and not only on the last line
+        assertTrue(parser.containsExpectedContents());
+    }
+
+    @Test
+    public void testExpectedContents() throws IOException
+    {
+        HttpResponseParser parser = new HttpResponseParser();
+        assertTrue(parse(parser, "HTTP/1.1 200 OK\r\nContent-Length: 12\r\n\r\naabaabaabaab", "aabaaab"));
+        assertFalse(parser.containsExpectedContents());
+        assertEquals(12, parser.getContentLength());
+        // not retained
+        assertEquals(0, parser.getContent().length);
+
+        parse(parser, "HTTP/1.1 200 OK\r\nContent-Length: 12\r\n\r\naabaabaaabab", "aabaaab");
+        assertTrue(parser.containsExpectedContents());
+        parse(parser, "HTTP/1.1 200 OK\r\nContent-Length: 0\r\n\r\n", "");
+        assertTrue(parser.containsExpectedContents());
+        // not in the headers
+        parse(parser, "HTTP/1.1 404 Not Found\r\nX-Path: a.txt\r\nContent-Length: 1\r\n\r\na", "a.txt");
+        assertFalse(parser.containsExpectedContents());
+    }
+
+    @Test
+    public void testRetainContentBounded() throws IOException
+    {
+        HttpResponseParser parser = new HttpResponseParser();
+        parser.setRetainContent(4);
+        assertTrue(parse(parser, "HTTP/1.1 200 OK\r\nContent-Length: 12\r\n\r\naabaabaaabab", "aabaaab"));
+        assertEquals("aaba", parser.getContentAsString());
+        assertEquals(12, parser.getContentLength());
+        // searched beyond what is retained
+        assertTrue(parser.containsExpectedContents());
+
+        parse(parser, "HTTP/1.1 200 OK\r\nContent-Length: 2\r\n\r\nab", null);
+        assertEquals("ab", parser.getContentAsString());
+    }
+
+    @Test
+    public void testFraming()
+    {
+        String keepAlive = "HTTP/1.1 200 OK\r\nContent-Length: 3\r\n\r\nabc";
+        String chunked = "HTTP/1.1 404 Not Found\r\nTransfer-Encoding: chunked\r\n\r\n2;x=y\r\nab\r\n0\r\nX-Trailer: 1\r\n\r\n";
+        String close = "HTTP/1.1 400 Bad Request\r\nConnection: close\r\nContent-Length: 0\r\n\r\n";
+        String interim = "HTTP/1.1 100 Continue\r\n\r\nHTTP/1.1 304 Not Modified\r\n\r\n";
+        String unframed = "HTTP/1.0 200 OK\r\n\r\nuntil the end";
+
+        assertArrayEquals(new int[]{keepAlive.length(), 200, 0}, frame(keepAlive + "HTTP/1.1", false));
+        assertArrayEquals(new int[]{chunked.length(), 404, 0}, frame(chunked, false));
+        assertArrayEquals(new int[]{close.length(), 400, 1}, frame(close, false));
+        assertArrayEquals(new int[]{interim.length(), 304, 0}, frame(interim, false));
+        assertArrayEquals(new int[]{unframed.length(), 200, 1}, frame(unframed, true));
+
+        // incomplete
+        for (String response : List.of(keepAlive, chunked, close, interim))
+        {
+            for (int len = 0; len < response.length(); len++)
+            {
+                assertNull(frame(response.substring(0, len), false), response.substring(0, len));
+            }
+        }
+        assertNull(frame(unframed, false));
+    }
+
+    @Test
+    public void testContentMatcher()
+    {
+        assertTrue(HttpResponseParser.ContentMatcher.contains("aabaabaaabab".getBytes(UTF_8), "aabaaab".getBytes(UTF_8)));
+        assertFalse(HttpResponseParser.ContentMatcher.contains("aabaabaabaab".getBytes(UTF_8), "aabaaab".getBytes(UTF_8)));
+        assertTrue(HttpResponseParser.ContentMatcher.contains(new byte[0], new byte[0]));
+        assertFalse(HttpResponseParser.ContentMatcher.contains("ab".getBytes(UTF_8), "abc".getBytes(UTF_8)));
+    }
+
+    @Test
+    public void testPipelined() throws IOException
+    {
+        String responses = "HTTP/1.1 100 Continue\r\n\r\n" +
+            "HTTP/1.1 200 OK\r\ncontent-length:  3 \r\n\r\nabc" +
+            "HTTP/1.1 304 Not Modified\r\nContent-Length: 10\r\n\r\n" +
+            "HTTP/1.1 200 OK\r\nContent-Length: 10\r\n\r\n" +
+            "HTTP/1.0 200 OK\r\nContent-Length: 1\r\n\r\nx" +
+            "HTTP/1.1 400 Bad Request\r\nConnection: keep-alive, Close\r\n\r\n";
+        InputStream in = new ByteArrayInputStream(responses.getBytes(ISO_8859_1));
+        HttpResponseParser parser = newParser();
+
+        assertTrue(parser.read(in));
+        assertEquals(200, parser.getStatus());
+        assertEquals("abc", parser.getContentAsString());
+        assertFalse(parser.isClose());
+
+        parser.reset(false);
+        assertTrue(parser.read(in));
+        assertEquals(304, parser.getStatus());
+        assertEquals(0, parser.getContentLength());
+
+        parser.reset(true);
+        assertTrue(parser.read(in));
+        assertEquals(200, parser.getStatus());
+        assertEquals(0, parser.getContentLength());
+
+        parser.reset(false);
+        assertTrue(parser.read(in));
+        assertEquals("x", parser.getContentAsString());
+        assertTrue(parser.isClose());
+
+        parser.reset(false);
+        assertTrue(parser.read(in));
+        assertEquals(400, parser.getStatus());
+        assertTrue(parser.isClose());
+        assertEquals("", parser.getContentAsString());
+
+        parser.reset(false);
+        assertFalse(parser.read(in));
+        assertEquals(-1, parser.getStatus());
+        assertNull(parser.getStatusLine());
+    }
+
+    @Test
+    public void testEndOfConnection() throws IOException
+    {
+        HttpResponseParser parser = newParser();
+        assertTrue(parser.read(new ByteArrayInputStream("HTTP/1.1 200 OK\r\n\r\nline 1\nline 2\n".getBytes(ISO_8859_1))));
+        assertEquals("line 1\nline 2\n", parser.getContentAsString());
+        assertTrue(parser.isClose());
+
+        parser.recycle();
+        assertThrows(EOFException.class, () -> parser.read(new ByteArrayInputStream("HTTP/1.1 200 OK\r\nContent-Length: 5\r\n\r\nabc".getBytes(ISO_8859_1))));
+        parser.recycle();
+        assertThrows(EOFException.class, () -> parser.read(new ByteArrayInputStream("HTTP/1.1 100 Continue\r\n\r\n".getBytes(ISO_8859_1))));
+        parser.recycle();
+        assertThrows(EOFException.class, () -> parser.read(new ByteArrayInputStream("HTTP/1.1 20".getBytes(ISO_8859_1))));
+    }
+
+    @Test
+    public void testDirectBuffer() throws IOException
+    {
+        String first = "HTTP/1.1 200 OK\r\nContent-Length: 2\r\n\r\nok";
+        String second = "HTTP/1.1 404 Not Found\r\nContent-Length: 0\r\n\r\n";
+        byte[] bytes = (first + second).getBytes(ISO_8859_1);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes).flip();
+
+        HttpResponseParser parser = newParser();
+        assertTrue(parser.parse(buffer));
+        assertEquals("ok", parser.getContentAsString());
+        assertEquals(first.length(), buffer.position());
+        parser.reset(false);
+        assertTrue(parser.parse(buffer));
+        assertEquals(404, parser.getStatus());
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "HTTTP/1.1 200 OK\r\n\r\n",
+        "HTTP/1.1 2x0 OK\r\n\r\n",
+        "HTTP/1.1\r\n\r\n",
+        "HTTP/1.1 200 OK\r\nContent-Length: -1\r\n\r\n",
+        "HTTP/1.1 200 OK\r\nContent-Length: 99999999999999999999\r\n\r\n",
+        "HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\nzz\r\n",
+        "HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n1\r\nab\r\n"
+    })
+    public void testBadResponse(String response)
+    {
+        assertThrows(IOException.class, () -> parse(new HttpResponseParser(), response, null));
+    }
+
+    @Test
+    public void testLineTooLong()
+    {
+        String response = "HTTP/1.1 200 OK\r\nX-Long: " + "x".repeat(64 * 1024) + "\r\n\r\n";
+        assertThrows(IOException.class, () -> parse(new HttpResponseParser(), response, null));
+    }
+
+    private static HttpResponseParser newParser()
+    {
+        HttpResponseParser parser = new HttpResponseParser();
+        parser.setRetainHeaders(true);
+        parser.setRetainContent(true);
+        return parser;
+    }
+
+    /**
+     * @param eof true if the connection was closed after the response
+     * @return null if the response is not complete yet, else {the response length, the status, 1 if the connection closes},
+     * with a status of {@code -1} if the response cannot be framed
+     */
+    private static int[] frame(String response, boolean eof)
+    {
+        byte[] bytes = response.getBytes(ISO_8859_1);
+        HttpResponseParser parser = new HttpResponseParser();
+        try
+        {
+            int length = parser.parse(bytes, 0, bytes.length);
+            if (!parser.isComplete())
+            {
+                if (!eof || !parser.eof())
+                    return null;
+                length = bytes.length;
+            }
+            return new int[]{length, parser.getStatus(), parser.isClose() ? 1 : 0};
+        }
+        catch (EOFException e)
+        {
+            return null;
+        }
+        catch (IOException e)
+        {
+            return new int[]{bytes.length, -1, 1};
+        }
+    }
+
+    private static boolean parse(HttpResponseParser parser, String response, String expected) throws IOException
+    {
+        byte[] bytes = response.getBytes(ISO_8859_1);
+        parser.recycle();
+        parser.setExpectedContents(expected == null ? null : expected.getBytes(UTF_8));
+        assertEquals(bytes.length, parser.parse(bytes, 0, bytes.length));
+        return parser.isComplete();
+    }
+}
@@ -0,0 +1,69 @@
+package org.eclipse.ee4j.tests;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LoadGeneratorTest
+{
+    private RawTestServer server;
+    private List<String> targets;
+
+    @BeforeEach
+    public void startServer() throws IOException
+    {
+        server = new RawTestServer();
+        targets = RawTestServer.paths(10).stream()
+            .map(path -> "/" + path)
+            .collect(Collectors.toList());
+    }
+
+    @AfterEach
+    public void stopServer() throws Exception
+    {
+        server.close();
+    }
+
+    @Test
+    public void testClosedLoopRequests() throws IOException
+    {
+        // per 10 paths: 7 plain and 1 chunked (200), 1 close (400), 1 drop (no response)
+        LoadGenerator.Report report = new LoadGenerator(server.getURI(), targets).run(1, 0, 0, 0, 100);
+
+        assertEquals(100, report.getRequests());
+        Map<Integer, Histogram> latencies = report.getLatenciesByStatus();
+        assertEquals(List.of(-1, 200, 400), List.copyOf(latencies.keySet()));
+        assertEquals(80, latencies.get(200).getTotalCount());
+        assertEquals(10, latencies.get(400).getTotalCount());
+        assertEquals(10, latencies.get(-1).getTotalCount());
+    }
+
+    @Test
+    public void testConcurrentRequests() throws IOException
+    {
+        LoadGenerator.Report report = new LoadGenerator(server.getURI(), targets).run(8, 0, 100, 0, 400);
+
+        assertEquals(400, report.getRequests());
+        assertEquals(400, report.getLatenciesByStatus().values().stream().mapToLong(Histogram::getTotalCount).sum());
+    }
+
+    @Test
+    public void testOpenLoopRate() throws IOException
+    {
+        // the requests due in the second after the warm-up, at 100/s, whatever the responses
+        LoadGenerator.Report report = new LoadGenerator(server.getURI(), targets).run(8, 100, 200, 1000, 0);
+
+        assertTrue(Math.abs(report.getRequests() - 100) <= 1, "requests " + report.getRequests());
+        assertTrue(report.getLatencies().getMinValue() >= 0);
+        assertTrue(report.toString().contains("open loop at 100 req/s"), report.toString());
+    }
+}
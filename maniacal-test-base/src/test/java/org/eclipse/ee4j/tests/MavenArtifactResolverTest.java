@@ -0,0 +1,60 @@
+package org.eclipse.ee4j.tests;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.eclipse.aether.resolution.ArtifactResolutionException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MavenArtifactResolverTest
+{
+    @Test
+    public void testBuildVersion()
+    {
+        String version = MavenArtifactResolver.getBuildVersion();
+        assertFalse(version.isEmpty());
+        assertFalse(version.contains("${"), version);
+    }
+
+    @Test
+    public void testArtifactDirectory(@TempDir Path directory) throws Exception
+    {
+        Path war = Files.createFile(directory.resolve("maniacal-webapp-9.9-SNAPSHOT.war"));
+        Path classified = Files.createFile(directory.resolve("metainf-resources-encoding-9.9-SNAPSHOT-resources.jar"));
+
+        MavenArtifactResolver resolver = new MavenArtifactResolver();
+        resolver.setOffline(true);
+        resolver.setArtifactDirectory(directory.toFile());
+        resolver.setTestBaseVersion("9.9-SNAPSHOT");
+
+        File file = resolver.resolveTestWarFile();
+        assertEquals(war.toFile(), file);
+        assertSame(file, resolver.resolveTestWarFile());
+        assertEquals(classified.toFile(), resolver.resolveArtifact("org.eclipse.ee4j.tests:metainf-resources-encoding:jar:resources:9.9-SNAPSHOT"));
+
+        // remembered only as long as the file is there
+        Files.delete(war);
+        assertThrows(ArtifactResolutionException.class, resolver::resolveTestWarFile);
+    }
+
+    @Test
+    public void testOfflineLocalRepository() throws Exception
+    {
+        // a dependency of this module, so it is in the local repository of the build
+        MavenArtifactResolver resolver = new MavenArtifactResolver();
+        resolver.setOffline(true);
+        File file = resolver.resolveArtifact("org.hamcrest:hamcrest:jar:2.2");
+        assertTrue(file.isFile(), file.toString());
+        assertTrue(file.toPath().startsWith(resolver.getMavenLocalRepository()), file.toString());
+
+        assertThrows(ArtifactResolutionException.class, () -> resolver.resolveArtifact("org.eclipse.ee4j.tests:no-such-artifact:jar:0"));
+    }
+}
@@ -0,0 +1,129 @@
+package org.eclipse.ee4j.tests;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.http.UriCompliance;
+import org.eclipse.jetty.http2.server.HTTP2CServerConnectionFactory;
+import org.eclipse.jetty.io.ConnectionStatistics;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MultiplexedHttpEngineTest
+{
+    private Server server;
+    private ConnectionStatistics connections;
+    private URI serverURI;
+
+    @BeforeEach
+    public void startServer() throws Exception
+    {
+        server = new Server();
+        HttpConfiguration httpConfiguration = new HttpConfiguration();
+        httpConfiguration.setUriCompliance(UriCompliance.RFC3986);
+        ServerConnector connector = new ServerConnector(server, new HTTP2CServerConnectionFactory(httpConfiguration));
+        connections = new ConnectionStatistics();
+        connector.addBean(connections);
+        server.addConnector(connector);
+        server.setHandler(new AbstractHandler()
+        {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException
+            {
+                baseRequest.setHandled(true);
+                // the :path as received
+                response.getOutputStream().write(baseRequest.getHttpURI().getPathQuery().getBytes(UTF_8));
+            }
+        });
+        server.start();
+        serverURI = URI.create("http://localhost:" + connector.getLocalPort() + "/");
+    }
+
+    @AfterEach
+    public void stopServer() throws Exception
+    {
+        server.stop();
+    }
+
+    @Test
+    public void testResponsesMatchRequests() throws IOException
+    {
+        List<String> paths = new ArrayList<>();
+        for (int i = 0; i < 500; i++)
+        {
+            paths.add("ok/" + i + (i % 3 == 0 ? "/semi;colon%3B?q=%23" : "/%2e%2e/x"));
+        }
+        // more streams than the server allows at once
+        List<RawResponse> responses = new MultiplexedHttpEngine(serverURI, 1000).execute(paths);
+
+        assertEquals(paths.size(), responses.size());
+        for (int i = 0; i < paths.size(); i++)
+        {
+            RawResponse response = responses.get(i);
+            assertEquals(200, response.getStatus(), paths.get(i));
+            assertEquals("HTTP/2 200", response.getStatusLine());
+            assertEquals("/" + paths.get(i), response.getBodyAsString());
+        }
+    }
+
+    @Test
+    public void testRequestsSentAgainAfterGoAway() throws IOException
+    {
+        // the server cannot parse an invalid percent-encoding, and closes the connection
+        List<String> paths = List.of("ok/1", "bad/100%_valid", "ok/2", "ok/3", "bad/50%-off", "ok/4");
+        List<RawResponse> responses = new MultiplexedHttpEngine(serverURI).execute(paths);
+
+        for (int i = 0; i < paths.size(); i++)
+        {
+            String path = paths.get(i);
+            RawResponse response = responses.get(i);
+            if (path.startsWith("bad/"))
+            {
+                assertNotNull(response.getFailure(), "no response to " + path);
+                continue;
+            }
+            assertEquals(200, response.getStatus(), path);
+            assertEquals("/" + path, response.getBodyAsString());
+        }
+    }
+
+    @Test
+    public void testOneConnectionPerGoAway() throws IOException
+    {
+        List<String> paths = new ArrayList<>();
+        for (int i = 0; i < 300; i++)
+        {
+            paths.add(i % 100 == 50 ? "bad/" + i + "%_played" : "ok/" + i);
+        }
+        // one stream at a time, so that the server has no request left unread when it closes the connection:
+        // it would reset it, and the GOAWAY could be lost (then the requests are only sent again)
+        List<RawResponse> responses = new MultiplexedHttpEngine(serverURI, 1).execute(paths);
+
+        for (int i = 0; i < paths.size(); i++)
+        {
+            String path = paths.get(i);
+            if (path.startsWith("bad/"))
+                assertNotNull(responses.get(i).getFailure(), "no response to " + path);
+            else
+                assertEquals("/" + path, responses.get(i).getBodyAsString(), path);
+        }
+        // the GOAWAY fails the request that caused it, and the requests after it are sent on the next connection,
+        // with up to two more connections if a GOAWAY is lost as the server resets the connection
+        assertTrue(connections.getConnectionsTotal() <= 3 + 1 + 2, connections.getConnectionsTotal() + " connections");
+    }
+}
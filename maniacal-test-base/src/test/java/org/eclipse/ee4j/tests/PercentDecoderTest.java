@@ -0,0 +1,177 @@
+package org.eclipse.ee4j.tests;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PercentDecoderTest
+{
+    private static final long SEED = 0x6D616E6961636C4CL;
+
+    /**
+     * Decode the input split into chunks at the given sizes (repeating the last size).
+     */
+    private static byte[] decodeChunked(byte[] input, int[] chunkSizes, boolean inPlace, PercentDecoder decoder)
+    {
+        ByteBuffer result = ByteBuffer.allocate(input.length * 2 + 16);
+        int pos = 0;
+        int chunk = 0;
+        while (pos < input.length)
+        {
+            int size = Math.min(chunkSizes[Math.min(chunk++, chunkSizes.length - 1)], input.length - pos);
+            ByteBuffer in = ByteBuffer.wrap(input, pos, size).slice();
+            if (inPlace)
+            {
+                ByteBuffer copy = ByteBuffer.allocate(size).put(in).flip();
+                decoder.decodeInPlace(copy);
+                result.put(copy);
+            }
+            else
+            {
+                // a small output buffer, to also exercise the out is full case
+                ByteBuffer out = ByteBuffer.allocate(3);
+                while (in.hasRemaining())
+                {
+                    decoder.decode(in, out);
+                    result.put(out.flip());
+                    out.clear();
+                }
+            }
+            pos += size;
+        }
+        ByteBuffer out = ByteBuffer.allocate(2);
+        while (!decoder.finish(out))
+        {
+            result.put(out.flip());
+            out.clear();
+        }
+        result.put(out.flip());
+        result.flip();
+        byte[] bytes = new byte[result.remaining()];
+        result.get(bytes);
+        return bytes;
+    }
+
+    public static Stream<Arguments> roundTripArguments() throws IOException
+    {
+        List<Arguments> args = new ArrayList<>();
+        Random random = new Random(SEED);
+        EncodeUtilsTest.rawPaths().forEach(rawPath ->
+        {
+            for (boolean inPlace : new boolean[]{false, true})
+            {
+                for (int size = 1; size <= 4; size++)
+                {
+                    args.add(Arguments.of(rawPath, new int[]{size}, inPlace));
+                }
+                // a random split, and a split at every offset of the first escape
+                args.add(Arguments.of(rawPath, random.ints(16, 1, 10).toArray(), inPlace));
+                for (int offset = 1; offset < 4; offset++)
+                {
+                    int escape = EncodeUtils.encodeJavaPathToUriPath(rawPath).indexOf('%');
+                    if (escape >= 0)
+                        args.add(Arguments.of(rawPath, new int[]{escape + offset, Integer.MAX_VALUE}, inPlace));
+                }
+            }
+        });
+        return args.stream();
+    }
+
+    @ParameterizedTest(name = "[{index}] {0} - chunks {1} - in place {2}")
+    @MethodSource("roundTripArguments")
+    public void testRoundTrip(String rawPath, int[] chunkSizes, boolean inPlace)
+    {
+        byte[] encoded = EncodeUtils.encodeJavaPathToUriPath(rawPath).getBytes(UTF_8);
+        PercentDecoder decoder = new PercentDecoder();
+        byte[] decoded = decodeChunked(encoded, chunkSizes, inPlace, decoder);
+        assertArrayEquals(rawPath.getBytes(UTF_8), decoded);
+        assertEquals(0, decoder.getMalformedCount());
+    }
+
+    public static Stream<Arguments> malformedArguments()
+    {
+        return Stream.of(
+            Arguments.of("this_is_100%_valid.txt", List.of(11L)),
+            Arguments.of("vote-results-50%-of-precincts.txt", List.of(15L)),
+            Arguments.of("%_played.txt", List.of(0L)),
+            Arguments.of("%%41", List.of(0L)),
+            Arguments.of("%4%", List.of(0L, 2L)),
+            Arguments.of("trailing%", List.of(8L)),
+            Arguments.of("trailing%4", List.of(8L)),
+            Arguments.of("%zz%2", List.of(0L, 3L))
+        );
+    }
+
+    @ParameterizedTest(name = "[{index}] {0}")
+    @MethodSource("malformedArguments")
+    public void testMalformed(String input, List<Long> expectedOffsets)
+    {
+        // the well formed %41 decodes, everything malformed passes through
+        String expected = input.replace("%41", "A");
+        for (boolean inPlace : new boolean[]{false, true})
+        {
+            for (int size = 1; size <= input.length(); size++)
+            {
+                List<Long> offsets = new ArrayList<>();
+                PercentDecoder decoder = new PercentDecoder(offsets::add);
+                byte[] decoded = decodeChunked(input.getBytes(UTF_8), new int[]{size}, inPlace, decoder);
+                assertEquals(expected, new String(decoded, UTF_8), "chunk size " + size + " in place " + inPlace);
+                assertEquals(expectedOffsets, offsets, "chunk size " + size + " in place " + inPlace);
+                assertEquals(expectedOffsets.size(), decoder.getMalformedCount());
+            }
+        }
+    }
+
+    @Test
+    public void testEscapeSplitAcrossChunks()
+    {
+        List<Long> offsets = new ArrayList<>();
+        PercentDecoder decoder = new PercentDecoder(offsets::add);
+        ByteBuffer out = ByteBuffer.allocate(16);
+        decoder.decode(ByteBuffer.wrap("%2".getBytes(UTF_8)), out);
+        assertEquals(0, out.position());
+        decoder.decode(ByteBuffer.wrap("e%".getBytes(UTF_8)), out);
+        decoder.decode(ByteBuffer.wrap("2".getBytes(UTF_8)), out);
+        decoder.decode(ByteBuffer.wrap("E".getBytes(UTF_8)), out);
+        assertTrue(decoder.finish(out));
+        assertEquals("..", new String(out.array(), 0, out.position(), UTF_8));
+        assertThat(offsets, empty());
+    }
+
+    @Test
+    public void testMalformedCarryInPlace()
+    {
+        List<Long> offsets = new ArrayList<>();
+        PercentDecoder decoder = new PercentDecoder(offsets::add);
+
+        ByteBuffer chunk = ByteBuffer.wrap("ab%".getBytes(UTF_8));
+        decoder.decodeInPlace(chunk);
+        assertEquals("ab", UTF_8.decode(chunk).toString());
+
+        // the carried "%" plus "x" do not fit in the one byte chunk
+        chunk = ByteBuffer.wrap("x".getBytes(UTF_8));
+        decoder.decodeInPlace(chunk);
+        assertEquals("%", UTF_8.decode(chunk).toString());
+
+        ByteBuffer out = ByteBuffer.allocate(4);
+        assertTrue(decoder.finish(out));
+        assertEquals("x", new String(out.array(), 0, out.position(), UTF_8));
+        assertThat(offsets, contains(2L));
+    }
+}
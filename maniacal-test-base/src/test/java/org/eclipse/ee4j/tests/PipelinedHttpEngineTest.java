@@ -0,0 +1,54 @@
+package org.eclipse.ee4j.tests;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+public class PipelinedHttpEngineTest
+{
+    private RawTestServer server;
+
+    @BeforeEach
+    public void startServer() throws IOException
+    {
+        server = new RawTestServer();
+    }
+
+    @AfterEach
+    public void stopServer() throws Exception
+    {
+        server.close();
+    }
+
+    @ParameterizedTest
+    @CsvSource({"1,1", "1,16", "3,4", "8,64"})
+    public void testResponsesMatchRequests(int connections, int pipelineDepth) throws IOException
+    {
+        List<String> paths = RawTestServer.paths(200);
+        URI baseURI = server.getURI();
+        List<RawResponse> responses = new PipelinedHttpEngine(baseURI, connections, pipelineDepth).execute(paths);
+
+        assertEquals(paths.size(), responses.size());
+        for (int i = 0; i < paths.size(); i++)
+        {
+            String path = paths.get(i);
+            RawResponse response = responses.get(i);
+            if (path.startsWith("drop/"))
+            {
+                assertNotNull(response.getFailure(), "no response to " + path);
+                continue;
+            }
+            assertEquals(path.startsWith("close/") ? 400 : 200, response.getStatus(), path);
+            // the exact (unnormalized) request target made it to the server, and back to the right request
+            assertEquals("/" + path, response.getBodyAsString());
+        }
+    }
+}
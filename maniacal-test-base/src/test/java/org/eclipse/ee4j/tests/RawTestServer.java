@@ -0,0 +1,145 @@
+package org.eclipse.ee4j.tests;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A server that answers each request line with the raw request target as the body:
+ * {@code /chunked/*} with a chunked body, {@code /close/*} with a {@code 400} and {@code Connection: close}
+ * (after which any pipelined request is lost), and {@code /drop/*} by closing the
+ * connection without a response.
+ */
+public class RawTestServer implements Closeable
+{
+    private final ServerSocket serverSocket;
+    private final Thread acceptor;
+
+    public RawTestServer() throws IOException
+    {
+        serverSocket = new ServerSocket(0, 1024, InetAddress.getLoopbackAddress());
+        acceptor = new Thread(() ->
+        {
+            while (!serverSocket.isClosed())
+            {
+                try
+                {
+                    Socket socket = serverSocket.accept();
+                    Thread handler = new Thread(() -> handle(socket));
+                    handler.setDaemon(true);
+                    handler.start();
+                }
+                catch (IOException e)
+                {
+                    // closed
+                }
+            }
+        });
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * @param count the number of paths
+     * @return a mix of the paths the server knows, every one of them different
+     */
+    public static List<String> paths(int count)
+    {
+        List<String> paths = new ArrayList<>();
+        for (int i = 0; i < count; i++)
+        {
+            switch (i % 10)
+            {
+                case 3:
+                    paths.add("chunked/" + i + "/été");
+                    break;
+                case 5:
+                    paths.add("close/" + i + "/%2F..%5C");
+                    break;
+                case 7:
+                    paths.add("drop/" + i);
+                    break;
+                default:
+                    paths.add("plain/" + i + "/a%20b;c?d");
+                    break;
+            }
+        }
+        return paths;
+    }
+
+    public URI getURI()
+    {
+        return URI.create("http://localhost:" + serverSocket.getLocalPort() + "/");
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        serverSocket.close();
+        try
+        {
+            acceptor.join();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void handle(Socket socket)
+    {
+        try (Socket s = socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), ISO_8859_1));
+             OutputStream out = s.getOutputStream())
+        {
+            String requestLine;
+            while ((requestLine = in.readLine()) != null)
+            {
+                String line;
+                while ((line = in.readLine()) != null && !line.isEmpty())
+                {
+                    // skip the headers
+                }
+                String target = requestLine.split(" ")[1];
+                byte[] body = new String(target.getBytes(ISO_8859_1), UTF_8).getBytes(UTF_8);
+                if (target.startsWith("/drop/"))
+                    return;
+                if (target.startsWith("/chunked/"))
+                {
+                    out.write("HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n".getBytes(ISO_8859_1));
+                    int half = body.length / 2;
+                    out.write(String.format("%x;ext=1\r\n", half).getBytes(ISO_8859_1));
+                    out.write(body, 0, half);
+                    out.write(String.format("\r\n%x\r\n", body.length - half).getBytes(ISO_8859_1));
+                    out.write(body, half, body.length - half);
+                    out.write("\r\n0\r\nX-Trailer: yes\r\n\r\n".getBytes(ISO_8859_1));
+                }
+                else
+                {
+                    boolean close = target.startsWith("/close/");
+                    out.write(String.format("HTTP/1.1 %s\r\nContent-Length: %d\r\n%s\r\n",
+                        close ? "400 Bad Request" : "200 OK", body.length, close ? "Connection: close\r\n" : "").getBytes(ISO_8859_1));
+                    out.write(body);
+                }
+                out.flush();
+                if (target.startsWith("/close/"))
+                    return;
+            }
+        }
+        catch (IOException e)
+        {
+            // the client went away
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package org.eclipse.ee4j.tests;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class RedirectManifestTest
+{
+    @Test
+    public void testParse() throws IOException
+    {
+        List<RedirectManifest.Entry> entries = RedirectManifest.parse(
+            "0\texists.txt\tThis content is the root of the webapp / war\t/maniacal/exists.txt\n" +
+            "1\tslosh/a%5Ca/foo.txt\tthis is content in a\\\\a/foo.txt\t/maniacal/slosh/a%5Ca/foo.txt\n" +
+            "2\ttab\\there.txt\tline\\none\\r\\n\t\n");
+
+        assertEquals(3, entries.size());
+        assertEquals("exists.txt", entries.get(0).getRawPath());
+        assertEquals("/maniacal/exists.txt", entries.get(0).getLocation());
+        assertEquals(1, entries.get(1).getIdx());
+        assertEquals("this is content in a\\a/foo.txt", entries.get(1).getContents());
+        assertEquals("tab\there.txt", entries.get(2).getRawPath());
+        assertEquals("line\none\r\n", entries.get(2).getContents());
+        assertEquals("", entries.get(2).getLocation());
+    }
+
+    @Test
+    public void testParseBadLine()
+    {
+        assertThrows(IOException.class, () -> RedirectManifest.parse("0\tmissing-fields.txt\n"));
+        assertThrows(IOException.class, () -> RedirectManifest.parse("zero\ta\tb\tc\n"));
+    }
+}
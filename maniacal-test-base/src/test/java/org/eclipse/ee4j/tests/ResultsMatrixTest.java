@@ -0,0 +1,192 @@
+package org.eclipse.ee4j.tests;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ResultsMatrixTest
+{
+    private static final List<ResultRow> ROWS = List.of(
+        new ResultRow("plain.txt", "OK", "plain.txt", "OK"),
+        new ResultRow("a b\"c\\d\t.txt", "400 Bad Request", "a%20b%22c%5Cd%09.txt", "404 Not Found"),
+        new ResultRow("été/😀.txt", "OK", "%C3%A9t%C3%A9/%F0%9F%98%80.txt", "Exception: java.io.EOFException: null"),
+        new ResultRow("again.txt", "404 Not Found", "again.txt", "OK"));
+
+    private RawTestServer server;
+
+    @BeforeEach
+    public void startServer() throws IOException
+    {
+        server = new RawTestServer();
+    }
+
+    @AfterEach
+    public void stopServer() throws Exception
+    {
+        server.close();
+    }
+
+    @ParameterizedTest
+    @CsvSource({"1,1", "3,7", "8,64"})
+    public void testRowsInOrder(int workers, int batchSize) throws IOException
+    {
+        List<MetaInfResourceIndex.Entry> cases = new ArrayList<>();
+        for (String path : RawTestServer.paths(300))
+        {
+            cases.add(new MetaInfResourceIndex.Entry(path, 0, 0, () -> "/" + path));
+        }
+
+        List<ResultRow> rows = new ArrayList<>();
+        ResultsWriter writer = new ResultsWriter()
+        {
+            @Override
+            public void write(ResultRow row)
+            {
+                rows.add(row);
+            }
+
+            @Override
+            public void close()
+            {
+            }
+        };
+        ResultsMatrix matrix = new ResultsMatrix(server.getURI(), workers, 4, batchSize,
+            (response, expected) -> response.getFailure() != null ? "failed" : response.getStatus() + " " + response.getBodyAsString().equals(expected));
+        assertEquals(cases.size(), matrix.run(cases.iterator(), writer));
+
+        assertEquals(cases.size(), rows.size());
+        for (int i = 0; i < cases.size(); i++)
+        {
+            String path = cases.get(i).getRawPath();
+            ResultRow row = rows.get(i);
+            assertEquals(path, row.getRawPath());
+            assertEquals(EncodeUtils.encodeJavaPathToUriPath(path), row.getEncodedPath());
+            String expected = path.startsWith("drop/") ? "failed" : path.startsWith("close/") ? "400 true" : "200 true";
+            assertEquals(expected, row.getRawResult(), path);
+        }
+    }
+
+    @Test
+    public void testIncremental(@TempDir Path directory) throws IOException
+    {
+        List<MetaInfResourceIndex.Entry> cases = new ArrayList<>();
+        for (String path : RawTestServer.paths(100))
+        {
+            cases.add(new MetaInfResourceIndex.Entry(path, path.hashCode(), path.length(), () -> "/" + path));
+        }
+        ResultsStore store = new ResultsStore("test", directory.resolve("test.mrs"));
+        AtomicInteger described = new AtomicInteger();
+        ResultsMatrix matrix = new ResultsMatrix(server.getURI(), 2, 4, 8, (response, expected) ->
+        {
+            described.incrementAndGet();
+            return response.getFailure() != null ? "failed" : response.getStatus() + " " + response.getBodyAsString().equals(expected);
+        });
+
+        List<ResultRow> first = new ArrayList<>();
+        matrix.run(cases.iterator(), collect(first), store);
+        assertEquals(cases.size() * 2, described.get());
+        long failed = first.stream().filter(row -> row.getRawResult().equals("failed")).count();
+        assertTrue(failed > 0);
+
+        // only the failed requests (not stored) and the changed entry are requested again
+        cases.set(0, new MetaInfResourceIndex.Entry(cases.get(0).getRawPath(), 42, 0, () -> "changed"));
+        described.set(0);
+        List<ResultRow> second = new ArrayList<>();
+        matrix.run(cases.iterator(), collect(second), store);
+        assertEquals(failed * 2 + 2, described.get());
+        assertEquals(first.subList(1, first.size()), second.subList(1, second.size()));
+        assertEquals("200 false", second.get(0).getRawResult());
+    }
+
+    private static ResultsWriter collect(List<ResultRow> rows)
+    {
+        return new ResultsWriter()
+        {
+            @Override
+            public void write(ResultRow row)
+            {
+                rows.add(row);
+            }
+
+            @Override
+            public void close()
+            {
+            }
+        };
+    }
+
+    @Test
+    public void testCsv() throws IOException
+    {
+        String nl = System.lineSeparator();
+        assertEquals("\"META-INF/resources path (as it exists in JAR)\", \"Raw Path Requested\", \"Raw URI Result\", \"Encoded Path Requested\", \"Encoded URI Result\"" + nl +
+                "\"plain.txt\", \"plain.txt\", \"OK\", \"plain.txt\", \"OK\"" + nl,
+            write(ResultsFormat.CSV, ROWS.subList(0, 1)));
+    }
+
+    @Test
+    public void testJsonLines() throws IOException
+    {
+        List<String> lines = write(ResultsFormat.JSONL, ROWS).lines().collect(Collectors.toList());
+        assertEquals(ROWS.size(), lines.size());
+        assertEquals("{\"rawPath\":\"a b\\\"c\\\\d\\t.txt\",\"rawResult\":\"400 Bad Request\"," +
+            "\"encodedPath\":\"a%20b%22c%5Cd%09.txt\",\"encodedResult\":\"404 Not Found\"}", lines.get(1));
+        assertEquals("{\"rawPath\":\"été/😀.txt\",\"rawResult\":\"OK\"," +
+            "\"encodedPath\":\"%C3%A9t%C3%A9/%F0%9F%98%80.txt\",\"encodedResult\":\"Exception: java.io.EOFException: null\"}", lines.get(2));
+    }
+
+    @Test
+    public void testBinaryRoundTrip() throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ResultsWriter writer = ResultsFormat.BINARY.newWriter(out))
+        {
+            for (ResultRow row : ROWS)
+            {
+                writer.write(row);
+            }
+        }
+
+        List<ResultRow> rows = new ArrayList<>();
+        BinaryResultsWriter.read(new ByteArrayInputStream(out.toByteArray()), rows::add);
+        assertEquals(ROWS, rows);
+    }
+
+    @Test
+    public void testFrom()
+    {
+        assertEquals(ResultsFormat.CSV, ResultsFormat.from("csv"));
+        assertEquals(ResultsFormat.JSONL, ResultsFormat.from("JSONL"));
+        assertEquals(ResultsFormat.BINARY, ResultsFormat.from("binary"));
+        assertEquals(ResultsFormat.BINARY, ResultsFormat.from("bin"));
+    }
+
+    private static String write(ResultsFormat format, List<ResultRow> rows) throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ResultsWriter writer = format.newWriter(out))
+        {
+            for (ResultRow row : rows)
+            {
+                writer.write(row);
+            }
+        }
+        return out.toString(UTF_8);
+    }
+}
@@ -0,0 +1,150 @@
+package org.eclipse.ee4j.tests;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ResultsStoreTest
+{
+    @Test
+    public void testSaveAndLoad(@TempDir Path directory) throws IOException
+    {
+        Path file = directory.resolve("jetty.mrs");
+        ResultsStore store = new ResultsStore("jetty", file);
+        assertNull(store.get("raw", "semi;colon/:colon.txt", 0x1234L, 10));
+        int count = 10_000;
+        for (int i = 0; i < count; i++)
+        {
+            store.put("raw", "path/" + i, i, 10, i % 3 == 0 ? "OK" : "404 Not Found");
+        }
+        store.put("encoded", "path/0", 0, 10, "400 Bad Request");
+        assertEquals(count + 1, store.size());
+        store.save();
+        assertTrue(Files.isRegularFile(file));
+
+        ResultsStore loaded = new ResultsStore("jetty", file);
+        assertEquals(count + 1, loaded.size());
+        for (int i = 0; i < count; i++)
+        {
+            assertEquals(i % 3 == 0 ? "OK" : "404 Not Found", loaded.get("raw", "path/" + i, i, 10), "path/" + i);
+        }
+        assertEquals("400 Bad Request", loaded.get("encoded", "path/0", 0, 10));
+        assertEquals(count + 1, loaded.getHits());
+
+        // a change of the contents, or of the path requested, is a new case
+        assertNull(loaded.get("raw", "path/1", 2, 10));
+        assertNull(loaded.get("raw", "path/1", 1, 11));
+        assertNull(loaded.get("raw", "path%2F1", 1, 10));
+        assertEquals(3, loaded.getMisses());
+    }
+
+    @Test
+    public void testOtherFingerprintIgnored(@TempDir Path directory) throws IOException
+    {
+        Path file = directory.resolve("store.mrs");
+        ResultsStore store = new ResultsStore("{container=jetty-10.0.6}", file);
+        store.put("raw", "a.txt", 1, 1, "OK");
+        store.save();
+
+        ResultsStore other = new ResultsStore("{container=tomcat-9.0.54}", file);
+        assertEquals(0, other.size());
+        assertNull(other.get("raw", "a.txt", 1, 1));
+    }
+
+    @Test
+    public void testSupersededDeleted(@TempDir Path directory) throws IOException
+    {
+        ResultsStore first = ResultsStore.open(directory, "jetty", parts("1", "0123456789abcdef", "/"));
+        first.put("raw", "a.txt", 1, 1, "OK");
+        first.save();
+        ResultsStore other = ResultsStore.open(directory, "jetty", parts("1", "0123456789abcdef", "/other/"));
+        other.put("raw", "a.txt", 1, 1, "OK");
+        other.save();
+        Files.writeString(directory.resolve("jetty-fedcba9876543210.mrs"), "unversioned");
+
+        // a new build of the webapp: its store replaces the one of the previous build, not the one of another path
+        ResultsStore rebuilt = ResultsStore.open(directory, "jetty", parts("1", "1111111111111111", "/"));
+        assertFalse(Files.exists(first.getFile()));
+        assertTrue(Files.exists(other.getFile()));
+        assertFalse(Files.exists(directory.resolve("jetty-fedcba9876543210.mrs")));
+        assertNull(rebuilt.get("raw", "a.txt", 1, 1));
+
+        // nor for a new version of the results
+        rebuilt.put("raw", "a.txt", 1, 1, "OK");
+        rebuilt.save();
+        ResultsStore.open(directory, "jetty", parts("2", "1111111111111111", "/"));
+        assertFalse(Files.exists(rebuilt.getFile()));
+        assertTrue(Files.exists(other.getFile()));
+    }
+
+    @Test
+    public void testKey()
+    {
+        long key = ResultsStore.key("raw", "a.txt", 1, 1);
+        assertEquals(key, ResultsStore.key("raw", "a.txt", 1, 1));
+        assertNotEquals(key, ResultsStore.key("encoded", "a.txt", 1, 1));
+        assertNotEquals(key, ResultsStore.key("raw", "a.txT", 1, 1));
+        assertNotEquals(key, ResultsStore.key("raw", "a.txt", 2, 1));
+        assertNotEquals(key, ResultsStore.key("raw", "a.txt", 1, 2));
+        // the variant and the path are separated
+        assertNotEquals(ResultsStore.key("rawa", ".txt", 1, 1), key);
+        assertFalse(key == 0);
+    }
+
+    @Test
+    public void testDiff(@TempDir Path directory) throws IOException
+    {
+        Path baseline = directory.resolve("baseline/results.bin");
+        Path report = directory.resolve("results.diff");
+        ResultsDiff recording = new ResultsDiff(ResultsFormat.BINARY.newWriter(Files.newOutputStream(directory.resolve("first.bin"))), baseline, report);
+        try (ResultsWriter writer = recording)
+        {
+            writer.write(new ResultRow("same.txt", "OK", "same.txt", "OK"));
+            writer.write(new ResultRow("a b.txt", "400 Bad Request", "a%20b.txt", "OK"));
+            writer.write(new ResultRow("gone.txt", "OK", "gone.txt", "OK"));
+        }
+        assertTrue(recording.isRecording());
+        assertTrue(Files.isRegularFile(baseline));
+        assertFalse(Files.exists(report));
+
+        ResultsDiff diff = new ResultsDiff(ResultsFormat.CSV.newWriter(Files.newOutputStream(directory.resolve("second.csv"))), baseline, report);
+        try (ResultsWriter writer = diff)
+        {
+            writer.write(new ResultRow("same.txt", "OK", "same.txt", "OK"));
+            writer.write(new ResultRow("a b.txt", "OK", "a%20b.txt", "OK"));
+            writer.write(new ResultRow("new.txt", "OK", "new.txt", "404 Not Found"));
+        }
+        assertFalse(diff.isRecording());
+        assertEquals(1, diff.getChanged());
+        assertEquals(1, diff.getAdded());
+        assertEquals(1, diff.getRemoved());
+        assertEquals(1, diff.getUnchanged());
+        assertEquals(String.join("\n",
+            "changed\ta b.txt\traw: 400 Bad Request -> OK\tencoded: OK",
+            "added\tnew.txt\traw: OK\tencoded: 404 Not Found",
+            "removed\tgone.txt",
+            "1 changed, 1 added, 1 removed, 1 unchanged since " + baseline,
+            ""), Files.readString(report));
+    }
+
+    private static Map<String, String> parts(String results, String war, String path)
+    {
+        Map<String, String> parts = new LinkedHashMap<>();
+        parts.put(ResultsStore.RESULTS, results);
+        parts.put("container", "jetty");
+        parts.put(ResultsStore.WAR, war);
+        parts.put("path", path);
+        return parts;
+    }
+}
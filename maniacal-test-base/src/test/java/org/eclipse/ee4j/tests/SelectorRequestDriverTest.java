@@ -0,0 +1,41 @@
+package org.eclipse.ee4j.tests;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SelectorRequestDriverTest
+{
+    private RawTestServer server;
+
+    @BeforeEach
+    public void startServer() throws IOException
+    {
+        server = new RawTestServer();
+    }
+
+    @AfterEach
+    public void stopServer() throws Exception
+    {
+        server.close();
+    }
+
+    @ParameterizedTest
+    @CsvSource({"1,100", "10,1000", "200,1000"})
+    public void testStatusDistribution(int connections, int totalRequests) throws IOException
+    {
+        // per 10 paths: 7 plain and 1 chunked (200), 1 close (400), 1 drop (no response)
+        List<String> paths = RawTestServer.paths(10);
+        SelectorRequestDriver.Report report = new SelectorRequestDriver(server.getURI(), paths).run(connections, totalRequests);
+
+        assertEquals(totalRequests, report.getRequests());
+        assertEquals(Map.of(200, totalRequests * 8L / 10, 400, totalRequests / 10L, -1, totalRequests / 10L), report.getStatusCounts());
+    }
+}
@@ -0,0 +1,38 @@
+package org.eclipse.ee4j.tests;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StripedLruCacheTest
+{
+    @Test
+    public void testBounded()
+    {
+        StripedLruCache<Integer, String> cache = new StripedLruCache<>(64, 8);
+        for (int i = 0; i < 1000; i++)
+        {
+            cache.get(i, String::valueOf);
+            assertTrue(cache.size() <= 64, "size " + cache.size());
+        }
+        assertEquals(64, cache.size());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEvicted()
+    {
+        AtomicInteger loads = new AtomicInteger();
+        StripedLruCache<String, String> cache = new StripedLruCache<>(2, 1);
+        cache.get("a", (key) -> key + loads.incrementAndGet());
+        cache.get("b", (key) -> key + loads.incrementAndGet());
+        // a is now more recently used than b
+        assertEquals("a1", cache.get("a", (key) -> key + loads.incrementAndGet()));
+        cache.get("c", (key) -> key + loads.incrementAndGet());
+
+        assertEquals("a1", cache.get("a", (key) -> key + loads.incrementAndGet()));
+        assertEquals("b4", cache.get("b", (key) -> key + loads.incrementAndGet()));
+    }
+}
@@ -0,0 +1,130 @@
+package org.eclipse.ee4j.tests;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import org.eclipse.ee4j.tests.UriPathCanonicalizer.Rejection;
+import org.eclipse.ee4j.tests.UriPathCanonicalizer.Result;
+import org.eclipse.ee4j.tests.UriPathCanonicalizer.SeparatorPolicy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class UriPathCanonicalizerTest
+{
+    public static Stream<Arguments> canonicalizeArguments()
+    {
+        return Stream.of(
+            // dot segments
+            Arguments.of("/a/b/c", SeparatorPolicy.DECODE, "/a/b/c"),
+            Arguments.of("/a/./b", SeparatorPolicy.DECODE, "/a/b"),
+            Arguments.of("/a/b/../c", SeparatorPolicy.DECODE, "/a/c"),
+            Arguments.of("/a/b/..", SeparatorPolicy.DECODE, "/a/"),
+            Arguments.of("/a/b/.", SeparatorPolicy.DECODE, "/a/b/"),
+            Arguments.of("a//../b", SeparatorPolicy.DECODE, "a/b"),
+            Arguments.of("/a/%2E%2E/%2e/b", SeparatorPolicy.DECODE, "/b"),
+            Arguments.of("encoding/%2e%2e/exists.txt", SeparatorPolicy.DECODE, "exists.txt"),
+            Arguments.of("encoding/%252e%252e/exists.txt", SeparatorPolicy.DECODE, "encoding/%2e%2e/exists.txt"),
+            Arguments.of("/..", SeparatorPolicy.DECODE, Rejection.TRAVERSAL),
+            Arguments.of("..", SeparatorPolicy.DECODE, Rejection.TRAVERSAL),
+            Arguments.of("a/../..", SeparatorPolicy.DECODE, Rejection.TRAVERSAL),
+            Arguments.of("/%2e%2e/x", SeparatorPolicy.DECODE, Rejection.TRAVERSAL),
+            // escapes
+            Arguments.of("/this_is_100%_valid.txt", SeparatorPolicy.DECODE, Rejection.MALFORMED_ESCAPE),
+            Arguments.of("/50%", SeparatorPolicy.DECODE, Rejection.MALFORMED_ESCAPE),
+            Arguments.of("/%4", SeparatorPolicy.DECODE, Rejection.MALFORMED_ESCAPE),
+            Arguments.of("/%zz", SeparatorPolicy.DECODE, Rejection.MALFORMED_ESCAPE),
+            // not ASCII hex digits: an ARABIC-INDIC DIGIT TWO, and a FULLWIDTH LATIN CAPITAL LETTER E
+            Arguments.of("/a/%\u0662e%\u0662e/etc", SeparatorPolicy.DECODE, Rejection.MALFORMED_ESCAPE),
+            Arguments.of("/a/%2\uFF25%2\uFF25/etc", SeparatorPolicy.DECODE, Rejection.MALFORMED_ESCAPE),
+            Arguments.of("/caf%C3%A9/na%c3%afve.txt", SeparatorPolicy.DECODE, "/café/naïve.txt"),
+            Arguments.of("/%F0%9F%98%80.txt", SeparatorPolicy.DECODE, "/😀.txt"),
+            Arguments.of("/%C3", SeparatorPolicy.DECODE, Rejection.MALFORMED_UTF8),
+            Arguments.of("/%C3x", SeparatorPolicy.DECODE, Rejection.MALFORMED_UTF8),
+            Arguments.of("/%A9", SeparatorPolicy.DECODE, Rejection.MALFORMED_UTF8),
+            Arguments.of("/%C0%AF", SeparatorPolicy.DECODE, Rejection.MALFORMED_UTF8),
+            Arguments.of("/%E0%80%AF", SeparatorPolicy.DECODE, Rejection.MALFORMED_UTF8),
+            Arguments.of("/%ED%A0%80", SeparatorPolicy.DECODE, Rejection.MALFORMED_UTF8),
+            Arguments.of("/%F4%90%80%80", SeparatorPolicy.DECODE, Rejection.MALFORMED_UTF8),
+            // separators
+            Arguments.of("/a%2Fb/c%5cd/x", SeparatorPolicy.REJECT, Rejection.ENCODED_SEPARATOR),
+            Arguments.of("/a%2Fb/c%5cd/x", SeparatorPolicy.PRESERVE, "/a%2Fb/c%5Cd/x"),
+            Arguments.of("/a%2Fb/c%5cd/x", SeparatorPolicy.DECODE, "/a/b/c\\d/x"),
+            Arguments.of("/a%2Fb/c%5cd/x", SeparatorPolicy.SEPARATOR, "/a/b/c/d/x"),
+            Arguments.of("/a%2F..%2Fb", SeparatorPolicy.PRESERVE, Rejection.TRAVERSAL),
+            Arguments.of("/a%2F..%2Fb", SeparatorPolicy.SEPARATOR, "/b"),
+            Arguments.of("/a\\b", SeparatorPolicy.REJECT, Rejection.ENCODED_SEPARATOR),
+            Arguments.of("/a\\b", SeparatorPolicy.PRESERVE, "/a%5Cb"),
+            Arguments.of("/a\\b\\c%5c", SeparatorPolicy.PRESERVE, "/a%5Cb%5Cc%5C"),
+            Arguments.of("/a\\b", SeparatorPolicy.SEPARATOR, "/a/b"),
+            Arguments.of("/%2e%2e%5Cwindows", SeparatorPolicy.SEPARATOR, Rejection.TRAVERSAL),
+            Arguments.of("/%2e%2e%5Cwindows", SeparatorPolicy.DECODE, Rejection.TRAVERSAL),
+            // dot segments next to encoded separators
+            Arguments.of("/%2E%2E%2F%2E%2E/etc/passwd", SeparatorPolicy.DECODE, Rejection.TRAVERSAL),
+            Arguments.of("/%2E%2E%2F%2E%2E/etc/passwd", SeparatorPolicy.PRESERVE, Rejection.TRAVERSAL),
+            Arguments.of("/%2E%2E%2F%2E%2E/etc/passwd", SeparatorPolicy.SEPARATOR, Rejection.TRAVERSAL),
+            Arguments.of("/a%2F..%2F..%2Fetc", SeparatorPolicy.DECODE, Rejection.TRAVERSAL),
+            Arguments.of("/a%2F..%2F..%2Fetc", SeparatorPolicy.PRESERVE, Rejection.TRAVERSAL),
+            Arguments.of("/a%2F..%2F..%2Fetc", SeparatorPolicy.SEPARATOR, Rejection.TRAVERSAL),
+            Arguments.of("/a%2F.", SeparatorPolicy.DECODE, Rejection.TRAVERSAL),
+            Arguments.of("/a\\..\\b", SeparatorPolicy.PRESERVE, Rejection.TRAVERSAL),
+            Arguments.of("/a%2F...%2Fb", SeparatorPolicy.DECODE, "/a/.../b"),
+            Arguments.of("/a%2Fb/../c", SeparatorPolicy.DECODE, "/c"),
+            Arguments.of("/a%2Fb/../c", SeparatorPolicy.PRESERVE, "/c"),
+            Arguments.of("/x/a%5Cb/../c", SeparatorPolicy.DECODE, "/x/c"),
+            Arguments.of("/a%2Fb/../../c", SeparatorPolicy.DECODE, Rejection.TRAVERSAL),
+            Arguments.of("/////..", SeparatorPolicy.DECODE, "////")
+        );
+    }
+
+    @ParameterizedTest(name = "[{index}] {0} {1}")
+    @MethodSource("canonicalizeArguments")
+    public void testCanonicalize(String rawPath, SeparatorPolicy policy, Object expected)
+    {
+        Result result = UriPathCanonicalizer.canonicalize(rawPath, policy);
+        if (expected instanceof Rejection)
+            assertEquals(expected, result.getRejection(), rawPath);
+        else
+            assertEquals(expected, result.getPath(), rawPath);
+    }
+
+    /**
+     * Every resource of the corpus (without dot segments or unpaired surrogates of its own, which
+     * cannot be encoded as they are), requested by its encoded path, is canonicalized back to its name.
+     */
+    @ParameterizedTest(name = "[{index}] {0}")
+    @MethodSource("org.eclipse.ee4j.tests.EncodeUtilsTest#rawPaths")
+    public void testCorpusRoundTrip(String rawPath)
+    {
+        if (Arrays.stream(rawPath.split("/", -1)).anyMatch((segment) -> segment.equals(".") || segment.equals("..")))
+            return;
+        if (!rawPath.equals(new String(rawPath.getBytes(UTF_8), UTF_8)))
+            return;
+        String encoded = EncodeUtils.encodeJavaPathToUriPath(rawPath);
+        assertEquals(rawPath, UriPathCanonicalizer.canonicalize(encoded, SeparatorPolicy.DECODE).getPath(), encoded);
+        assertEquals("/" + rawPath, UriPathCanonicalizer.canonicalize("/" + encoded, SeparatorPolicy.DECODE).getPath(), encoded);
+    }
+
+    @Test
+    public void testCache() throws IOException
+    {
+        UriPathCanonicalizer cached = new UriPathCanonicalizer(SeparatorPolicy.SEPARATOR, 64);
+        for (MetaInfResourceIndex.Entry entry : MetaInfResourceIndex.get().getEntries())
+        {
+            for (String path : new String[]{entry.getRawPath(), entry.getEncodedPath()})
+            {
+                Result expected = UriPathCanonicalizer.canonicalize(path, SeparatorPolicy.SEPARATOR);
+                Result result = cached.canonicalize(path);
+                assertEquals(expected.getPath(), result.getPath(), path);
+                assertEquals(expected.getRejection(), result.getRejection(), path);
+                assertSame(result, cached.canonicalize(path), path);
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package org.eclipse.ee4j.tests;
+
+import java.net.URI;
+import java.nio.file.Path;
+
+import org.eclipse.jetty.http.UriCompliance;
+import org.eclipse.jetty.http2.server.HTTP2CServerConnectionFactory;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.util.Jetty;
+import org.eclipse.jetty.util.resource.PathResource;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.webapp.WebAppContext;
+
+/**
+ * The maniacal webapp deployed on an embedded Jetty server, from its exploded WAR.
+ * <p>
+ * With {@link TestSettings#H2C}, the connector also serves HTTP/2 cleartext, with prior
+ * knowledge or by upgrade from HTTP/1.1.
+ * </p>
+ */
+public class JettyWebappContainer implements WebappContainer
+{
+    private static final UriCompliance URI_COMPLIANCE = UriCompliance.RFC3986;
+    // no listing of a directory, as Tomcat and Undertow by default
+    private static final String DIR_ALLOWED = "org.eclipse.jetty.servlet.Default.dirAllowed";
+
+    private Server server;
+
+    @Override
+    public String getName()
+    {
+        return "jetty-" + Jetty.VERSION;
+    }
+
+    @Override
+    public String getConfiguration()
+    {
+        return "uriCompliance=" + URI_COMPLIANCE.getName() + ",dirAllowed=false";
+    }
+
+    @Override
+    public void start(Path webappDirectory) throws Exception
+    {
+        // enough threads and accept backlog for the concurrent test cases
+        int parallelism = TestSettings.getParallelism();
+        QueuedThreadPool threadPool = new QueuedThreadPool(Math.max(200, parallelism * 4));
+        threadPool.setName("maniacal-jetty");
+        server = new Server(threadPool);
+
+        HttpConfiguration httpConfiguration = new HttpConfiguration();
+        httpConfiguration.setUriCompliance(URI_COMPLIANCE);
+
+        ServerConnector connector = new ServerConnector(server, new HttpConnectionFactory(httpConfiguration));
+        if (TestSettings.isH2c())
+            connector.addConnectionFactory(new HTTP2CServerConnectionFactory(httpConfiguration));
+        connector.setPort(0);
+        connector.setAcceptQueueSize(Math.max(50, parallelism));
+        server.addConnector(connector);
+
+        WebAppContext webAppContext = new WebAppContext();
+        webAppContext.setWarResource(new PathResource(webappDirectory));
+        webAppContext.setInitParameter(DIR_ALLOWED, "false");
+
+        server.setHandler(webAppContext);
+        server.start();
+    }
+
+    @Override
+    public URI getWebappURI()
+    {
+        return server.getURI().resolve("/maniacal/");
+    }
+
+    public Server getServer()
+    {
+        return server;
+    }
+
+    @Override
+    public void stop() throws Exception
+    {
+        server.stop();
+        server.join();
+    }
+}
@@ -0,0 +1,103 @@
+package org.eclipse.ee4j.tests;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import org.apache.catalina.Context;
+import org.apache.catalina.Wrapper;
+import org.apache.catalina.connector.Connector;
+import org.apache.catalina.servlets.DefaultServlet;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.catalina.util.ServerInfo;
+
+/**
+ * The maniacal webapp deployed on an embedded Tomcat, from its exploded WAR.
+ * <p>
+ * The webapp gets the {@code default} servlet of a standalone Tomcat (which serves the
+ * {@code META-INF/resources} of its jars), but not the JSP servlet, as there is no JSP.
+ * </p>
+ */
+public class TomcatWebappContainer implements WebappContainer
+{
+    /**
+     * The characters that Tomcat rejects by default in the request target, when not encoded.
+     */
+    private static final String RELAXED_CHARS = "\"<>[\\]^`{|}";
+
+    private Tomcat tomcat;
+    private Path baseDirectory;
+
+    @Override
+    public String getName()
+    {
+        return "tomcat-" + ServerInfo.getServerNumber();
+    }
+
+    @Override
+    public String getConfiguration()
+    {
+        return "relaxedPathChars=" + RELAXED_CHARS + ",relaxedQueryChars=" + RELAXED_CHARS;
+    }
+
+    @Override
+    public void start(Path webappDirectory) throws Exception
+    {
+        baseDirectory = Files.createTempDirectory("maniacal-tomcat");
+        tomcat = new Tomcat();
+        tomcat.setBaseDir(baseDirectory.toString());
+
+        // enough threads and accept backlog for the concurrent test cases
+        int parallelism = TestSettings.getParallelism();
+        Connector connector = new Connector();
+        connector.setPort(0);
+        connector.setProperty("maxThreads", Integer.toString(Math.max(200, parallelism * 4)));
+        connector.setProperty("acceptCount", Integer.toString(Math.max(50, parallelism)));
+        // let the maniacal request targets reach the webapp, as the other containers do
+        connector.setProperty("relaxedPathChars", RELAXED_CHARS);
+        connector.setProperty("relaxedQueryChars", RELAXED_CHARS);
+        tomcat.setConnector(connector);
+
+        tomcat.setAddDefaultWebXmlToWebapp(false);
+        Context context = tomcat.addWebapp("/maniacal", webappDirectory.toString());
+        Wrapper defaultServlet = Tomcat.addServlet(context, "default", new DefaultServlet());
+        defaultServlet.setLoadOnStartup(1);
+        context.addServletMappingDecoded("/", "default");
+        Tomcat.addDefaultMimeTypeMappings(context);
+
+        tomcat.start();
+    }
+
+    @Override
+    public URI getWebappURI()
+    {
+        return URI.create("http://localhost:" + tomcat.getConnector().getLocalPort() + "/maniacal/");
+    }
+
+    public Tomcat getTomcat()
+    {
+        return tomcat;
+    }
+
+    @Override
+    public void stop() throws Exception
+    {
+        tomcat.stop();
+        tomcat.destroy();
+        delete(baseDirectory);
+    }
+
+    private static void delete(Path directory) throws IOException
+    {
+        try (Stream<Path> paths = Files.walk(directory))
+        {
+            for (Path path : (Iterable<Path>)paths.sorted(Comparator.reverseOrder())::iterator)
+            {
+                Files.delete(path);
+            }
+        }
+    }
+}
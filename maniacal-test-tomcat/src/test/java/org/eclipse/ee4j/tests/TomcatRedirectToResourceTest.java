@@ -0,0 +1,23 @@
+package org.eclipse.ee4j.tests;
+
+import java.net.URI;
+
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+public class TomcatRedirectToResourceTest extends AbstractRedirectToResourceTest
+{
+    @RegisterExtension
+    static final WebappContainerExtension TOMCAT = new WebappContainerExtension(TomcatWebappContainer.class);
+
+    @Override
+    public URI getWebappURI()
+    {
+        return TOMCAT.getWebappURI();
+    }
+
+    @Override
+    public WebappContainer getContainer()
+    {
+        return TOMCAT.getContainer();
+    }
+}
@@ -0,0 +1,286 @@
+package org.eclipse.ee4j.tests;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import javax.servlet.DispatcherType;
+import javax.servlet.Filter;
+import javax.servlet.Servlet;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import io.undertow.Handlers;
+import io.undertow.Undertow;
+import io.undertow.UndertowOptions;
+import io.undertow.Version;
+import io.undertow.server.handlers.PathHandler;
+import io.undertow.server.handlers.resource.ClassPathResourceManager;
+import io.undertow.server.handlers.resource.PathResourceManager;
+import io.undertow.server.handlers.resource.Resource;
+import io.undertow.server.handlers.resource.ResourceChangeListener;
+import io.undertow.server.handlers.resource.ResourceManager;
+import io.undertow.servlet.Servlets;
+import io.undertow.servlet.api.DeploymentInfo;
+import io.undertow.servlet.api.DeploymentManager;
+import io.undertow.servlet.api.FilterInfo;
+import io.undertow.servlet.api.ServletInfo;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xnio.Options;
+
+/**
+ * The maniacal webapp deployed on an embedded Undertow, from its exploded WAR.
+ * <p>
+ * Undertow has no WAR deployer of its own (WildFly has), so this deploys what the webapp uses:
+ * the filters, servlets and mappings of its {@code WEB-INF/web.xml}, its {@code WEB-INF/classes}
+ * and {@code WEB-INF/lib} in their own class loader, and its resources, including the
+ * {@code META-INF/resources} of its jars. With {@link TestSettings#H2C}, the listener also serves
+ * HTTP/2 cleartext.
+ * </p>
+ */
+public class UndertowWebappContainer implements WebappContainer
+{
+    private static final String CONTEXT_PATH = "/maniacal";
+
+    private Undertow server;
+    private DeploymentManager manager;
+    private URLClassLoader classLoader;
+    private URLClassLoader libClassLoader;
+
+    @Override
+    public String getName()
+    {
+        return "undertow-" + Version.getVersionString();
+    }
+
+    @Override
+    public String getConfiguration()
+    {
+        return "allowUnescapedCharactersInUrl=true";
+    }
+
+    @Override
+    public void start(Path webappDirectory) throws Exception
+    {
+        List<URL> classPath = new ArrayList<>();
+        List<URL> libs = new ArrayList<>();
+        classPath.add(webappDirectory.resolve("WEB-INF/classes").toUri().toURL());
+        Path lib = webappDirectory.resolve("WEB-INF/lib");
+        if (Files.isDirectory(lib))
+        {
+            try (Stream<Path> jars = Files.list(lib))
+            {
+                for (Path jar : (Iterable<Path>)jars.filter((path) -> path.toString().endsWith(".jar")).sorted()::iterator)
+                {
+                    libs.add(jar.toUri().toURL());
+                }
+            }
+        }
+        classPath.addAll(libs);
+        classLoader = new URLClassLoader(classPath.toArray(new URL[0]), UndertowWebappContainer.class.getClassLoader());
+        // without a parent, so the META-INF/resources are only the ones of the webapp
+        libClassLoader = new URLClassLoader(libs.toArray(new URL[0]), null);
+
+        ResourceManager resources = new CompositeResourceManager(
+            new PathResourceManager(webappDirectory),
+            new ClassPathResourceManager(libClassLoader, "META-INF/resources"));
+
+        DeploymentInfo deployment = Servlets.deployment()
+            .setClassLoader(classLoader)
+            .setContextPath(CONTEXT_PATH)
+            .setDeploymentName("maniacal.war")
+            .setResourceManager(resources);
+        addWebXml(deployment, webappDirectory.resolve("WEB-INF/web.xml").toFile());
+
+        manager = Servlets.newContainer().addDeployment(deployment);
+        manager.deploy();
+        PathHandler handler = Handlers.path().addPrefixPath(CONTEXT_PATH, manager.start());
+
+        // enough threads and accept backlog for the concurrent test cases
+        int parallelism = TestSettings.getParallelism();
+        server = Undertow.builder()
+            .addHttpListener(0, "localhost")
+            .setWorkerThreads(Math.max(200, parallelism * 4))
+            .setSocketOption(Options.BACKLOG, Math.max(50, parallelism))
+            // let the maniacal request targets reach the webapp, as the other containers do
+            .setServerOption(UndertowOptions.ALLOW_UNESCAPED_CHARACTERS_IN_URL, true)
+            .setServerOption(UndertowOptions.ENABLE_HTTP2, TestSettings.isH2c())
+            .setHandler(handler)
+            .build();
+        server.start();
+    }
+
+    private void addWebXml(DeploymentInfo deployment, File webXml) throws Exception
+    {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        Document document = factory.newDocumentBuilder().parse(webXml);
+
+        for (Element element : children(document.getDocumentElement(), "filter"))
+        {
+            FilterInfo filter = Servlets.filter(text(element, "filter-name"), classLoader.loadClass(text(element, "filter-class")).asSubclass(Filter.class));
+            filter.setAsyncSupported(Boolean.parseBoolean(text(element, "async-supported")));
+            for (Element param : children(element, "init-param"))
+            {
+                filter.addInitParam(text(param, "param-name"), text(param, "param-value"));
+            }
+            deployment.addFilter(filter);
+        }
+        for (Element element : children(document.getDocumentElement(), "filter-mapping"))
+        {
+            String name = text(element, "filter-name");
+            List<DispatcherType> dispatchers = new ArrayList<>();
+            for (Element dispatcher : children(element, "dispatcher"))
+            {
+                dispatchers.add(DispatcherType.valueOf(dispatcher.getTextContent().trim()));
+            }
+            if (dispatchers.isEmpty())
+                dispatchers.add(DispatcherType.REQUEST);
+            for (DispatcherType dispatcher : dispatchers)
+            {
+                for (Element pattern : children(element, "url-pattern"))
+                {
+                    deployment.addFilterUrlMapping(name, pattern.getTextContent().trim(), dispatcher);
+                }
+                for (Element servletName : children(element, "servlet-name"))
+                {
+                    deployment.addFilterServletNameMapping(name, servletName.getTextContent().trim(), dispatcher);
+                }
+            }
+        }
+
+        List<ServletInfo> servlets = new ArrayList<>();
+        for (Element element : children(document.getDocumentElement(), "servlet"))
+        {
+            ServletInfo servlet = Servlets.servlet(text(element, "servlet-name"), classLoader.loadClass(text(element, "servlet-class")).asSubclass(Servlet.class));
+            servlet.setAsyncSupported(Boolean.parseBoolean(text(element, "async-supported")));
+            String loadOnStartup = text(element, "load-on-startup");
+            if (!loadOnStartup.isEmpty())
+                servlet.setLoadOnStartup(Integer.parseInt(loadOnStartup));
+            for (Element param : children(element, "init-param"))
+            {
+                servlet.addInitParam(text(param, "param-name"), text(param, "param-value"));
+            }
+            servlets.add(servlet);
+        }
+        for (Element element : children(document.getDocumentElement(), "servlet-mapping"))
+        {
+            String name = text(element, "servlet-name");
+            for (ServletInfo servlet : servlets)
+            {
+                if (servlet.getName().equals(name))
+                {
+                    for (Element pattern : children(element, "url-pattern"))
+                    {
+                        servlet.addMapping(pattern.getTextContent().trim());
+                    }
+                }
+            }
+        }
+        deployment.addServlets(servlets);
+    }
+
+    /**
+     * The resource of the first manager that has it.
+     */
+    private static class CompositeResourceManager implements ResourceManager
+    {
+        private final ResourceManager[] managers;
+
+        private CompositeResourceManager(ResourceManager... managers)
+        {
+            this.managers = managers;
+        }
+
+        @Override
+        public Resource getResource(String path) throws IOException
+        {
+            for (ResourceManager manager : managers)
+            {
+                Resource resource = manager.getResource(path);
+                if (resource != null)
+                    return resource;
+            }
+            return null;
+        }
+
+        @Override
+        public boolean isResourceChangeListenerSupported()
+        {
+            return false;
+        }
+
+        @Override
+        public void registerResourceChangeListener(ResourceChangeListener listener)
+        {
+            // no change is ever notified, see isResourceChangeListenerSupported()
+        }
+
+        @Override
+        public void removeResourceChangeListener(ResourceChangeListener listener)
+        {
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            for (ResourceManager manager : managers)
+            {
+                manager.close();
+            }
+        }
+    }
+
+    private static List<Element> children(Element parent, String name)
+    {
+        List<Element> children = new ArrayList<>();
+        NodeList nodes = parent.getChildNodes();
+        for (int i = 0; i < nodes.getLength(); i++)
+        {
+            if (nodes.item(i) instanceof Element && name.equals(nodes.item(i).getNodeName()))
+                children.add((Element)nodes.item(i));
+        }
+        return children;
+    }
+
+    private static String text(Element parent, String name)
+    {
+        List<Element> children = children(parent, name);
+        return children.isEmpty() ? "" : children.get(0).getTextContent().trim();
+    }
+
+    @Override
+    public URI getWebappURI()
+    {
+        InetSocketAddress address = (InetSocketAddress)server.getListenerInfo().get(0).getAddress();
+        return URI.create("http://localhost:" + address.getPort() + CONTEXT_PATH + "/");
+    }
+
+    public Undertow getServer()
+    {
+        return server;
+    }
+
+    @Override
+    public void stop() throws Exception
+    {
+        server.stop();
+        manager.stop();
+        manager.undeploy();
+        close(classLoader);
+        close(libClassLoader);
+    }
+
+    private static void close(URLClassLoader loader) throws IOException
+    {
+        if (loader != null)
+            loader.close();
+    }
+}
@@ -0,0 +1,23 @@
+package org.eclipse.ee4j.tests;
+
+import java.net.URI;
+
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+public class UndertowMetaInfResourcesTest extends AbstractMetaInfResourcesTest
+{
+    @RegisterExtension
+    static final WebappContainerExtension UNDERTOW = new WebappContainerExtension(UndertowWebappContainer.class);
+
+    @Override
+    public URI getWebappURI()
+    {
+        return UNDERTOW.getWebappURI();
+    }
+
+    @Override
+    public WebappContainer getContainer()
+    {
+        return UNDERTOW.getContainer();
+    }
+}
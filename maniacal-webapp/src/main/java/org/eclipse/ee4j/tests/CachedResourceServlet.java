@@ -0,0 +1,270 @@
+package org.eclipse.ee4j.tests;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Serve the {@code META-INF/resources} of the {@code WEB-INF/lib} jars without the DefaultServlet,
+ * as a baseline for how fast the (decoded) maniacal paths can be served.
+ * <p>
+ * The entries of the jars are indexed by name at init, and their contents are kept in a
+ * {@link ResourceCache} of {@code cacheMaxBytes} (default 16MiB), for the resources of at
+ * most {@code cacheMaxEntryBytes} (default 1MiB). The responses have an ETag (of the CRC and
+ * size of the entry) and a Last-Modified, and are {@code 304} for a matching {@code If-None-Match}
+ * or {@code If-Modified-Since}.
+ * </p>
+ * <p>
+ * Each response says whether it came from the cache ({@code X-Cache: HIT} or {@code MISS}) and
+ * how long finding its contents took ({@code Server-Timing: lookup;dur=<ms>}), so the rest of
+ * its latency is the container and I/O. The contents are written as a {@link ByteBuffer} when the
+ * output stream of the container has a public {@code write(ByteBuffer)} method, else copied out in chunks.
+ * </p>
+ */
+public class CachedResourceServlet extends HttpServlet
+{
+    private static final String RESOURCES = "META-INF/resources/";
+    private static final String LIB = "/WEB-INF/lib/";
+    private static final int CHUNK_SIZE = 8 * 1024;
+
+    private static final ClassValue<MethodHandle> WRITE_BYTE_BUFFER = new ClassValue<>()
+    {
+        @Override
+        protected MethodHandle computeValue(Class<?> type)
+        {
+            try
+            {
+                return MethodHandles.publicLookup().findVirtual(type, "write", MethodType.methodType(void.class, ByteBuffer.class));
+            }
+            catch (NoSuchMethodException | IllegalAccessException e)
+            {
+                return null;
+            }
+        }
+    };
+
+    private static class Resource
+    {
+        private final JarFile jar;
+        private final JarEntry entry;
+        private final String etag;
+        private final long lastModified;
+        private final String contentType;
+
+        public Resource(JarFile jar, JarEntry entry, String contentType)
+        {
+            this.jar = jar;
+            this.entry = entry;
+            this.etag = String.format("\"%08x-%d\"", entry.getCrc(), entry.getSize());
+            // HTTP dates have a resolution of seconds
+            this.lastModified = entry.getTime() < 0 ? -1 : entry.getTime() / 1000 * 1000;
+            this.contentType = contentType == null ? "application/octet-stream" : contentType;
+        }
+
+        public byte[] read() throws IOException
+        {
+            try (InputStream in = jar.getInputStream(entry))
+            {
+                return in.readAllBytes();
+            }
+        }
+    }
+
+    private final Map<String, Resource> resources = new HashMap<>();
+    private final List<JarFile> jars = new ArrayList<>();
+    private ResourceCache cache;
+
+    @Override
+    public void init() throws ServletException
+    {
+        super.init();
+
+        String maxBytes = getInitParameter("cacheMaxBytes");
+        String maxEntryBytes = getInitParameter("cacheMaxEntryBytes");
+        cache = new ResourceCache(maxBytes == null ? 16 * 1024 * 1024 : Long.parseLong(maxBytes),
+            maxEntryBytes == null ? 1024 * 1024 : Integer.parseInt(maxEntryBytes));
+
+        ServletContext context = getServletContext();
+        Set<String> libPaths = context.getResourcePaths(LIB);
+        try
+        {
+            for (String jarPath : libPaths == null ? Set.<String>of() : new TreeSet<>(libPaths))
+            {
+                if (!jarPath.endsWith(".jar"))
+                    continue;
+                JarFile jar = new JarFile(toFile(context, jarPath));
+                jars.add(jar);
+                for (Enumeration<JarEntry> entries = jar.entries(); entries.hasMoreElements(); )
+                {
+                    JarEntry entry = entries.nextElement();
+                    String name = entry.getName();
+                    if (!entry.isDirectory() && name.startsWith(RESOURCES) && name.length() > RESOURCES.length())
+                    {
+                        String path = name.substring(RESOURCES.length());
+                        resources.putIfAbsent(path, new Resource(jar, entry, context.getMimeType(path)));
+                    }
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            destroy();
+            throw new ServletException("Unable to index " + LIB, e);
+        }
+        log(String.format("%d resources in %d jars", resources.size(), jars.size()));
+    }
+
+    @Override
+    public void destroy()
+    {
+        for (JarFile jar : jars)
+        {
+            try
+            {
+                jar.close();
+            }
+            catch (IOException e)
+            {
+                log("Unable to close " + jar.getName(), e);
+            }
+        }
+        jars.clear();
+        resources.clear();
+        super.destroy();
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException
+    {
+        long start = System.nanoTime();
+        String path = req.getPathInfo();
+        if (path != null && path.startsWith("/"))
+            path = path.substring(1);
+        Resource resource = path == null ? null : resources.get(path);
+        if (resource == null)
+        {
+            resp.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        resp.setHeader("ETag", resource.etag);
+        if (resource.lastModified >= 0)
+            resp.setDateHeader("Last-Modified", resource.lastModified);
+        if (isNotModified(req, resource))
+        {
+            resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        ByteBuffer contents = cache.get(path);
+        resp.setHeader("X-Cache", contents == null ? "MISS" : "HIT");
+        if (contents == null)
+            contents = cache.put(path, resource.read());
+        resp.setHeader("Server-Timing", String.format(Locale.ROOT, "lookup;dur=%.3f", (System.nanoTime() - start) / 1_000_000.0));
+
+        resp.setContentType(resource.contentType);
+        resp.setContentLength(contents.remaining());
+        write(resp.getOutputStream(), contents);
+    }
+
+    private static boolean isNotModified(HttpServletRequest req, Resource resource)
+    {
+        String ifNoneMatch = req.getHeader("If-None-Match");
+        if (ifNoneMatch != null)
+            return EntityTags.matches(ifNoneMatch, resource.etag);
+        if (resource.lastModified < 0)
+            return false;
+        try
+        {
+            long ifModifiedSince = req.getDateHeader("If-Modified-Since");
+            return ifModifiedSince >= resource.lastModified;
+        }
+        catch (IllegalArgumentException e)
+        {
+            return false;
+        }
+    }
+
+    private static void write(ServletOutputStream out, ByteBuffer contents) throws IOException
+    {
+        MethodHandle writeByteBuffer = WRITE_BYTE_BUFFER.get(out.getClass());
+        if (writeByteBuffer != null)
+        {
+            try
+            {
+                writeByteBuffer.invoke(out, contents);
+                return;
+            }
+            catch (IOException | RuntimeException | Error e)
+            {
+                throw e;
+            }
+            catch (Throwable t)
+            {
+                throw new IOException(t);
+            }
+        }
+
+        byte[] chunk = new byte[Math.min(CHUNK_SIZE, contents.remaining())];
+        while (contents.hasRemaining())
+        {
+            int length = Math.min(chunk.length, contents.remaining());
+            contents.get(chunk, 0, length);
+            out.write(chunk, 0, length);
+        }
+    }
+
+    /**
+     * @return the jar as a file, copied to the temporary directory of the context if it is not one already
+     */
+    private static File toFile(ServletContext context, String jarPath) throws IOException
+    {
+        URL url = context.getResource(jarPath);
+        if (url != null && "file".equals(url.getProtocol()))
+        {
+            try
+            {
+                return Paths.get(url.toURI()).toFile();
+            }
+            catch (URISyntaxException e)
+            {
+                throw new IOException(e);
+            }
+        }
+
+        File tempDir = (File)context.getAttribute(ServletContext.TEMPDIR);
+        Path copy = Files.createTempFile(tempDir.toPath(), "cached-resource-", ".jar");
+        try (InputStream in = context.getResourceAsStream(jarPath))
+        {
+            Files.copy(in, copy, StandardCopyOption.REPLACE_EXISTING);
+        }
+        copy.toFile().deleteOnExit();
+        return copy.toFile();
+    }
+}
@@ -0,0 +1,66 @@
+package org.eclipse.ee4j.tests;
+
+import java.io.IOException;
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+
+/**
+ * Writes a pre-built response body in fixed-size chunks, without blocking,
+ * then completes the {@link AsyncContext}.
+ * <p>
+ * The container calls {@link #onWritePossible()} each time the output can take more,
+ * so no thread waits on a slow client while the body is transferred.
+ * </p>
+ */
+public class ChunkedWriteListener implements WriteListener
+{
+    private final AsyncContext asyncContext;
+    private final ServletOutputStream out;
+    private final byte[] content;
+    private final int chunkSize;
+    private int offset;
+
+    /**
+     * @param asyncContext the context to complete once the body is written
+     * @param out the output stream of the response, in non-blocking mode once this listener is set on it
+     * @param content the body to write
+     * @param chunkSize the most bytes written at once
+     */
+    public ChunkedWriteListener(AsyncContext asyncContext, ServletOutputStream out, byte[] content, int chunkSize)
+    {
+        this.asyncContext = asyncContext;
+        this.out = out;
+        this.content = content;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public void onWritePossible() throws IOException
+    {
+        while (out.isReady())
+        {
+            if (offset == content.length)
+            {
+                asyncContext.complete();
+                return;
+            }
+            int length = Math.min(chunkSize, content.length - offset);
+            out.write(content, offset, length);
+            offset += length;
+        }
+    }
+
+    @Override
+    public void onError(Throwable t)
+    {
+        getServletContext().log("Unable to write " + content.length + " bytes, stopped after " + offset, t);
+        asyncContext.complete();
+    }
+
+    private ServletContext getServletContext()
+    {
+        return asyncContext.getRequest().getServletContext();
+    }
+}
@@ -0,0 +1,53 @@
+package org.eclipse.ee4j.tests;
+
+/**
+ * The {@code If-None-Match} condition: a list of entity-tags, or {@code *}, compared to the
+ * current entity-tag of a resource with the weak comparison of RFC 7232, section 2.3.2.
+ */
+public final class EntityTags
+{
+    private EntityTags()
+    {
+    }
+
+    /**
+     * @param ifNoneMatch the value of the {@code If-None-Match} header, eg: {@code "a", W/"b"}
+     * @param etag the current entity-tag, with its quotes, eg: {@code "0badc0de-12"}
+     * @return true if the header is {@code *} or lists the entity-tag, weak or strong; false as well if the header is malformed
+     */
+    public static boolean matches(String ifNoneMatch, String etag)
+    {
+        if (ifNoneMatch.trim().equals("*"))
+            return true;
+        String opaque = etag.startsWith("W/") ? etag.substring(2) : etag;
+
+        int pos = 0;
+        int length = ifNoneMatch.length();
+        while (true)
+        {
+            while (pos < length && (ifNoneMatch.charAt(pos) == ',' || ifNoneMatch.charAt(pos) == ' ' || ifNoneMatch.charAt(pos) == '\t'))
+            {
+                pos++;
+            }
+            if (pos == length)
+                return false;
+            if (ifNoneMatch.startsWith("W/", pos))
+                pos += 2;
+            if (pos == length || ifNoneMatch.charAt(pos) != '"')
+                return false;
+            int end = ifNoneMatch.indexOf('"', pos + 1);
+            if (end < 0)
+                return false;
+            if (ifNoneMatch.regionMatches(pos, opaque, 0, opaque.length()) && end + 1 - pos == opaque.length())
+                return true;
+            pos = end + 1;
+            // only whitespace before the next comma
+            while (pos < length && (ifNoneMatch.charAt(pos) == ' ' || ifNoneMatch.charAt(pos) == '\t'))
+            {
+                pos++;
+            }
+            if (pos < length && ifNoneMatch.charAt(pos) != ',')
+                return false;
+        }
+    }
+}
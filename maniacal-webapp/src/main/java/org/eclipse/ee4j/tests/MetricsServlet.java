@@ -0,0 +1,33 @@
+package org.eclipse.ee4j.tests;
+
+import java.io.IOException;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * The {@link RequestMetrics} of the webapp in the Prometheus text format, for a scraper or a curl:
+ * which categories of maniacal characters are slow or failing, under load, without a profiler.
+ */
+public class MetricsServlet extends HttpServlet
+{
+    private RequestMetrics metrics;
+
+    @Override
+    public void init() throws ServletException
+    {
+        super.init();
+        metrics = RequestMetrics.get(getServletContext());
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException
+    {
+        StringBuilder body = new StringBuilder(16 * 1024);
+        metrics.writeTo(body);
+        resp.setContentType("text/plain; version=0.0.4; charset=utf-8");
+        resp.setHeader("Cache-Control", "no-store");
+        resp.getWriter().write(body.toString());
+    }
+}
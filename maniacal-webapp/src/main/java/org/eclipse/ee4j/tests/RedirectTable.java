@@ -0,0 +1,330 @@
+package org.eclipse.ee4j.tests;
+
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import javax.servlet.ServletContext;
+
+/**
+ * The numbered resources of {@link RedirectToDefaultResourceServlet}: every file of the webapp and of the
+ * {@code META-INF/resources} of its {@code WEB-INF/lib} jars, requested by its raw path (when that is
+ * a valid URI path as it is: no {@code %}, {@code ?} or {@code #}), its encoded path, and (when the jar also has a file
+ * named by the encoded path) its double encoded path. Paths are encoded with {@link EncodeUtils}.
+ * <p>
+ * The jars are scanned in parallel, the files of the webapp itself on the calling thread. A jar with
+ * a {@value #INDEX} (written when the jar is built, see {@link TsvFields}) is not scanned, its files and
+ * contents are read from the index.
+ * </p>
+ */
+public final class RedirectTable
+{
+    public static final String INDEX = "META-INF/maniacal-index.tsv";
+    private static final String RESOURCES = "META-INF/resources/";
+    private static final String LIB = "/WEB-INF/lib/";
+
+    private final String[] rawPaths;
+    private final String[] contents;
+    private final String[] locations;
+    private final int files;
+
+    private RedirectTable(String[] rawPaths, String[] contents, String[] locations, int files)
+    {
+        this.rawPaths = rawPaths;
+        this.contents = contents;
+        this.locations = locations;
+        this.files = files;
+    }
+
+    /**
+     * @param context the context of the webapp
+     * @return the table of the resources of the webapp
+     * @throws IOException if a jar or an index cannot be read
+     */
+    public static RedirectTable scan(ServletContext context) throws IOException
+    {
+        Set<String> libPaths = context.getResourcePaths(LIB);
+        List<String> jars = libPaths == null ? List.of() : libPaths.stream()
+            .filter((path) -> path.endsWith(".jar"))
+            .sorted()
+            .collect(Collectors.toList());
+
+        SortedMap<String, String> files = new TreeMap<>();
+        for (Map<String, String> jarFiles : scanJars(context, jars))
+        {
+            files.putAll(jarFiles);
+        }
+
+        // the files of the webapp itself, skipping the directories that the jars provide
+        // (some containers list the files of the jars in the root, or in any directory)
+        Set<String> skipDirs = files.keySet().stream()
+            .map((path) -> topDir("/" + path))
+            .collect(Collectors.toCollection(HashSet::new));
+        skipDirs.add("/WEB-INF/");
+        skipDirs.add("/META-INF/");
+        List<String> paths = new ArrayList<>();
+        scanDir(context, "/", skipDirs, paths);
+        for (String path : paths)
+        {
+            if (!files.containsKey(path.substring(1)))
+                files.put(path.substring(1), read(context, path));
+        }
+        return of(context.getContextPath(), files);
+    }
+
+    /**
+     * @param contextPath the context path of the webapp
+     * @param files the contents of the files, by their path relative to the webapp
+     * @return the table of the requests of the files, in the order of the paths
+     */
+    public static RedirectTable of(String contextPath, SortedMap<String, String> files)
+    {
+        List<String> rawPaths = new ArrayList<>(files.size() * 3);
+        List<String> contents = new ArrayList<>(files.size() * 3);
+        Set<String> seen = new HashSet<>(files.size() * 4);
+        for (Map.Entry<String, String> file : files.entrySet())
+        {
+            String path = file.getKey();
+            String encoded = EncodeUtils.encodeJavaPathToUriPath(path);
+            if (path.indexOf('%') < 0 && isURIPath(contextPath + "/" + path) && seen.add(path))
+            {
+                rawPaths.add(path);
+                contents.add(file.getValue());
+            }
+            if (seen.add(encoded))
+            {
+                rawPaths.add(encoded);
+                contents.add(file.getValue());
+            }
+            String encodedContents = encoded.equals(path) ? null : files.get(encoded);
+            String doubleEncoded = encodedContents == null ? null : EncodeUtils.encodeJavaPathToUriPath(encoded);
+            if (doubleEncoded != null && seen.add(doubleEncoded))
+            {
+                rawPaths.add(doubleEncoded);
+                contents.add(encodedContents);
+            }
+        }
+
+        String[] locations = new String[rawPaths.size()];
+        for (int i = 0; i < locations.length; i++)
+        {
+            locations[i] = contextPath + "/" + rawPaths.get(i);
+        }
+        return new RedirectTable(rawPaths.toArray(new String[0]), contents.toArray(new String[0]), locations, files.size());
+    }
+
+    public int size()
+    {
+        return rawPaths.length;
+    }
+
+    /**
+     * @return the number of files that the requests are for
+     */
+    public int getFileCount()
+    {
+        return files;
+    }
+
+    public String getRawPath(int idx)
+    {
+        return rawPaths[idx];
+    }
+
+    public String getContents(int idx)
+    {
+        return contents[idx];
+    }
+
+    /**
+     * @return the location of the resource, including the context path
+     */
+    public String getLocation(int idx)
+    {
+        return locations[idx];
+    }
+
+    /**
+     * Scan the jars on a few threads of their own, rather than on the common pool, which the container
+     * may be using (or may not want used) while it initializes the webapp.
+     *
+     * @return the files of each jar, in the order of the jars
+     */
+    private static List<Map<String, String>> scanJars(ServletContext context, List<String> jars) throws IOException
+    {
+        if (jars.isEmpty())
+            return List.of();
+        int threads = Math.min(jars.size(), Runtime.getRuntime().availableProcessors());
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, (task) ->
+        {
+            Thread thread = new Thread(task, "redirect-table-scan-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try
+        {
+            List<Callable<Map<String, String>>> scans = new ArrayList<>(jars.size());
+            for (String jar : jars)
+            {
+                scans.add(() -> scanJar(context, jar));
+            }
+            List<Map<String, String>> files = new ArrayList<>(jars.size());
+            for (Future<Map<String, String>> scan : executor.invokeAll(scans))
+            {
+                files.add(scan.get());
+            }
+            return files;
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof IOException)
+                throw (IOException)e.getCause();
+            throw new IOException(e.getCause());
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while scanning the jars");
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return the stream of the index of the jar, or null if it has none (or the jar is not a file that can be opened as such)
+     */
+    private static InputStream openIndex(ServletContext context, String jar) throws IOException
+    {
+        URL url = context.getResource(jar);
+        if (url == null || !"file".equals(url.getProtocol()))
+            return null;
+        try
+        {
+            URLConnection connection = new URL("jar:" + url + "!/" + INDEX).openConnection();
+            // do not keep the jar open once the index is read
+            connection.setUseCaches(false);
+            return connection.getInputStream();
+        }
+        catch (FileNotFoundException e)
+        {
+            return null;
+        }
+    }
+
+    private static Map<String, String> scanJar(ServletContext context, String jar) throws IOException
+    {
+        Map<String, String> files = new HashMap<>();
+        InputStream index = openIndex(context, jar);
+        if (index != null)
+        {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(index, StandardCharsets.UTF_8)))
+            {
+                String line;
+                while ((line = reader.readLine()) != null)
+                {
+                    int tab = line.indexOf('\t');
+                    if (tab < 0)
+                        throw new IOException("Bad " + INDEX + " line in " + jar + ": " + line);
+                    files.put(TsvFields.unescape(line.substring(0, tab)), contents(TsvFields.unescape(line.substring(tab + 1))));
+                }
+            }
+            return files;
+        }
+
+        InputStream in = context.getResourceAsStream(jar);
+        if (in == null)
+            return files;
+        try (ZipInputStream zip = new ZipInputStream(in, StandardCharsets.UTF_8))
+        {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null)
+            {
+                String name = entry.getName();
+                if (!entry.isDirectory() && name.startsWith(RESOURCES) && name.length() > RESOURCES.length())
+                    files.put(name.substring(RESOURCES.length()), contents(new String(zip.readAllBytes(), StandardCharsets.UTF_8)));
+            }
+        }
+        return files;
+    }
+
+    private static void scanDir(ServletContext context, String dir, Set<String> skipDirs, List<String> files)
+    {
+        Set<String> paths = context.getResourcePaths(dir);
+        if (paths == null)
+            return;
+        for (String path : paths)
+        {
+            if (skipDirs.contains(topDir(path)))
+                continue;
+            if (path.endsWith("/"))
+                scanDir(context, path, skipDirs, files);
+            else
+                files.add(path);
+        }
+    }
+
+    /**
+     * @return the first directory of the path, eg: {@code /WEB-INF/}, or the path of a file of the root
+     */
+    private static String topDir(String path)
+    {
+        int slash = path.indexOf('/', 1);
+        return slash < 0 ? path : path.substring(0, slash + 1);
+    }
+
+    private static String read(ServletContext context, String path) throws IOException
+    {
+        try (InputStream in = context.getResourceAsStream(path))
+        {
+            return in == null ? "" : contents(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * The contents are sent as a header, so without the trailing newline of the file.
+     */
+    private static String contents(String file)
+    {
+        return file.strip();
+    }
+
+    private static boolean isURIPath(String location)
+    {
+        try
+        {
+            // eg: a '?' or '#' would make the rest of the name a query or a fragment
+            return location.equals(new URI(location).getRawPath());
+        }
+        catch (URISyntaxException e)
+        {
+            return false;
+        }
+    }
+}
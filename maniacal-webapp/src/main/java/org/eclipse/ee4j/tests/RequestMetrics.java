@@ -0,0 +1,158 @@
+package org.eclipse.ee4j.tests;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.servlet.ServletContext;
+
+/**
+ * The number of requests per {@link EncodingCategory.Classification} and response status, and
+ * a histogram of their latencies, written in the Prometheus text format.
+ * <p>
+ * The counters are {@link LongAdder}s, preallocated for every classification, so recording a
+ * request takes no lock: only the first request with a new status for a classification adds
+ * that status (to a {@link ConcurrentHashMap}).
+ * </p>
+ */
+public class RequestMetrics
+{
+    private static final String ATTRIBUTE = RequestMetrics.class.getName();
+
+    /**
+     * The upper bounds of the latency buckets, in seconds.
+     */
+    private static final double[] BUCKETS = {0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+    private static final long[] BUCKET_NANOS = new long[BUCKETS.length];
+
+    static
+    {
+        for (int i = 0; i < BUCKETS.length; i++)
+        {
+            BUCKET_NANOS[i] = (long)(BUCKETS[i] * 1_000_000_000D);
+        }
+    }
+
+    private static class Series
+    {
+        private final EncodingCategory.Classification classification;
+        private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        // the last one is +Inf
+        private final LongAdder[] buckets = new LongAdder[BUCKETS.length + 1];
+        private final LongAdder sumNanos = new LongAdder();
+
+        private Series(EncodingCategory.Classification classification)
+        {
+            this.classification = classification;
+            for (int i = 0; i < buckets.length; i++)
+            {
+                buckets[i] = new LongAdder();
+            }
+        }
+    }
+
+    private final Series[] series = new Series[EncodingCategory.count()];
+
+    public RequestMetrics()
+    {
+        for (EncodingCategory category : EncodingCategory.values())
+        {
+            for (EncodingCategory.Form form : EncodingCategory.Form.values())
+            {
+                EncodingCategory.Classification classification = EncodingCategory.of(category, form);
+                series[classification.getIndex()] = new Series(classification);
+            }
+        }
+    }
+
+    /**
+     * @param context the context of the webapp
+     * @return the metrics of the webapp, shared by its filter and its servlet
+     */
+    public static RequestMetrics get(ServletContext context)
+    {
+        synchronized (RequestMetrics.class)
+        {
+            RequestMetrics metrics = (RequestMetrics)context.getAttribute(ATTRIBUTE);
+            if (metrics == null)
+            {
+                metrics = new RequestMetrics();
+                context.setAttribute(ATTRIBUTE, metrics);
+            }
+            return metrics;
+        }
+    }
+
+    /**
+     * @param classification the classification of the request path
+     * @param status the status of the response
+     * @param nanos the time taken by the request
+     */
+    public void record(EncodingCategory.Classification classification, int status, long nanos)
+    {
+        Series s = series[classification.getIndex()];
+        LongAdder count = s.statuses.get(status);
+        if (count == null)
+            count = s.statuses.computeIfAbsent(status, (k) -> new LongAdder());
+        count.increment();
+
+        int bucket = 0;
+        while (bucket < BUCKET_NANOS.length && nanos > BUCKET_NANOS[bucket])
+        {
+            bucket++;
+        }
+        s.buckets[bucket].increment();
+        s.sumNanos.add(nanos);
+    }
+
+    /**
+     * Write the metrics of the classifications that had requests, in the Prometheus text format (version 0.0.4).
+     *
+     * @param out the text to append to
+     */
+    public void writeTo(StringBuilder out)
+    {
+        out.append("# HELP maniacal_requests_total Requests by encoding category of the request path and response status.\n");
+        out.append("# TYPE maniacal_requests_total counter\n");
+        for (Series s : series)
+        {
+            if (s.statuses.isEmpty())
+                continue;
+            for (Map.Entry<Integer, LongAdder> entry : new TreeMap<>(s.statuses).entrySet())
+            {
+                out.append("maniacal_requests_total{");
+                appendLabels(out, s.classification);
+                out.append(",status=\"").append(entry.getKey()).append("\"} ").append(entry.getValue().sum()).append('\n');
+            }
+        }
+
+        out.append("# HELP maniacal_request_duration_seconds Latency of the requests by encoding category of the request path.\n");
+        out.append("# TYPE maniacal_request_duration_seconds histogram\n");
+        for (Series s : series)
+        {
+            if (s.statuses.isEmpty())
+                continue;
+            long cumulative = 0;
+            for (int i = 0; i < s.buckets.length; i++)
+            {
+                cumulative += s.buckets[i].sum();
+                out.append("maniacal_request_duration_seconds_bucket{");
+                appendLabels(out, s.classification);
+                out.append(",le=\"").append(i < BUCKETS.length ? Double.toString(BUCKETS[i]) : "+Inf").append("\"} ").append(cumulative).append('\n');
+            }
+            out.append("maniacal_request_duration_seconds_sum{");
+            appendLabels(out, s.classification);
+            out.append("} ").append(String.format(Locale.ROOT, "%.9f", s.sumNanos.sum() / 1_000_000_000D)).append('\n');
+            out.append("maniacal_request_duration_seconds_count{");
+            appendLabels(out, s.classification);
+            out.append("} ").append(cumulative).append('\n');
+        }
+    }
+
+    private static void appendLabels(StringBuilder out, EncodingCategory.Classification classification)
+    {
+        out.append("category=\"").append(classification.getCategory().getLabel())
+            .append("\",form=\"").append(classification.getForm().getLabel()).append('"');
+    }
+}
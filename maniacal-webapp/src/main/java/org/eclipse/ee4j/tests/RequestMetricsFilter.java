@@ -0,0 +1,93 @@
+package org.eclipse.ee4j.tests;
+
+import java.io.IOException;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Record the latency and status of every request in the {@link RequestMetrics} of the webapp,
+ * by the {@link EncodingCategory} of its raw request URI (without the context path).
+ * <p>
+ * An async request is recorded when it completes.
+ * </p>
+ */
+public class RequestMetricsFilter implements Filter
+{
+    private RequestMetrics metrics;
+
+    @Override
+    public void init(FilterConfig filterConfig)
+    {
+        metrics = RequestMetrics.get(filterConfig.getServletContext());
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException
+    {
+        HttpServletRequest httpRequest = (HttpServletRequest)request;
+        HttpServletResponse httpResponse = (HttpServletResponse)response;
+        EncodingCategory.Classification classification = EncodingCategory.classify(httpRequest.getRequestURI(),
+            httpRequest.getContextPath().length(), httpRequest.getQueryString() != null);
+        long start = System.nanoTime();
+        boolean failed = true;
+        try
+        {
+            chain.doFilter(request, response);
+            failed = false;
+        }
+        finally
+        {
+            if (failed)
+                metrics.record(classification, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, System.nanoTime() - start);
+            else if (request.isAsyncStarted())
+                request.getAsyncContext().addListener(new CompletionListener(classification, httpResponse, start));
+            else
+                metrics.record(classification, httpResponse.getStatus(), System.nanoTime() - start);
+        }
+    }
+
+    private class CompletionListener implements AsyncListener
+    {
+        private final EncodingCategory.Classification classification;
+        private final HttpServletResponse response;
+        private final long start;
+
+        private CompletionListener(EncodingCategory.Classification classification, HttpServletResponse response, long start)
+        {
+            this.classification = classification;
+            this.response = response;
+            this.start = start;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event)
+        {
+            metrics.record(classification, response.getStatus(), System.nanoTime() - start);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event)
+        {
+        }
+
+        @Override
+        public void onError(AsyncEvent event)
+        {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event)
+        {
+            // started again, still to complete
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
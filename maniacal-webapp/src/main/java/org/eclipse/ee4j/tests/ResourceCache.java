@@ -0,0 +1,92 @@
+package org.eclipse.ee4j.tests;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * The contents of resources in direct {@link ByteBuffer}s, evicting the least recently used
+ * once the total size is over {@code maxBytes}.
+ * <p>
+ * The buffers returned are read-only duplicates, so any number of responses can write the
+ * same contents at the same time.
+ * </p>
+ */
+public class ResourceCache
+{
+    private final long maxBytes;
+    private final int maxEntryBytes;
+    private final LinkedHashMap<String, ByteBuffer> buffers = new LinkedHashMap<>(64, 0.75f, true);
+    private long bytes;
+
+    /**
+     * @param maxBytes the most bytes held by the cache
+     * @param maxEntryBytes the size of the largest resource that is cached
+     */
+    public ResourceCache(long maxBytes, int maxEntryBytes)
+    {
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = (int)Math.min(maxEntryBytes, maxBytes);
+    }
+
+    /**
+     * @param name the name of the resource
+     * @return the contents of the resource, or null if it is not cached
+     */
+    public ByteBuffer get(String name)
+    {
+        ByteBuffer buffer;
+        synchronized (buffers)
+        {
+            buffer = buffers.get(name);
+        }
+        return buffer == null ? null : buffer.duplicate();
+    }
+
+    /**
+     * @param name the name of the resource
+     * @param contents the contents of the resource
+     * @return the contents, as cached if they are not larger than the largest resource cached
+     */
+    public ByteBuffer put(String name, byte[] contents)
+    {
+        if (contents.length > maxEntryBytes)
+            return ByteBuffer.wrap(contents).asReadOnlyBuffer();
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(contents.length).put(contents).flip().asReadOnlyBuffer();
+        synchronized (buffers)
+        {
+            // another request may have loaded it first
+            ByteBuffer previous = buffers.putIfAbsent(name, buffer);
+            if (previous != null)
+                return previous.duplicate();
+            bytes += contents.length;
+            Iterator<ByteBuffer> eldest = buffers.values().iterator();
+            while (bytes > maxBytes && eldest.hasNext())
+            {
+                bytes -= eldest.next().capacity();
+                eldest.remove();
+            }
+        }
+        return buffer.duplicate();
+    }
+
+    /**
+     * @return the number of bytes cached
+     */
+    public long getBytes()
+    {
+        synchronized (buffers)
+        {
+            return bytes;
+        }
+    }
+
+    public int size()
+    {
+        synchronized (buffers)
+        {
+            return buffers.size();
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package org.eclipse.ee4j.tests;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * A deterministic generator of maniacal resource names, for a corpus of any size.
+ * <p>
+ * The names cycle through every combination of a {@link #RESERVED} character, a {@link Position}
+ * in the name, an encoding depth (the character raw, encoded once as {@code %XX}, or encoded
+ * twice as {@code %25XX}) and a {@link #STEMS stem} (ASCII or multi-byte UTF-8). Each name
+ * also has the index of the entry, so that names never repeat, and is put in nested directories
+ * (up to {@code maxDepth}) picked from a pool of maniacal directory names by a random of the seed.
+ * </p>
+ * <p>
+ * The entries are generated one at a time, so a corpus of millions of entries can be streamed
+ * to a jar by {@link #writeJar(OutputStream, String)}.
+ * </p>
+ */
+public class CorpusGenerator implements Iterator<CorpusGenerator.Entry>
+{
+    /**
+     * The characters put in the names: the URI gen-delims (without {@code /}) and sub-delims,
+     * and the extra characters that Jetty encodes.
+     */
+    public static final String RESERVED = ":?#[]@" + "!$&'()*+,;=" + "%\"<> \\^`{}|";
+
+    /**
+     * The stems of the names, ASCII and multi-byte UTF-8.
+     */
+    public static final String[] STEMS = {"file", "fïlé", "αρχείο", "файл", "文件", "📄📁"};
+
+    public static final int MAX_ENCODING_DEPTH = 2;
+
+    public enum Position
+    {
+        START, MIDDLE, END
+    }
+
+    private static final int DIRECTORY_POOL_SIZE = 64;
+    private static final int COMBINATIONS = RESERVED.length() * Position.values().length * (MAX_ENCODING_DEPTH + 1) * STEMS.length;
+
+    private final SplittableRandom random;
+    private final long count;
+    private final int maxDepth;
+    private final String[] directories;
+    private final StringBuilder path = new StringBuilder();
+    private long index;
+
+    /**
+     * @param seed the seed of the choice of directories
+     * @param count the number of entries to generate
+     * @param maxDepth the most directories an entry is nested in
+     */
+    public CorpusGenerator(long seed, long count, int maxDepth)
+    {
+        this.random = new SplittableRandom(seed);
+        this.count = count;
+        this.maxDepth = maxDepth;
+        this.directories = new String[DIRECTORY_POOL_SIZE];
+        for (int i = 0; i < directories.length; i++)
+        {
+            int combination = random.nextInt(COMBINATIONS);
+            directories[i] = name(combination, "dir", Integer.toString(i, 36));
+        }
+    }
+
+    /**
+     * @return the number of distinct combinations of character, position, encoding depth and stem
+     */
+    public static int getCombinations()
+    {
+        return COMBINATIONS;
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+        return index < count;
+    }
+
+    @Override
+    public Entry next()
+    {
+        if (!hasNext())
+            throw new NoSuchElementException();
+
+        path.setLength(0);
+        int depth = maxDepth == 0 ? 0 : random.nextInt(maxDepth + 1);
+        for (int i = 0; i < depth; i++)
+        {
+            path.append(directories[random.nextInt(directories.length)]).append('/');
+        }
+        int combination = (int)(index % COMBINATIONS);
+        String name = name(combination, STEMS[combination % STEMS.length], "-" + Long.toString(index, 36) + ".txt");
+        path.append(name);
+        return new Entry(index++, path.toString());
+    }
+
+    /**
+     * Write the entries (that are not already taken from this generator) to a jar,
+     * as STORED entries under {@code META-INF/resources/<resourcesDir>}.
+     *
+     * @param out the stream to write the jar to, not closed
+     * @param resourcesDir the directory of the entries in {@code META-INF/resources}
+     * @return the number of entries written
+     * @throws IOException if the jar cannot be written
+     */
+    public long writeJar(OutputStream out, String resourcesDir) throws IOException
+    {
+        String prefix = "META-INF/resources/" + resourcesDir + "/";
+        CRC32 crc = new CRC32();
+        long written = 0;
+        ZipOutputStream zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+        zip.setMethod(ZipOutputStream.STORED);
+        while (hasNext())
+        {
+            Entry entry = next();
+            byte[] contents = entry.getContents();
+            crc.reset();
+            crc.update(contents);
+
+            ZipEntry zipEntry = new ZipEntry(prefix + entry.getPath());
+            zipEntry.setSize(contents.length);
+            zipEntry.setCompressedSize(contents.length);
+            zipEntry.setCrc(crc.getValue());
+            // a fixed time, so that the same seed gives the same jar
+            zipEntry.setTime(0);
+            zip.putNextEntry(zipEntry);
+            zip.write(contents);
+            zip.closeEntry();
+            written++;
+        }
+        zip.finish();
+        return written;
+    }
+
+    /**
+     * @return the name of a combination, with the character at its position in (or around) the stem, followed by the suffix
+     */
+    private static String name(int combination, String stem, String suffix)
+    {
+        int c = combination / STEMS.length;
+        int depth = c % (MAX_ENCODING_DEPTH + 1);
+        c /= MAX_ENCODING_DEPTH + 1;
+        Position position = Position.values()[c % Position.values().length];
+        c /= Position.values().length;
+
+        String reserved = String.valueOf(RESERVED.charAt(c));
+        for (int i = 0; i < depth; i++)
+        {
+            reserved = PathUtils.encodePath(reserved);
+        }
+
+        switch (position)
+        {
+            case START:
+                return reserved + stem + suffix;
+            case MIDDLE:
+                int middle = stem.offsetByCodePoints(0, stem.codePointCount(0, stem.length()) / 2);
+                return stem.substring(0, middle) + reserved + stem.substring(middle) + suffix;
+            default:
+                return stem + reserved + suffix;
+        }
+    }
+
+    public static class Entry
+    {
+        private final long index;
+        private final String path;
+
+        public Entry(long index, String path)
+        {
+            this.index = index;
+            this.path = path;
+        }
+
+        public long getIndex()
+        {
+            return index;
+        }
+
+        /**
+         * @return the path of the entry, relative to its resources directory
+         */
+        public String getPath()
+        {
+            return path;
+        }
+
+        /**
+         * @return the contents of the entry: its path, so that a response can be checked against the request
+         */
+        public byte[] getContents()
+        {
+            return ("stress: " + path).getBytes(StandardCharsets.UTF_8);
+        }
+    }
+}
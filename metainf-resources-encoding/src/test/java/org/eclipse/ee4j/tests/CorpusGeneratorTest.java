@@ -0,0 +1,90 @@
+package org.eclipse.ee4j.tests;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.junit.jupiter.api.Test;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CorpusGeneratorTest
+{
+    private static final long SEED = 0x6D616E6961636C4CL;
+
+    @Test
+    public void testDeterministic()
+    {
+        assertEquals(paths(SEED, 1000, 3), paths(SEED, 1000, 3));
+        assertNotEquals(paths(SEED, 1000, 3), paths(SEED + 1, 1000, 3));
+    }
+
+    @Test
+    public void testEveryCombinationUnique()
+    {
+        List<String> paths = paths(SEED, CorpusGenerator.getCombinations() * 2L, 2);
+        assertEquals(paths.size(), new HashSet<>(paths).size(), "unique paths");
+
+        Set<String> names = new HashSet<>();
+        for (String path : paths)
+        {
+            String name = path.substring(path.lastIndexOf('/') + 1);
+            // the name without its index, eg: "fïlé?-2s.txt" is "fïlé?.txt"
+            names.add(name.replaceFirst("-[0-9a-z]+\\.txt$", ".txt"));
+            assertFalse(name.isEmpty(), path);
+        }
+        assertEquals(CorpusGenerator.getCombinations(), names.size(), "distinct combinations");
+        for (char c : CorpusGenerator.RESERVED.toCharArray())
+        {
+            String reserved = String.valueOf(c);
+            assertTrue(names.contains("file" + reserved + ".txt"), "end " + reserved);
+            assertTrue(names.contains(reserved + "文件.txt"), "start " + reserved);
+            assertTrue(names.contains("αρχ" + PathUtils.encodePath(PathUtils.encodePath(reserved)) + "είο.txt"), "middle, encoded twice " + reserved);
+        }
+    }
+
+    @Test
+    public void testWriteJar() throws IOException
+    {
+        ByteArrayOutputStream jar = new ByteArrayOutputStream();
+        assertEquals(5000, new CorpusGenerator(SEED, 5000, 3).writeJar(jar, "stress"));
+
+        CorpusGenerator expected = new CorpusGenerator(SEED, 5000, 3);
+        CRC32 crc = new CRC32();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(jar.toByteArray()), UTF_8))
+        {
+            ZipEntry zipEntry;
+            while ((zipEntry = zip.getNextEntry()) != null)
+            {
+                CorpusGenerator.Entry entry = expected.next();
+                assertEquals("META-INF/resources/stress/" + entry.getPath(), zipEntry.getName());
+                assertEquals(ZipEntry.STORED, zipEntry.getMethod(), zipEntry.getName());
+                byte[] contents = zip.readAllBytes();
+                assertArrayEquals(entry.getContents(), contents, zipEntry.getName());
+                crc.reset();
+                crc.update(contents);
+                assertEquals(crc.getValue(), zipEntry.getCrc(), zipEntry.getName());
+            }
+        }
+        assertFalse(expected.hasNext(), "every entry in the jar");
+    }
+
+    private static List<String> paths(long seed, long count, int maxDepth)
+    {
+        List<String> paths = new ArrayList<>();
+        new CorpusGenerator(seed, count, maxDepth).forEachRemaining((entry) -> paths.add(entry.getPath()));
+        return paths;
+    }
+}
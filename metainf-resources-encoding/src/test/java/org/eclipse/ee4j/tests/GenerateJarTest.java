@@ -11,8 +11,11 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.Test;
 
@@ -37,6 +40,7 @@ public class GenerateJarTest
             generateFilesInDir(base, "question?mark");
             generateFilesInDir(base, "hash#mark");
             generateFilesInDir(base, "%2e%2e");
+            writeIndex(zipfs.getPath("/META-INF/resources"), zipfs.getPath("/META-INF/maniacal-index.tsv"));
         }
         catch (IOException e)
         {
@@ -44,6 +48,27 @@ public class GenerateJarTest
         }
     }
 
+    /**
+     * Write the build time index of the resources, read by the webapp instead of scanning the jar:
+     * one line of path (relative to {@code resourcesDir}) and contents per file, see {@link TsvFields}.
+     */
+    private static void writeIndex(Path resourcesDir, Path indexFile) throws IOException
+    {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(resourcesDir))
+        {
+            files = walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+
+        StringBuilder index = new StringBuilder();
+        for (Path file : files)
+        {
+            TsvFields.append(index, resourcesDir.relativize(file).toString()).append('\t');
+            TsvFields.append(index, Files.readString(file, StandardCharsets.UTF_8)).append('\n');
+        }
+        Files.writeString(indexFile, index, StandardCharsets.UTF_8);
+    }
+
     private static void generateFilesInDir(Path base, String rawDirName) throws IOException
     {
         generateFiles(PathUtils.ensureDirExists(base.resolve(rawDirName)), (in) -> String.format("%s: %s", rawDirName, in));
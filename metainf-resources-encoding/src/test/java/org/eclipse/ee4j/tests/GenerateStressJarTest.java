@@ -0,0 +1,47 @@
+package org.eclipse.ee4j.tests;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Generate {@code target/metainf-resources-stress.jar}, a {@link CorpusGenerator} corpus of
+ * {@value #ENTRIES} entries under {@code META-INF/resources/stress}.
+ * <pre>
+ *   mvn test -pl metainf-resources-encoding -Dtest=GenerateStressJarTest -Dmaniacal.stressCorpus.entries=1000000
+ * </pre>
+ */
+public class GenerateStressJarTest
+{
+    public static final String ENTRIES = "maniacal.stressCorpus.entries";
+    public static final String SEED = "maniacal.stressCorpus.seed";
+    public static final String MAX_DEPTH = "maniacal.stressCorpus.maxDepth";
+
+    @Test
+    @EnabledIfSystemProperty(named = ENTRIES, matches = "[0-9]+")
+    public void testGenerateStressJar() throws IOException
+    {
+        long entries = Long.getLong(ENTRIES);
+        long seed = Long.getLong(SEED, 0x6D616E6961636C4CL);
+        int maxDepth = Integer.getInteger(MAX_DEPTH, 3);
+
+        Path outputJar = Paths.get("target/metainf-resources-stress.jar");
+        PathUtils.ensureDirExists(outputJar.getParent());
+        long start = System.nanoTime();
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(outputJar), 64 * 1024))
+        {
+            assertEquals(entries, new CorpusGenerator(seed, entries, maxDepth).writeJar(out, "stress"));
+        }
+        System.out.printf("%s: %d entries, %d bytes in %d ms%n", outputJar, entries, Files.size(outputJar),
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+}
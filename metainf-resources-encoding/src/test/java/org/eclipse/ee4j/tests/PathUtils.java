@@ -1,6 +1,9 @@
 package org.eclipse.ee4j.tests;
 
 import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -10,14 +13,19 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 public class PathUtils
 {
     // Simple hex array
-    private static final char[] HEXES = "0123456789ABCDEF".toCharArray();
-    // The first 127 characters and their encodings.
-    private static final String[] URI_ENCODED_CHARS;
+    private static final byte[] HEXES = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+    // Bitset of the first 128 characters, set if they need no encoding.
+    // Characters 0-63 are in the LO word, 64-127 in the HI word.
+    private static final long URI_SAFE_CHARS_LO;
+    private static final long URI_SAFE_CHARS_HI;
+
+    // Word-at-a-time (SWAR) constants, see unsafeBytes(long)
+    private static final VarHandle LONG_LE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGH = 0x8080808080808080L;
 
     static
     {
-        URI_ENCODED_CHARS = new String[127];
-
         // URI Reserved Chars
         String uriReservedGenDelims = ":?#[]@"; // intentionally missing "/"
         String uriReservedSubDelims = "!$&'()*+,;=";
@@ -26,41 +34,112 @@ public class PathUtils
 
         String reserved = uriReservedGenDelims + uriReservedSubDelims + jettyReserved;
 
-        for (int i = 0; i < URI_ENCODED_CHARS.length; i++)
+        long lo = 0;
+        long hi = 0;
+        for (int i = 0; i < 127; i++)
         {
             if ((i < 0x20) || // control characters
                 (reserved.indexOf(i) != (-1)))
             {
                 // encoding needed
-                URI_ENCODED_CHARS[i] = String.format("%%%02X", i);
+                continue;
             }
+
+            // raw character
+            if (i < 64)
+                lo |= 1L << i;
             else
-            {
-                // raw character
-                URI_ENCODED_CHARS[i] = String.valueOf((char)i);
-            }
+                hi |= 1L << (i - 64);
         }
+        URI_SAFE_CHARS_LO = lo;
+        URI_SAFE_CHARS_HI = hi;
     }
 
     public static String encodePath(String rawpath)
     {
         byte[] rawpathbuf = rawpath.getBytes(StandardCharsets.UTF_8);
         int len = rawpathbuf.length;
-        StringBuilder buf = new StringBuilder(len * 2);
-        for (byte c : rawpathbuf)
+        int unsafe = indexOfUnsafe(rawpathbuf, 0, len);
+        if (unsafe == len)
+            return rawpath;
+
+        byte[] buf = new byte[len * 3];
+        int pos = 0;
+        int i = 0;
+        while (true)
         {
-            if (c <= URI_ENCODED_CHARS.length)
-            {
-                buf.append(URI_ENCODED_CHARS[c]);
-            }
-            else
-            {
-                buf.append('%');
-                buf.append(HEXES[(c & 0xF0) >> 4]);
-                buf.append(HEXES[(c & 0x0F)]);
-            }
+            // bulk copy the run of safe bytes
+            System.arraycopy(rawpathbuf, i, buf, pos, unsafe - i);
+            pos += unsafe - i;
+            if (unsafe == len)
+                break;
+
+            int c = rawpathbuf[unsafe] & 0xFF;
+            buf[pos++] = '%';
+            buf[pos++] = HEXES[c >> 4];
+            buf[pos++] = HEXES[c & 0x0F];
+            i = unsafe + 1;
+            unsafe = indexOfUnsafe(rawpathbuf, i, len);
         }
-        return buf.toString();
+        return new String(buf, 0, pos, StandardCharsets.US_ASCII);
+    }
+
+    private static boolean isSafe(int c)
+    {
+        // branch free pick of the LO or HI word, as safe and unsafe characters are interleaved
+        long hiWord = -(long)((c >>> 6) & 1);
+        long bits = (URI_SAFE_CHARS_LO & ~hiWord) | (URI_SAFE_CHARS_HI & hiWord);
+        // shifting a long only uses the lowest 6 bits of c
+        return c < 128 && ((bits >>> c) & 1) != 0;
+    }
+
+    /**
+     * Find the first byte that needs encoding, reading 8 bytes at a time while the bytes are safe.
+     */
+    private static int indexOfUnsafe(byte[] buf, int from, int to)
+    {
+        int i = from;
+        while (i + Long.BYTES <= to)
+        {
+            long unsafe = unsafeBytes((long)LONG_LE.get(buf, i));
+            if (unsafe != 0)
+                return i + (Long.numberOfTrailingZeros(unsafe) >>> 3);
+            i += Long.BYTES;
+        }
+        for (; i < to; i++)
+        {
+            if (!isSafe(buf[i] & 0xFF))
+                return i;
+        }
+        return to;
+    }
+
+    /**
+     * The high bit of each byte of the result is set if that byte of the word needs encoding.
+     * The safe set is exactly {@code - . / 0-9}, {@code A-Z}, {@code a-z}, {@code _} and {@code ~}.
+     */
+    private static long unsafeBytes(long word)
+    {
+        // with the high bits cleared no byte can carry into its neighbour below
+        long w = word & ~HIGH;
+        long safe = inRange(w, '-', '9') |
+            inRange(w, 'A', 'Z') |
+            inRange(w, 'a', 'z') |
+            equalTo(w, '_') |
+            equalTo(w, '~');
+        return (~safe & HIGH) | (word & HIGH);
+    }
+
+    private static long inRange(long w, int lo, int hi)
+    {
+        // high bit set if byte >= lo, and not set if byte > hi
+        return (w + ONES * (0x80 - lo)) & ~(w + ONES * (0x7F - hi)) & HIGH;
+    }
+
+    private static long equalTo(long w, int c)
+    {
+        long x = w ^ (ONES * c);
+        return ~((x + 0x7F7F7F7F7F7F7F7FL) | x) & HIGH;
     }
 
     public static Path ensureDirExists(Path dir) throws IOException